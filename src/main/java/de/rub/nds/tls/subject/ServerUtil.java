@@ -9,31 +9,71 @@
 package de.rub.nds.tls.subject;
 
 import de.rub.nds.tls.subject.exceptions.ImplementationDidNotStartException;
+import de.rub.nds.tls.subject.probe.ReadinessProber;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class ServerUtil {
     private static final Logger LOGGER = LogManager.getLogger();
 
-    private static final int SERVER_POLL_INTERVAL_MILLISECONDS = 50;
-
     private static final int TIMEOUT_WAIT_FOR_SERVER_SPINUP_MILLISECONDS = 10000;
 
     public void waitUntilServerIsOnline(String host, int port) {
-        long startTime = System.currentTimeMillis();
-        while (!isServerOnline(host, port)) {
-            if (startTime + TIMEOUT_WAIT_FOR_SERVER_SPINUP_MILLISECONDS
-                    < System.currentTimeMillis()) {
-                throw new ImplementationDidNotStartException("Could not start Server: Timeout");
-            }
-            try {
-                Thread.sleep(SERVER_POLL_INTERVAL_MILLISECONDS);
-            } catch (InterruptedException ex) {
-                throw new ImplementationDidNotStartException(
-                        "Interrupted while waiting for Server", ex);
+        await(waitUntilServerIsOnlineAsync(host, port));
+    }
+
+    /**
+     * Probes the server using the shared {@link ReadinessProber}, so that many servers can be
+     * awaited without a thread per server.
+     *
+     * @param host The host of the server
+     * @param port The port of the server
+     * @return A future completing once the server accepts connections
+     */
+    public CompletableFuture<InetSocketAddress> waitUntilServerIsOnlineAsync(
+            String host, int port) {
+        return ReadinessProber.instance()
+                .probe(host, port, Duration.ofMillis(TIMEOUT_WAIT_FOR_SERVER_SPINUP_MILLISECONDS));
+    }
+
+    /**
+     * Waits until the server is ready, probing it via TCP or DTLS depending on {@link
+     * HostInfo#getType()}.
+     *
+     * @param hostInfo The host info of the server
+     */
+    public void waitUntilServerIsOnline(HostInfo hostInfo) {
+        await(waitUntilServerIsOnlineAsync(hostInfo));
+    }
+
+    /**
+     * @param hostInfo The host info of the server
+     * @return A future completing once the server is ready
+     * @see #waitUntilServerIsOnline(HostInfo)
+     */
+    public CompletableFuture<InetSocketAddress> waitUntilServerIsOnlineAsync(HostInfo hostInfo) {
+        return ReadinessProber.instance()
+                .probe(hostInfo, Duration.ofMillis(TIMEOUT_WAIT_FOR_SERVER_SPINUP_MILLISECONDS));
+    }
+
+    private static void await(CompletableFuture<InetSocketAddress> future) {
+        try {
+            future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ImplementationDidNotStartException(
+                    "Interrupted while waiting for Server", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof ImplementationDidNotStartException) {
+                throw (ImplementationDidNotStartException) ex.getCause();
             }
+            throw new ImplementationDidNotStartException("Could not start Server", ex.getCause());
         }
     }
 
@@ -0,0 +1,30 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.constants;
+
+/** Labels identifying the session that created a container or network. */
+public enum TlsSessionLabels {
+    SESSION("tls_session"),
+    OWNER("tls_session_owner"),
+    HOST("tls_session_host"),
+    PID("tls_session_pid"),
+    PID_NAMESPACE("tls_session_pid_namespace"),
+    STARTED("tls_session_started"),
+    AUTO_REMOVE("tls_session_auto_remove");
+
+    private String labelName;
+
+    TlsSessionLabels(String label) {
+        this.labelName = label;
+    }
+
+    public String getLabelName() {
+        return this.labelName;
+    }
+}
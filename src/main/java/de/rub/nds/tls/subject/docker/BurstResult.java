@@ -0,0 +1,141 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Outcome of {@link DockerTlsClientInstance#connectBurst(String, int, int, int)}. Attempt times are
+ * measured inside the container, so they do not include any Docker overhead.
+ */
+public class BurstResult {
+    private final List<Attempt> attempts;
+    private final Duration duration;
+
+    public BurstResult(List<Attempt> attempts, Duration duration) {
+        List<Attempt> sorted = new ArrayList<>(attempts);
+        sorted.sort(Comparator.comparingInt(Attempt::getIndex));
+        this.attempts = List.copyOf(sorted);
+        this.duration = duration;
+    }
+
+    /**
+     * Reads the result lines written by the burst script. Lines look like {@code <token> <index>
+     * <exit code> <start ns> <end ns>}, all other lines are ignored.
+     */
+    static BurstResult parse(List<String> lines, String token, Duration duration) {
+        List<Attempt> attempts = new ArrayList<>();
+        for (String line : lines) {
+            String[] fields = line.trim().split(" ");
+            if (fields.length != 5 || !fields[0].equals(token)) {
+                continue;
+            }
+            try {
+                long start = Long.parseLong(fields[3]);
+                long end = Long.parseLong(fields[4]);
+                attempts.add(
+                        new Attempt(
+                                Integer.parseInt(fields[1]),
+                                Integer.parseInt(fields[2]),
+                                Duration.ofNanos(end - start)));
+            } catch (NumberFormatException e) {
+                // not written by the script
+            }
+        }
+        return new BurstResult(attempts, duration);
+    }
+
+    /**
+     * @return The attempts that reported a result, ordered by index
+     */
+    public List<Attempt> getAttempts() {
+        return attempts;
+    }
+
+    public long getSuccessCount() {
+        return attempts.stream().filter(Attempt::isSuccess).count();
+    }
+
+    public long getFailureCount() {
+        return attempts.size() - getSuccessCount();
+    }
+
+    /**
+     * @return Wall time of the whole burst, including starting the exec
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    /**
+     * @param quantile Value between 0 and 1
+     * @return The quantile of the durations of successful attempts, if there were any
+     */
+    public Optional<Duration> getQuantile(double quantile) {
+        List<Duration> durations = new ArrayList<>();
+        for (Attempt attempt : attempts) {
+            if (attempt.isSuccess()) {
+                durations.add(attempt.getDuration());
+            }
+        }
+        if (durations.isEmpty()) {
+            return Optional.empty();
+        }
+        durations.sort(null);
+        int index = (int) Math.round(quantile * (durations.size() - 1));
+        return Optional.of(durations.get(Math.max(0, Math.min(index, durations.size() - 1))));
+    }
+
+    @Override
+    public String toString() {
+        return "BurstResult{"
+                + "attempts="
+                + attempts.size()
+                + ", successes="
+                + getSuccessCount()
+                + ", duration="
+                + duration
+                + ", median="
+                + getQuantile(0.5).orElse(null)
+                + '}';
+    }
+
+    /** A single run of the client within a burst */
+    public static class Attempt {
+        private final int index;
+        private final int exitCode;
+        private final Duration duration;
+
+        public Attempt(int index, int exitCode, Duration duration) {
+            this.index = index;
+            this.exitCode = exitCode;
+            this.duration = duration;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public int getExitCode() {
+            return exitCode;
+        }
+
+        public boolean isSuccess() {
+            return exitCode == 0;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.InspectVolumeResponse;
+import com.github.dockerjava.api.model.AccessMode;
+import com.github.dockerjava.api.model.Bind;
+import com.github.dockerjava.api.model.ContainerConfig;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.InternetProtocol;
+import com.github.dockerjava.api.model.SELContext;
+import com.github.dockerjava.api.model.Volume;
+import de.rub.nds.tls.subject.docker.build.DockerBuilder;
+import de.rub.nds.tls.subject.params.Parameter;
+import de.rub.nds.tls.subject.params.ParameterProfile;
+import de.rub.nds.tls.subject.properties.ImageProperties;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Caches everything needed to create containers and execs of an image that does not change between
+ * instances: the image entrypoint, the bind of the certificate volume, exposed ports and the
+ * rendered command line parameters. Once an image was used, creating another container or client
+ * exec from it needs only the create call itself.
+ *
+ * <p>Templates of deleted images and the certificate volume bind are dropped when the corresponding
+ * event is observed by the {@link DockerEventTracker}.
+ */
+public class ContainerTemplateCache {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String CLIENT_ENTRYPOINT = "client-entrypoint";
+
+    private static final int MAX_CACHED_PARAMETERS = 64;
+
+    private static class InstanceHolder {
+        private static final ContainerTemplateCache INSTANCE =
+                new ContainerTemplateCache(
+                        DockerClientManager.getDockerClient(),
+                        DockerEventTracker.instance(),
+                        DockerCallLimiter.instance());
+    }
+
+    public static ContainerTemplateCache instance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private final DockerClient docker;
+    private final DockerCallLimiter callLimiter;
+    private final Map<String, ImageTemplate> templates = new ConcurrentHashMap<>();
+    private volatile Bind certVolumeBind;
+
+    ContainerTemplateCache(
+            DockerClient docker, DockerEventTracker tracker, DockerCallLimiter callLimiter) {
+        this.docker = docker;
+        this.callLimiter = callLimiter;
+        tracker.addListener(this::onEvent);
+    }
+
+    private void onEvent(Event event) {
+        String action = event.getAction() != null ? event.getAction() : event.getStatus();
+        String id = event.getActor() != null ? event.getActor().getId() : event.getId();
+        if (event.getType() == EventType.IMAGE && "delete".equals(action) && id != null) {
+            invalidate(id);
+        } else if (event.getType() == EventType.VOLUME
+                && "destroy".equals(action)
+                && DockerBuilder.CERTIFICATE_VOLUME_NAME.equals(id)) {
+            certVolumeBind = null;
+        }
+    }
+
+    /**
+     * @param imageId The id of the image
+     * @return The (possibly empty) template of the image
+     */
+    public ImageTemplate getTemplate(String imageId) {
+        return templates.computeIfAbsent(imageId, ImageTemplate::new);
+    }
+
+    /**
+     * Returns the read-only bind of the certificate volume to <code>/cert/</code>. The volume is
+     * only looked up on the first call (and after it was removed).
+     *
+     * @return The bind of the certificate volume
+     */
+    public Bind getCertVolumeBind() {
+        Bind bind = certVolumeBind;
+        if (bind == null) {
+            // Check if volume exists; Without this check, the container would be started
+            // without any problems, swallowing the error and making it harder to identify
+            InspectVolumeResponse vol =
+                    callLimiter.call(
+                            "list volumes",
+                            true,
+                            () -> DockerBuilder.getCertDataVolumeInfo(docker));
+            bind =
+                    new Bind(
+                            vol.getName(),
+                            new Volume("/cert/"),
+                            AccessMode.ro,
+                            SELContext.DEFAULT,
+                            true);
+            certVolumeBind = bind;
+        }
+        return bind;
+    }
+
+    /**
+     * Drops the template of an image, e.g. after it was rebuilt under the same id.
+     *
+     * @param imageId The id of the image
+     */
+    public void invalidate(String imageId) {
+        templates.remove(imageId);
+    }
+
+    public void invalidateAll() {
+        templates.clear();
+        certVolumeBind = null;
+    }
+
+    /**
+     * @return The values {@link ParameterProfile#toParameters} depends on
+     */
+    static List<Object> parameterKey(
+            ParameterProfile profile,
+            ImageProperties imageProperties,
+            String host,
+            Integer targetPort,
+            String additionalParameters,
+            boolean parallelize,
+            boolean insecureConnection) {
+        List<List<Object>> profileParameters = null;
+        if (profile.getParameterList() != null) {
+            profileParameters = new ArrayList<>();
+            for (Parameter parameter : profile.getParameterList()) {
+                profileParameters.add(
+                        Arrays.asList(parameter.getCmdParameter(), parameter.getType()));
+            }
+        }
+        return Arrays.asList(
+                profileParameters,
+                imageProperties.getDefaultCertPath(),
+                imageProperties.getDefaultKeyPath(),
+                imageProperties.getDefaultCertKeyCombinedPath(),
+                host,
+                targetPort,
+                additionalParameters,
+                parallelize,
+                insecureConnection);
+    }
+
+    /** The cached creation data of a single image. */
+    public class ImageTemplate {
+        private final String imageId;
+        private volatile String[] clientExecPrefix;
+        private final Map<List<Object>, ExposedPort> exposedPorts = new ConcurrentHashMap<>();
+        private final Map<List<Object>, String[]> parameters =
+                new LinkedHashMap<List<Object>, String[]>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<List<Object>, String[]> eldest) {
+                        return size() > MAX_CACHED_PARAMETERS;
+                    }
+                };
+
+        private ImageTemplate(String imageId) {
+            this.imageId = imageId;
+        }
+
+        public String getImageId() {
+            return imageId;
+        }
+
+        /**
+         * Returns the command prefix used to connect from within a client container, i.e. the
+         * entrypoint of the image without the <code>client-entrypoint</code> wrapper. The image is
+         * only inspected on the first call.
+         *
+         * @return A copy of the command prefix
+         */
+        public String[] getClientExecPrefix() {
+            String[] prefix = clientExecPrefix;
+            if (prefix == null) {
+                ContainerConfig imageCfg =
+                        callLimiter
+                                .call(
+                                        "inspect image",
+                                        true,
+                                        () -> docker.inspectImageCmd(imageId).exec())
+                                .getConfig();
+                if (imageCfg == null) {
+                    throw new IllegalStateException("Could not get config for image " + imageId);
+                }
+                String[] entrypoint = imageCfg.getEntrypoint();
+                if (entrypoint == null) {
+                    throw new IllegalStateException(
+                            "Could not get entrypoint for image " + imageId);
+                }
+                if (entrypoint.length > 0 && entrypoint[0].equals(CLIENT_ENTRYPOINT)) {
+                    prefix = Arrays.copyOfRange(entrypoint, 1, entrypoint.length);
+                } else {
+                    LOGGER.warn("Image {} did not have client-entrypoint as entrypoint", imageId);
+                    prefix = entrypoint.clone();
+                }
+                clientExecPrefix = prefix;
+            }
+            return prefix.clone();
+        }
+
+        public ExposedPort getExposedPort(int port, InternetProtocol protocol) {
+            return exposedPorts.computeIfAbsent(
+                    Arrays.asList(port, protocol), k -> new ExposedPort(port, protocol));
+        }
+
+        /**
+         * Renders the command line parameters via {@link ParameterProfile#toParameters} and
+         * remembers the result for the given arguments. Profiles and image properties are compared
+         * by the values the rendering depends on, so equal copies share an entry and a changed
+         * certificate path is rendered again.
+         *
+         * @return A copy of the rendered parameters
+         */
+        public String[] getParameters(
+                ParameterProfile profile,
+                ImageProperties imageProperties,
+                String host,
+                Integer targetPort,
+                String additionalParameters,
+                boolean parallelize,
+                boolean insecureConnection) {
+            List<Object> key =
+                    parameterKey(
+                            profile,
+                            imageProperties,
+                            host,
+                            targetPort,
+                            additionalParameters,
+                            parallelize,
+                            insecureConnection);
+            String[] rendered;
+            synchronized (parameters) {
+                rendered = parameters.get(key);
+            }
+            if (rendered == null) {
+                rendered =
+                        profile.toParameters(
+                                host,
+                                targetPort,
+                                imageProperties,
+                                additionalParameters,
+                                parallelize,
+                                insecureConnection);
+                synchronized (parameters) {
+                    parameters.put(key, rendered);
+                }
+            }
+            return rendered.clone();
+        }
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import com.github.dockerjava.api.exception.DockerException;
+import com.github.dockerjava.api.exception.NotModifiedException;
+import de.rub.nds.tls.subject.exceptions.DockerUnavailableException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Limits the concurrent control calls to one docker daemon. The limit adapts like TCP congestion
+ * control (AIMD): every call completing in time raises it by {@code 1/limit}, i.e. by one per round
+ * of calls, while timeouts, connection failures, overload responses and slow calls multiply it by
+ * the backoff ratio, at most once per round. This keeps the daemon close to its peak throughput
+ * instead of letting hundreds of parallel starts run into timeouts.
+ *
+ * <p>Idempotent calls failing due to overload are retried after a random backoff. After several
+ * consecutive overload failures a circuit breaker rejects all calls with a {@link
+ * DockerUnavailableException} for a while and then lets a single trial call through.
+ *
+ * <p>Definite answers of the daemon, like a 404 or a conflict, are passed on unchanged and count as
+ * successful calls, as the daemon was able to answer.
+ */
+public class DockerCallLimiter {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /** State of the circuit breaker */
+    public enum CircuitState {
+        /** Calls pass */
+        CLOSED,
+        /** Calls are rejected */
+        OPEN,
+        /** A single trial call decides whether the breaker closes again */
+        HALF_OPEN
+    }
+
+    private static class InstanceHolder {
+        private static final DockerCallLimiter INSTANCE =
+                new DockerCallLimiter(new DockerCallSettings());
+    }
+
+    /**
+     * @return The limiter of the daemon of {@link DockerClientManager}
+     */
+    public static DockerCallLimiter instance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private final DockerCallSettings settings;
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+    private double limit;
+    private int inFlight = 0;
+    // calls started before the last decrease do not decrease the limit again
+    private long lastDecreaseNanos;
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openedAtNanos;
+    private boolean trialInFlight = false;
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder rejectCount = new LongAdder();
+
+    public DockerCallLimiter(DockerCallSettings settings) {
+        this(settings, System::nanoTime);
+    }
+
+    DockerCallLimiter(DockerCallSettings settings, LongSupplier clock) {
+        this.settings = settings;
+        this.clock = clock;
+        this.limit =
+                Math.max(
+                        settings.getMinLimit(),
+                        Math.min(settings.getMaxLimit(), settings.getInitialLimit()));
+        this.lastDecreaseNanos = clock.getAsLong() - 1;
+    }
+
+    /**
+     * @param operation Name of the call for logging
+     * @param idempotent Whether the call may be repeated if it failed due to overload
+     * @param call The call
+     * @return The result of the call
+     * @throws DockerUnavailableException If the call was rejected without calling the daemon
+     */
+    public <T> T call(String operation, boolean idempotent, Supplier<T> call) {
+        return execute(operation, idempotent, Duration.ZERO, call, false);
+    }
+
+    /**
+     * Runs a call without result. If a retried attempt fails with {@link NotModifiedException}, an
+     * earlier attempt got through, e.g. the container was already started, and the call succeeds.
+     *
+     * @param operation Name of the call for logging
+     * @param idempotent Whether the call may be repeated if it failed due to overload
+     * @param call The call
+     * @throws DockerUnavailableException If the call was rejected without calling the daemon
+     */
+    public void run(String operation, boolean idempotent, Runnable call) {
+        run(operation, idempotent, Duration.ZERO, call);
+    }
+
+    /**
+     * Runs a call that waits by design, e.g. a stop waiting for the grace period of the container.
+     * The designed wait does not count as latency, so such calls do not decrease the limit.
+     *
+     * @param operation Name of the call for logging
+     * @param idempotent Whether the call may be repeated if it failed due to overload
+     * @param designedWait The time the daemon may wait by design before answering
+     * @param call The call
+     * @throws DockerUnavailableException If the call was rejected without calling the daemon
+     * @see #run(String, boolean, Runnable)
+     */
+    public void run(String operation, boolean idempotent, Duration designedWait, Runnable call) {
+        execute(
+                operation,
+                idempotent,
+                designedWait,
+                () -> {
+                    call.run();
+                    return null;
+                },
+                true);
+    }
+
+    private <T> T execute(
+            String operation,
+            boolean idempotent,
+            Duration designedWait,
+            Supplier<T> call,
+            boolean voidCall) {
+        long designedWaitNanos = designedWait.toNanos();
+        for (int attempt = 1; ; attempt++) {
+            Permit permit = acquire(operation);
+            T result;
+            try {
+                result = call.get();
+            } catch (RuntimeException e) {
+                if (voidCall && attempt > 1 && e instanceof NotModifiedException) {
+                    release(permit, false, designedWaitNanos);
+                    return null;
+                }
+                boolean overload = isOverload(e);
+                release(permit, overload, designedWaitNanos);
+                if (!overload || !idempotent || attempt >= settings.getMaxAttempts()) {
+                    throw e;
+                }
+                LOGGER.debug(
+                        "{} failed due to overload, retrying (attempt {})", operation, attempt);
+                retryCount.increment();
+                backoff(attempt, e);
+                continue;
+            }
+            release(permit, false, designedWaitNanos);
+            return result;
+        }
+    }
+
+    private Permit acquire(String operation) {
+        lock.lock();
+        try {
+            long deadline = clock.getAsLong() + settings.getAcquireTimeout().toNanos();
+            while (true) {
+                long now = clock.getAsLong();
+                if (state == CircuitState.OPEN) {
+                    if (now - openedAtNanos < settings.getOpenDuration().toNanos()) {
+                        rejectCount.increment();
+                        throw new DockerUnavailableException(
+                                "Docker daemon is overloaded, rejecting " + operation);
+                    }
+                    state = CircuitState.HALF_OPEN;
+                }
+                if (state == CircuitState.HALF_OPEN) {
+                    if (trialInFlight) {
+                        rejectCount.increment();
+                        throw new DockerUnavailableException(
+                                "Docker daemon is overloaded, rejecting " + operation);
+                    }
+                    trialInFlight = true;
+                    inFlight++;
+                    return new Permit(now, inFlight, true);
+                }
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    return new Permit(now, inFlight, false);
+                }
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    rejectCount.increment();
+                    throw new DockerUnavailableException(
+                            "No permit for "
+                                    + operation
+                                    + " within "
+                                    + settings.getAcquireTimeout());
+                }
+                try {
+                    permitReleased.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DockerUnavailableException(
+                            "Interrupted while waiting for a permit for " + operation, e);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param permit The permit of the call
+     * @param failed Whether the call failed due to overload
+     * @param designedWaitNanos Time of the call that is not counted as latency
+     */
+    private void release(Permit permit, boolean failed, long designedWaitNanos) {
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            inFlight--;
+            long latency = now - permit.startedAtNanos - designedWaitNanos;
+            boolean slow = latency > settings.getLatencyThreshold().toNanos();
+            if (failed || slow) {
+                if (permit.startedAtNanos > lastDecreaseNanos) {
+                    limit = Math.max(settings.getMinLimit(), limit * settings.getBackoffRatio());
+                    lastDecreaseNanos = now;
+                    LOGGER.debug("Decreased docker call limit to {}", (int) limit);
+                }
+            } else if (permit.inFlight * 2 >= (int) limit) {
+                // only grow while the limit is used, otherwise it says nothing about the daemon
+                limit = Math.min(settings.getMaxLimit(), limit + 1 / limit);
+            }
+            if (failed) {
+                consecutiveFailures++;
+                if (permit.trial
+                        || (state == CircuitState.CLOSED
+                                && consecutiveFailures >= settings.getFailureThreshold())) {
+                    if (state != CircuitState.OPEN) {
+                        LOGGER.warn(
+                                "Docker daemon is overloaded, rejecting calls for {}",
+                                settings.getOpenDuration());
+                    }
+                    state = CircuitState.OPEN;
+                    openedAtNanos = now;
+                }
+            } else {
+                consecutiveFailures = 0;
+                if (permit.trial) {
+                    state = CircuitState.CLOSED;
+                }
+            }
+            if (permit.trial) {
+                trialInFlight = false;
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void backoff(int attempt, RuntimeException cause) {
+        long initial = settings.getInitialBackoff().toNanos();
+        long bound =
+                Math.min(settings.getMaxBackoff().toNanos(), initial << Math.min(attempt - 1, 30));
+        // full jitter, so retries of calls failing together do not hit the daemon together again
+        long delay = ThreadLocalRandom.current().nextLong(Math.max(bound, 0) + 1);
+        try {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    /**
+     * @param e The exception of a call
+     * @return Whether the call failed as the daemon is overloaded or unreachable, as opposed to a
+     *     definite answer like 404
+     */
+    static boolean isOverload(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof DockerException) {
+                int status = ((DockerException) t).getHttpStatus();
+                return status == 429 || status == 502 || status == 503 || status == 504;
+            }
+            if (t instanceof IOException || t instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The current number of concurrent calls allowed
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CircuitState getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRetryCount() {
+        return retryCount.sum();
+    }
+
+    /**
+     * @return The number of calls rejected without calling the daemon
+     */
+    public long getRejectCount() {
+        return rejectCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "DockerCallLimiter{"
+                + "limit="
+                + getLimit()
+                + ", inFlight="
+                + getInFlight()
+                + ", state="
+                + getState()
+                + '}';
+    }
+
+    private static class Permit {
+        private final long startedAtNanos;
+        // calls in flight including this one when it started
+        private final int inFlight;
+        private final boolean trial;
+
+        private Permit(long startedAtNanos, int inFlight, boolean trial) {
+            this.startedAtNanos = startedAtNanos;
+            this.inFlight = inFlight;
+            this.trial = trial;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import java.time.Duration;
+
+/**
+ * Settings of a {@link DockerCallLimiter}: the bounds of the adaptive concurrency limit, the
+ * retries of idempotent calls and the circuit breaker.
+ */
+public class DockerCallSettings {
+
+    private int initialLimit = 16;
+    private int minLimit = 1;
+    private int maxLimit = 256;
+    private double backoffRatio = 0.75;
+    private Duration latencyThreshold = Duration.ofSeconds(5);
+    private Duration acquireTimeout = Duration.ofMinutes(2);
+    private int maxAttempts = 4;
+    private Duration initialBackoff = Duration.ofMillis(100);
+    private Duration maxBackoff = Duration.ofSeconds(5);
+    private int failureThreshold = 8;
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    /**
+     * @param value Number of concurrent calls allowed before any call completed
+     * @return this settings
+     */
+    public DockerCallSettings initialLimit(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("initialLimit must be at least 1");
+        }
+        initialLimit = value;
+        return this;
+    }
+
+    /**
+     * @param min Lower bound of the limit
+     * @param max Upper bound of the limit
+     * @return this settings
+     */
+    public DockerCallSettings limitBounds(int min, int max) {
+        if (min < 1 || max < min) {
+            throw new IllegalArgumentException("Invalid limit bounds " + min + "-" + max);
+        }
+        minLimit = min;
+        maxLimit = max;
+        return this;
+    }
+
+    /**
+     * @param value Factor the limit is multiplied with when the daemon is overloaded
+     * @return this settings
+     */
+    public DockerCallSettings backoffRatio(double value) {
+        if (value <= 0 || value >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        backoffRatio = value;
+        return this;
+    }
+
+    /**
+     * @param value Calls taking longer are treated as a sign of overload, like timeouts
+     * @return this settings
+     */
+    public DockerCallSettings latencyThreshold(Duration value) {
+        latencyThreshold = value;
+        return this;
+    }
+
+    /**
+     * @param value Time a call waits for a permit before failing
+     * @return this settings
+     */
+    public DockerCallSettings acquireTimeout(Duration value) {
+        acquireTimeout = value;
+        return this;
+    }
+
+    /**
+     * @param value Number of attempts of idempotent calls failing due to overload, 1 to not retry
+     * @return this settings
+     */
+    public DockerCallSettings maxAttempts(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        maxAttempts = value;
+        return this;
+    }
+
+    /**
+     * Retries wait a random time up to a bound that starts at the initial backoff and doubles with
+     * every attempt up to the maximum.
+     *
+     * @param initial Bound of the first retry
+     * @param max Upper bound
+     * @return this settings
+     */
+    public DockerCallSettings backoff(Duration initial, Duration max) {
+        initialBackoff = initial;
+        maxBackoff = max;
+        return this;
+    }
+
+    /**
+     * @param value Number of consecutive overload failures after which calls are rejected
+     * @return this settings
+     */
+    public DockerCallSettings failureThreshold(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("failureThreshold must be at least 1");
+        }
+        failureThreshold = value;
+        return this;
+    }
+
+    /**
+     * @param value Time calls are rejected before a single trial call is let through
+     * @return this settings
+     */
+    public DockerCallSettings openDuration(Duration value) {
+        openDuration = value;
+        return this;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public Duration getLatencyThreshold() {
+        return latencyThreshold;
+    }
+
+    public Duration getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public Duration getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+}
@@ -13,45 +13,187 @@ import com.github.dockerjava.core.DefaultDockerClientConfig;
 import com.github.dockerjava.core.DockerClientConfig;
 import com.github.dockerjava.core.DockerClientImpl;
 import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
-import com.github.dockerjava.transport.DockerHttpClient;
+import java.time.Duration;
 
 public class DockerClientManager {
-    private static DockerClient DOCKER = null;
-    private static DockerClientConfig DCONFIG = null;
-    private static DockerHttpClient DHTTPCLIENT = null;
+    // lazily created once; volatile for the unsynchronized fast path of the getters
+    private static volatile DockerClient DOCKER = null;
+    private static volatile DockerClient STREAMING_DOCKER = null;
+    private static volatile DockerClientConfig DCONFIG = null;
+    private static volatile MeteredDockerHttpClient DHTTPCLIENT = null;
+    private static volatile MeteredDockerHttpClient STREAMING_DHTTPCLIENT = null;
 
-    private static String dockerServerUsername;
-    private static String dockerServerPassword;
+    private static volatile DockerHttpSettings httpSettings = new DockerHttpSettings();
 
+    private static volatile String dockerServerUsername;
+    private static volatile String dockerServerPassword;
+
+    /**
+     * @return The shared client for short control calls
+     */
     public static DockerClient getDockerClient() {
-        if (DOCKER == null) {
-            DOCKER = getNewDockerClient();
+        DockerClient docker = DOCKER;
+        if (docker == null) {
+            synchronized (DockerClientManager.class) {
+                docker = DOCKER;
+                if (docker == null) {
+                    docker = getNewDockerClient();
+                    DOCKER = docker;
+                }
+            }
         }
-        return DOCKER;
+        return docker;
     }
 
-    private static void ensureConfigExists() {
-        if (DCONFIG == null) {
-            DefaultDockerClientConfig.Builder cfgBuilder =
-                    DefaultDockerClientConfig.createDefaultConfigBuilder();
-            if (System.getenv("DOCKER_HOST") == null
-                    && System.getProperty("os.name").startsWith("Windows")) {
-                cfgBuilder = cfgBuilder.withDockerHost("npipe:////./pipe/docker_engine");
+    /**
+     * @return The shared client for long-lived streams (logs, exec, attach, events), which uses its
+     *     own connection pool
+     */
+    public static DockerClient getStreamingDockerClient() {
+        DockerClient docker = STREAMING_DOCKER;
+        if (docker == null) {
+            synchronized (DockerClientManager.class) {
+                docker = STREAMING_DOCKER;
+                if (docker == null) {
+                    docker = DockerClientImpl.getInstance(getConfig(), getStreamingHttpClient());
+                    STREAMING_DOCKER = docker;
+                }
             }
-            DCONFIG = cfgBuilder.build();
         }
+        return docker;
     }
 
-    public static DockerClient getNewDockerClient() {
-        ensureConfigExists();
-        if (DHTTPCLIENT == null) {
-            DHTTPCLIENT =
-                    new ApacheDockerHttpClient.Builder()
-                            .dockerHost(DCONFIG.getDockerHost())
-                            .sslConfig(DCONFIG.getSSLConfig())
-                            .build();
+    private static DockerClientConfig getConfig() {
+        DockerClientConfig config = DCONFIG;
+        if (config == null) {
+            synchronized (DockerClientManager.class) {
+                config = DCONFIG;
+                if (config == null) {
+                    DefaultDockerClientConfig.Builder cfgBuilder =
+                            DefaultDockerClientConfig.createDefaultConfigBuilder();
+                    if (System.getenv("DOCKER_HOST") == null
+                            && System.getProperty("os.name").startsWith("Windows")) {
+                        cfgBuilder = cfgBuilder.withDockerHost("npipe:////./pipe/docker_engine");
+                    }
+                    config = cfgBuilder.build();
+                    DCONFIG = config;
+                }
+            }
+        }
+        return config;
+    }
+
+    /**
+     * @return The HTTP client for control calls, which also reports the utilization of its pool
+     */
+    public static MeteredDockerHttpClient getHttpClient() {
+        MeteredDockerHttpClient httpClient = DHTTPCLIENT;
+        if (httpClient == null) {
+            synchronized (DockerClientManager.class) {
+                httpClient = DHTTPCLIENT;
+                if (httpClient == null) {
+                    DockerHttpSettings settings = httpSettings;
+                    httpClient =
+                            createHttpClient(
+                                    settings.getMaxConnections(), settings.getResponseTimeout());
+                    DHTTPCLIENT = httpClient;
+                }
+            }
         }
-        return DockerClientImpl.getInstance(DCONFIG, DHTTPCLIENT);
+        return httpClient;
+    }
+
+    /**
+     * @return The HTTP client for streams, which also reports the utilization of its pool
+     */
+    public static MeteredDockerHttpClient getStreamingHttpClient() {
+        MeteredDockerHttpClient httpClient = STREAMING_DHTTPCLIENT;
+        if (httpClient == null) {
+            synchronized (DockerClientManager.class) {
+                httpClient = STREAMING_DHTTPCLIENT;
+                if (httpClient == null) {
+                    httpClient = createHttpClient(httpSettings.getStreamingMaxConnections(), null);
+                    STREAMING_DHTTPCLIENT = httpClient;
+                }
+            }
+        }
+        return httpClient;
+    }
+
+    private static MeteredDockerHttpClient createHttpClient(
+            int maxConnections, Duration responseTimeout) {
+        return createHttpClient(getConfig(), maxConnections, responseTimeout);
+    }
+
+    private static MeteredDockerHttpClient createHttpClient(
+            DockerClientConfig config, int maxConnections, Duration responseTimeout) {
+        ApacheDockerHttpClient.Builder builder =
+                new ApacheDockerHttpClient.Builder()
+                        .dockerHost(config.getDockerHost())
+                        .sslConfig(config.getSSLConfig())
+                        .maxConnections(maxConnections);
+        if (httpSettings.getConnectionTimeout() != null) {
+            builder.connectionTimeout(httpSettings.getConnectionTimeout());
+        }
+        if (responseTimeout != null) {
+            builder.responseTimeout(responseTimeout);
+        }
+        return new MeteredDockerHttpClient(builder.build(), maxConnections);
+    }
+
+    /**
+     * Sets the pool settings. Must be called before the first client is created, as the pools
+     * cannot be resized afterwards.
+     *
+     * @param value The new settings
+     * @throws IllegalStateException If a HTTP client was created already
+     */
+    public static void setHttpSettings(DockerHttpSettings value) {
+        synchronized (DockerClientManager.class) {
+            if (DHTTPCLIENT != null || STREAMING_DHTTPCLIENT != null) {
+                throw new IllegalStateException(
+                        "HTTP settings must be set before the first docker client is created");
+            }
+            httpSettings = value;
+        }
+    }
+
+    public static DockerHttpSettings getHttpSettings() {
+        return httpSettings;
+    }
+
+    /**
+     * @return A new client for control calls sharing the connection pool of {@link
+     *     #getDockerClient()}
+     */
+    public static DockerClient getNewDockerClient() {
+        return DockerClientImpl.getInstance(getConfig(), getHttpClient());
+    }
+
+    /**
+     * Creates a client for another daemon using the current HTTP settings. Each client has its own
+     * connection pool; TLS settings are taken from the environment like for the shared clients.
+     *
+     * @param dockerHost The daemon, e.g. {@code unix:///run/docker-2.sock} or {@code
+     *     tcp://10.0.0.2:2376}
+     * @param streaming Whether the client is used for long-lived streams, which need a pool of
+     *     their own and no response timeout
+     * @return The new client
+     */
+    public static DockerClient createDockerClient(String dockerHost, boolean streaming) {
+        DockerClientConfig config =
+                DefaultDockerClientConfig.createDefaultConfigBuilder()
+                        .withDockerHost(dockerHost)
+                        .build();
+        DockerHttpSettings settings = httpSettings;
+        MeteredDockerHttpClient httpClient =
+                streaming
+                        ? createHttpClient(config, settings.getStreamingMaxConnections(), null)
+                        : createHttpClient(
+                                config,
+                                settings.getMaxConnections(),
+                                settings.getResponseTimeout());
+        return DockerClientImpl.getInstance(config, httpClient);
     }
 
     public static String getDockerServerUsername() {
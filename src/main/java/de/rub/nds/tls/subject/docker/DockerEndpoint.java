@@ -0,0 +1,288 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import de.rub.nds.tls.subject.docker.build.DockerImageCatalog;
+import de.rub.nds.tls.subject.probe.HandshakeTrust;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A docker daemon instances can be created on, with its own clients, event tracker, template cache
+ * and image catalog. Image ids, volumes and networks only exist on their daemon, so everything an
+ * instance needs is looked up on its endpoint. The {@link #local()} endpoint is the daemon of
+ * {@link DockerClientManager} and uses the shared singletons.
+ *
+ * <p>Each endpoint counts the instances placed on it, which {@link DockerEndpointSet} uses to
+ * spread instances over several daemons.
+ */
+public class DockerEndpoint implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Set<String> REMOTE_SCHEMES = Set.of("tcp", "http", "https");
+
+    private static class InstanceHolder {
+        private static final DockerEndpoint INSTANCE =
+                new DockerEndpoint(
+                        "local",
+                        null,
+                        DockerClientManager.getDockerClient(),
+                        DockerClientManager.getStreamingDockerClient(),
+                        DockerCallLimiter.instance(),
+                        DockerEventTracker.instance(),
+                        ContainerTemplateCache.instance(),
+                        DockerImageCatalog.instance(),
+                        SessionReaper.instance());
+    }
+
+    /**
+     * @return The daemon configured by {@link DockerClientManager}, i.e. by {@code DOCKER_HOST}
+     */
+    public static DockerEndpoint local() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private final String name;
+    private final String publishedHost;
+    private final DockerClient docker;
+    private final DockerClient streamingDocker;
+    private final DockerCallLimiter callLimiter;
+    private final AtomicInteger load = new AtomicInteger();
+    private final HandshakeTrust handshakeTrust = new HandshakeTrust();
+    // created on first use, as the tracker subscribes to the daemon right away
+    private DockerEventTracker eventTracker;
+    private ContainerTemplateCache templateCache;
+    private DockerImageCatalog imageCatalog;
+    private SessionReaper sessionReaper;
+
+    private DockerEndpoint(
+            String name,
+            String publishedHost,
+            DockerClient docker,
+            DockerClient streamingDocker,
+            DockerCallLimiter callLimiter,
+            DockerEventTracker eventTracker,
+            ContainerTemplateCache templateCache,
+            DockerImageCatalog imageCatalog,
+            SessionReaper sessionReaper) {
+        if (name == null) {
+            throw new NullPointerException("name may not be null");
+        }
+        this.name = name;
+        this.publishedHost = publishedHost;
+        this.docker = docker;
+        this.streamingDocker = streamingDocker;
+        this.callLimiter = callLimiter;
+        this.eventTracker = eventTracker;
+        this.templateCache = templateCache;
+        this.imageCatalog = imageCatalog;
+        this.sessionReaper = sessionReaper;
+    }
+
+    /**
+     * Creates an endpoint with clients using the HTTP settings of {@link DockerClientManager}.
+     * Ports of daemons reached over TCP are published on the host of the URI, ports of daemons on a
+     * local socket on this machine.
+     *
+     * @param name Name of the endpoint, used for hashing and logging
+     * @param dockerHost The daemon, e.g. {@code unix:///run/docker-2.sock} or {@code
+     *     tcp://10.0.0.2:2376}
+     * @return The endpoint
+     */
+    public static DockerEndpoint create(String name, String dockerHost) {
+        return create(name, dockerHost, getPublishedHost(dockerHost));
+    }
+
+    /**
+     * @param dockerHost The daemon
+     * @return The host of a daemon reached over TCP, null for local sockets
+     */
+    static String getPublishedHost(String dockerHost) {
+        URI uri = URI.create(dockerHost);
+        if (uri.getScheme() != null && REMOTE_SCHEMES.contains(uri.getScheme())) {
+            return uri.getHost();
+        }
+        return null;
+    }
+
+    /**
+     * @param name Name of the endpoint, used for hashing and logging
+     * @param dockerHost The daemon
+     * @param publishedHost Address under which ports published by the daemon are reached, null if
+     *     they are reached on this machine
+     * @return The endpoint
+     */
+    public static DockerEndpoint create(String name, String dockerHost, String publishedHost) {
+        return of(
+                name,
+                publishedHost,
+                DockerClientManager.createDockerClient(dockerHost, false),
+                DockerClientManager.createDockerClient(dockerHost, true));
+    }
+
+    /**
+     * Creates an endpoint on given clients, e.g. clients of an in-process fake daemon.
+     *
+     * @param name Name of the endpoint, used for hashing and logging
+     * @param publishedHost Address under which ports published by the daemon are reached, null if
+     *     they are reached on this machine
+     * @param docker Client for control calls
+     * @param streamingDocker Client for long-lived streams
+     * @return The endpoint
+     */
+    public static DockerEndpoint of(
+            String name, String publishedHost, DockerClient docker, DockerClient streamingDocker) {
+        return new DockerEndpoint(
+                name,
+                publishedHost,
+                docker,
+                streamingDocker,
+                new DockerCallLimiter(new DockerCallSettings()),
+                null,
+                null,
+                null,
+                null);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Address under which published ports are reached, null if they are reached on this
+     *     machine
+     */
+    public String getPublishedHost() {
+        return publishedHost;
+    }
+
+    /**
+     * @return Whether this is the {@link #local()} endpoint
+     */
+    public boolean isLocal() {
+        return this == local();
+    }
+
+    public DockerClient getDockerClient() {
+        return docker;
+    }
+
+    public DockerClient getStreamingDockerClient() {
+        return streamingDocker;
+    }
+
+    /**
+     * @return The limiter of the control calls to this daemon
+     */
+    public DockerCallLimiter getCallLimiter() {
+        return callLimiter;
+    }
+
+    /**
+     * @return The trust anchors of the handshake probes of servers on this daemon, which accept any
+     *     certificate unless a CA is configured
+     */
+    public HandshakeTrust getHandshakeTrust() {
+        return handshakeTrust;
+    }
+
+    public synchronized DockerEventTracker getEventTracker() {
+        if (eventTracker == null) {
+            eventTracker = new DockerEventTracker(streamingDocker);
+        }
+        return eventTracker;
+    }
+
+    public synchronized ContainerTemplateCache getTemplateCache() {
+        if (templateCache == null) {
+            templateCache = new ContainerTemplateCache(docker, getEventTracker(), callLimiter);
+        }
+        return templateCache;
+    }
+
+    public synchronized DockerImageCatalog getImageCatalog() {
+        if (imageCatalog == null) {
+            imageCatalog = new DockerImageCatalog(docker, getEventTracker(), callLimiter);
+        }
+        return imageCatalog;
+    }
+
+    /**
+     * @return The reaper of the sessions on this daemon
+     */
+    public synchronized SessionReaper getSessionReaper() {
+        if (sessionReaper == null) {
+            sessionReaper = new SessionReaper(docker, this::getEventTracker);
+        }
+        return sessionReaper;
+    }
+
+    /**
+     * @param labels The labels of the image
+     * @return Whether the image exists on this daemon
+     * @see de.rub.nds.tls.subject.docker.build.DockerBuilder#getImageLabels
+     */
+    public boolean hasImage(Map<String, String> labels) {
+        return getImageCatalog().getImage(labels, true) != null;
+    }
+
+    /**
+     * @return Number of instances currently placed on this endpoint
+     */
+    public int getLoad() {
+        return load.get();
+    }
+
+    void acquire() {
+        load.incrementAndGet();
+    }
+
+    void release() {
+        load.decrementAndGet();
+    }
+
+    /**
+     * Stops the event tracker and closes the clients. The local endpoint is shared and not closed.
+     */
+    @Override
+    public void close() {
+        if (isLocal()) {
+            return;
+        }
+        synchronized (this) {
+            if (eventTracker != null) {
+                eventTracker.stop();
+            }
+        }
+        try {
+            docker.close();
+            streamingDocker.close();
+        } catch (IOException e) {
+            LOGGER.warn("Could not close clients of endpoint {}", name, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DockerEndpoint{"
+                + "name="
+                + name
+                + ", publishedHost="
+                + publishedHost
+                + ", load="
+                + load
+                + '}';
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Several docker daemons a builder or pool distributes its instances over, as a single daemon
+ * saturates at a few hundred containers. The daemons can run on other machines or locally on
+ * separate sockets.
+ */
+public class DockerEndpointSet {
+
+    private final List<DockerEndpoint> endpoints;
+    private final ShardingStrategy strategy;
+
+    /**
+     * @param endpoints The daemons; their names must be unique for {@link
+     *     ShardingStrategy#HASH_BY_IMAGE}
+     * @param strategy How the daemon of a new instance is picked
+     */
+    public DockerEndpointSet(List<DockerEndpoint> endpoints, ShardingStrategy strategy) {
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("At least one endpoint is needed");
+        }
+        this.endpoints = List.copyOf(endpoints);
+        this.strategy = strategy;
+    }
+
+    /**
+     * @param imageLabels The labels identifying the image of the new instance
+     * @return The endpoint to create the instance on
+     * @see de.rub.nds.tls.subject.docker.build.DockerBuilder#getImageLabels
+     */
+    public DockerEndpoint select(Map<String, String> imageLabels) {
+        // sorted, so the key does not depend on the map implementation
+        return select(new TreeMap<>(imageLabels).toString(), e -> e.hasImage(imageLabels));
+    }
+
+    DockerEndpoint select(String imageKey, Predicate<DockerEndpoint> hasImage) {
+        switch (strategy) {
+            case HASH_BY_IMAGE:
+                return selectByHash(imageKey);
+            case IMAGE_AFFINITY:
+                DockerEndpoint withImage = selectLeastLoaded(hasImage);
+                return withImage != null ? withImage : selectLeastLoaded(e -> true);
+            default:
+                return selectLeastLoaded(e -> true);
+        }
+    }
+
+    private DockerEndpoint selectLeastLoaded(Predicate<DockerEndpoint> filter) {
+        DockerEndpoint best = null;
+        int bestLoad = Integer.MAX_VALUE;
+        for (DockerEndpoint endpoint : endpoints) {
+            // the load is read once, as other threads may change it
+            int load = endpoint.getLoad();
+            if (load < bestLoad && filter.test(endpoint)) {
+                best = endpoint;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    private DockerEndpoint selectByHash(String imageKey) {
+        DockerEndpoint best = null;
+        long bestScore = 0;
+        for (DockerEndpoint endpoint : endpoints) {
+            long score = mix(((long) imageKey.hashCode() << 32) ^ endpoint.getName().hashCode());
+            if (best == null || Long.compareUnsigned(score, bestScore) > 0) {
+                best = endpoint;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    /** Finalizer of MurmurHash3, spreads similar inputs over the whole range */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    public List<DockerEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public ShardingStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * @return Number of instances placed on all endpoints
+     */
+    public int getLoad() {
+        return endpoints.stream().mapToInt(DockerEndpoint::getLoad).sum();
+    }
+
+    @Override
+    public String toString() {
+        return "DockerEndpointSet{" + "endpoints=" + endpoints + ", strategy=" + strategy + '}';
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Subscribes once to the docker events stream and keeps the state of every container and exec
+ * created by this library in memory. This allows answering state queries (running, exit code, OOM
+ * kill) without inspecting the container every time. Image and volume events are forwarded to
+ * registered listeners, e.g. to keep the image catalog up to date.
+ *
+ * <p>The state table is only authoritative while the subscription is live (see {@link
+ * #isSynchronized()}); callers fall back to inspecting the container otherwise. After the stream is
+ * interrupted, the tracker reconnects and replays the events it missed on a second, finite stream.
+ * It only counts as synchronized again once that replay is complete. As both streams deliver events
+ * concurrently, events older than the last one applied to a container or exec are ignored.
+ */
+public class DockerEventTracker {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final long MAX_RECONNECT_DELAY_MILLISECONDS = 30000;
+
+    private static final String EXEC_DIE_ACTION = "exec_die";
+    private static final String EXEC_START_ACTION = "exec_start";
+
+    private static class InstanceHolder {
+        private static final DockerEventTracker INSTANCE =
+                new DockerEventTracker(DockerClientManager.getStreamingDockerClient());
+    }
+
+    public static DockerEventTracker instance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private final DockerClient docker;
+    private final Map<String, TrackedState> containers = new ConcurrentHashMap<>();
+    private final Map<String, TrackedState> execs = new ConcurrentHashMap<>();
+    private final List<Consumer<Event>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong epoch = new AtomicLong();
+    private final ScheduledExecutorService reconnectExecutor;
+    private volatile boolean live = false;
+    private volatile boolean stopped = false;
+    // unix timestamp in seconds; events since this point are replayed on (re)connect
+    private final AtomicLong resumeSince;
+    private long reconnectDelay = 100;
+    private EventCallback subscription;
+
+    DockerEventTracker(DockerClient docker) {
+        this.docker = docker;
+        // include a safety margin for clock skew between us and the daemon
+        this.resumeSince =
+                new AtomicLong(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) - 1);
+        this.reconnectExecutor =
+                Executors.newSingleThreadScheduledExecutor(
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "docker-event-tracker");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        reconnectExecutor.execute(this::subscribe);
+    }
+
+    /**
+     * @return Whether the events stream is currently connected and the events missed before were
+     *     replayed, i.e. whether the tracked states can be trusted
+     */
+    public boolean isSynchronized() {
+        return live;
+    }
+
+    /**
+     * @return A counter that is increased whenever the tracker becomes synchronized after a
+     *     (re)connect. Caches built from events can compare it to detect that they may have missed
+     *     events.
+     */
+    public long getEpoch() {
+        return epoch.get();
+    }
+
+    /**
+     * @param listener Called for every container and image event received
+     */
+    public void addListener(Consumer<Event> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Event> listener) {
+        listeners.remove(listener);
+    }
+
+    public TrackedState trackContainer(String containerId) {
+        return containers.computeIfAbsent(containerId, TrackedState::new);
+    }
+
+    public TrackedState trackExec(String execId) {
+        return execs.computeIfAbsent(execId, TrackedState::new);
+    }
+
+    public TrackedState getContainerState(String containerId) {
+        return containers.get(containerId);
+    }
+
+    public TrackedState getExecState(String execId) {
+        return execs.get(execId);
+    }
+
+    public void untrackContainer(String containerId) {
+        containers.remove(containerId);
+    }
+
+    public void untrackExec(String execId) {
+        execs.remove(execId);
+    }
+
+    public Map<String, TrackedState> getTrackedContainers() {
+        return Collections.unmodifiableMap(containers);
+    }
+
+    /** Closes the events stream. The tracker does not reconnect afterwards. */
+    public synchronized void stop() {
+        stopped = true;
+        live = false;
+        reconnectExecutor.shutdownNow();
+        closeSubscription();
+    }
+
+    private synchronized void subscribe() {
+        if (stopped) {
+            return;
+        }
+        closeSubscription();
+        // events of this second are received on both streams, which is harmless
+        long replayUntil = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        long since = resumeSince.get();
+        LOGGER.debug("Subscribing to docker events, replaying events since {}", since);
+        EventCallback callback = new EventCallback();
+        subscription = callback;
+        try {
+            docker.eventsCmd()
+                    .withEventTypeFilter(EventType.CONTAINER, EventType.IMAGE, EventType.VOLUME)
+                    .withSince(String.valueOf(replayUntil))
+                    .exec(callback);
+            callback.replay =
+                    docker.eventsCmd()
+                            .withEventTypeFilter(
+                                    EventType.CONTAINER, EventType.IMAGE, EventType.VOLUME)
+                            .withSince(String.valueOf(since))
+                            .withUntil(String.valueOf(replayUntil))
+                            .exec(new ReplayCallback(callback));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not subscribe to docker events", e);
+            scheduleReconnect(callback);
+        }
+    }
+
+    /** Marks the tracker as synchronized once the stream is connected and the replay completed. */
+    private synchronized void onProgress(EventCallback callback) {
+        if (stopped || callback != subscription || !callback.started || !callback.replayed) {
+            return;
+        }
+        reconnectDelay = 100;
+        epoch.incrementAndGet();
+        live = true;
+    }
+
+    private synchronized void scheduleReconnect(EventCallback failedSubscription) {
+        if (stopped || failedSubscription != subscription) {
+            // an outdated subscription was closed, nothing to do
+            return;
+        }
+        live = false;
+        closeSubscription();
+        long delay = reconnectDelay;
+        reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MILLISECONDS);
+        reconnectExecutor.schedule(this::subscribe, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeSubscription() {
+        if (subscription != null) {
+            EventCallback closing = subscription;
+            subscription = null;
+            try {
+                closing.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close docker events stream", e);
+            }
+        }
+    }
+
+    void handleEvent(Event event) {
+        if (event.getTime() != null) {
+            // events of the same second are replayed as handling them twice is harmless
+            resumeSince.accumulateAndGet(event.getTime(), Math::max);
+        }
+        for (Consumer<Event> listener : listeners) {
+            listener.accept(event);
+        }
+        String action = event.getAction() != null ? event.getAction() : event.getStatus();
+        if (event.getType() == EventType.IMAGE
+                || event.getType() == EventType.VOLUME
+                || action == null
+                || event.getActor() == null) {
+            return;
+        }
+        Map<String, String> attributes = event.getActor().getAttributes();
+        Long eventNanos = getTimeNanos(event);
+        if (action.startsWith(EXEC_START_ACTION) || action.startsWith(EXEC_DIE_ACTION)) {
+            String execId = attributes != null ? attributes.get("execID") : null;
+            TrackedState execState = execId != null ? execs.get(execId) : null;
+            if (execState == null) {
+                return;
+            }
+            synchronized (execState) {
+                if (!execState.acceptEvent(eventNanos)) {
+                    return;
+                }
+                if (action.startsWith(EXEC_START_ACTION)) {
+                    execState.onStarted();
+                } else {
+                    execState.onExited(parseExitCode(attributes));
+                }
+            }
+            return;
+        }
+        TrackedState containerState = containers.get(event.getActor().getId());
+        if (containerState == null) {
+            return;
+        }
+        synchronized (containerState) {
+            if (containerState.acceptEvent(eventNanos)) {
+                applyContainerEvent(containerState, action, attributes);
+            }
+        }
+    }
+
+    private static void applyContainerEvent(
+            TrackedState containerState, String action, Map<String, String> attributes) {
+        switch (action) {
+            case "start":
+                containerState.onStarted();
+                break;
+            case "pause":
+                containerState.onPaused();
+                break;
+            case "unpause":
+                containerState.onUnpaused();
+                break;
+            case "oom":
+                containerState.onOom();
+                break;
+            case "die":
+                containerState.onExited(parseExitCode(attributes));
+                break;
+            case "destroy":
+                containerState.onRemoved();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static Long getTimeNanos(Event event) {
+        if (event.getTimeNano() != null) {
+            return event.getTimeNano();
+        }
+        return event.getTime() != null ? TimeUnit.SECONDS.toNanos(event.getTime()) : null;
+    }
+
+    private static Long parseExitCode(Map<String, String> attributes) {
+        if (attributes == null || attributes.get("exitCode") == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(attributes.get("exitCode"));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private class EventCallback extends ResultCallback.Adapter<Event> {
+        // guarded by the tracker
+        private boolean started = false;
+        private boolean replayed = false;
+        private Closeable replay;
+
+        @Override
+        public void onStart(Closeable stream) {
+            super.onStart(stream);
+            synchronized (DockerEventTracker.this) {
+                started = true;
+            }
+            onProgress(this);
+        }
+
+        @Override
+        public void onNext(Event event) {
+            try {
+                handleEvent(event);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not process docker event {}", event, e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!stopped) {
+                LOGGER.warn("Docker events stream failed, reconnecting", throwable);
+            }
+            super.onError(throwable);
+            scheduleReconnect(this);
+        }
+
+        @Override
+        public void onComplete() {
+            super.onComplete();
+            scheduleReconnect(this);
+        }
+
+        @Override
+        public void close() throws IOException {
+            Closeable replayStream;
+            synchronized (DockerEventTracker.this) {
+                replayStream = replay;
+            }
+            if (replayStream != null) {
+                replayStream.close();
+            }
+            super.close();
+        }
+    }
+
+    /** Receives the events missed before a subscription, up to the time it was made. */
+    private class ReplayCallback extends ResultCallback.Adapter<Event> {
+        private final EventCallback subscription;
+
+        private ReplayCallback(EventCallback subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Event event) {
+            subscription.onNext(event);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!stopped) {
+                LOGGER.warn("Could not replay docker events, reconnecting", throwable);
+            }
+            super.onError(throwable);
+            scheduleReconnect(subscription);
+        }
+
+        @Override
+        public void onComplete() {
+            super.onComplete();
+            synchronized (DockerEventTracker.this) {
+                subscription.replayed = true;
+            }
+            onProgress(subscription);
+        }
+    }
+}
@@ -10,21 +10,161 @@ package de.rub.nds.tls.subject.docker;
 
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import com.github.dockerjava.api.command.ExecStartCmd;
+import com.github.dockerjava.api.command.InspectExecResponse;
 import de.rub.nds.tls.subject.instance.ExecInstance;
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 public class DockerExecInstance implements ExecInstance {
+    // the daemon may report the exec as running for a moment after its output ended
+    static final int MAX_EXIT_CODE_ATTEMPTS = 8;
+    private static final long INITIAL_EXIT_CODE_DELAY_MILLISECONDS = 10;
+
     private final DockerClient DOCKER;
+    private final DockerCallLimiter callLimiter;
+    private final DockerEventTracker tracker;
     public final ExecCreateCmdResponse execCreation;
     public final FrameHandler frameHandler;
+    private final TrackedState trackedState;
+    private final long startedAtNanos;
+    private volatile long exitedAtNanos;
+    private final CompletableFuture<Long> exit;
 
     public DockerExecInstance(ExecCreateCmdResponse execCreation) {
-        // if we are not using detach in execStart we must use our own docker client (as
-        // we otherwise block other execStarts)
-        DOCKER = DockerClientManager.getDockerClient();
+        this(execCreation, null);
+    }
+
+    /**
+     * @param execCreation The created exec, which must attach stdin if stdin is given
+     * @param stdin Stream forwarded to the stdin of the exec or null
+     */
+    public DockerExecInstance(ExecCreateCmdResponse execCreation, InputStream stdin) {
+        this(execCreation, stdin, new FrameHandler());
+    }
+
+    DockerExecInstance(
+            ExecCreateCmdResponse execCreation, InputStream stdin, FrameHandler frameHandler) {
+        this(DockerEndpoint.local(), execCreation, stdin, frameHandler);
+    }
+
+    /**
+     * @param endpoint The daemon the exec was created on
+     * @param execCreation The created exec, which must attach stdin if stdin is given
+     * @param stdin Stream forwarded to the stdin of the exec or null
+     * @param frameHandler Receives the output of the exec
+     */
+    DockerExecInstance(
+            DockerEndpoint endpoint,
+            ExecCreateCmdResponse execCreation,
+            InputStream stdin,
+            FrameHandler frameHandler) {
+        DOCKER = endpoint.getDockerClient();
+        this.callLimiter = endpoint.getCallLimiter();
+        this.tracker = endpoint.getEventTracker();
         this.execCreation = execCreation;
-        this.frameHandler = new FrameHandler();
-        DOCKER.execStartCmd(execCreation.getId()).exec(frameHandler);
+        this.frameHandler = frameHandler;
+        this.trackedState = tracker.trackExec(execCreation.getId());
+        // the attached stream occupies its connection until the exec exits, so it must not use the
+        // pool of the control calls
+        ExecStartCmd startCmd =
+                endpoint.getStreamingDockerClient().execStartCmd(execCreation.getId());
+        if (stdin != null) {
+            startCmd = startCmd.withStdIn(stdin);
+        }
+        this.startedAtNanos = System.nanoTime();
+        ExecStartCmd attachedStartCmd = startCmd;
+        // starting twice fails, so the start is not retried
+        callLimiter.run("start exec", false, () -> attachedStartCmd.exec(frameHandler));
+        // the attached stream ends when the exec exits
+        this.exit =
+                frameHandler
+                        .getCompletion()
+                        .handle(
+                                (ignored, throwable) -> {
+                                    exitedAtNanos = System.nanoTime();
+                                    return null;
+                                })
+                        .thenCompose(
+                                ignored ->
+                                        fetchExitCode(
+                                                execCreation.getId(),
+                                                trackedState,
+                                                this::inspectExitCode,
+                                                DockerLifecycleExecutor::runAsync,
+                                                1));
+    }
+
+    /**
+     * Takes the exit code from the exec_die event if it was received, otherwise inspects the exec.
+     * As long as the daemon still reports the exec as running, this is retried with an exponential
+     * backoff.
+     *
+     * @param execId Id of the exec
+     * @param trackedState State of the exec updated by the events stream
+     * @param inspectExitCode Inspects the exec, empty while it is running
+     * @param executor Runs the inspect calls
+     * @param attempt Number of this attempt, starting at 1
+     * @return A future completing with the exit code
+     */
+    static CompletableFuture<Long> fetchExitCode(
+            String execId,
+            TrackedState trackedState,
+            Supplier<Optional<Long>> inspectExitCode,
+            Executor executor,
+            int attempt) {
+        if (trackedState.hasExited() && trackedState.getExitCode().isPresent()) {
+            return CompletableFuture.completedFuture(trackedState.getExitCode().get());
+        }
+        return CompletableFuture.supplyAsync(inspectExitCode, executor)
+                .thenCompose(
+                        exitCode -> {
+                            if (exitCode.isPresent()) {
+                                return CompletableFuture.completedFuture(exitCode.get());
+                            }
+                            if (attempt >= MAX_EXIT_CODE_ATTEMPTS) {
+                                return CompletableFuture.failedFuture(
+                                        new IllegalStateException(
+                                                "Output of exec "
+                                                        + execId
+                                                        + " ended before it exited"));
+                            }
+                            Executor delayed =
+                                    CompletableFuture.delayedExecutor(
+                                            INITIAL_EXIT_CODE_DELAY_MILLISECONDS << (attempt - 1),
+                                            TimeUnit.MILLISECONDS);
+                            return CompletableFuture.runAsync(() -> {}, delayed)
+                                    .thenCompose(
+                                            ignored ->
+                                                    fetchExitCode(
+                                                            execId,
+                                                            trackedState,
+                                                            inspectExitCode,
+                                                            executor,
+                                                            attempt + 1));
+                        });
+    }
+
+    private InspectExecResponse inspectExec() {
+        String id = execCreation.getId();
+        return callLimiter.call("inspect exec", true, () -> DOCKER.inspectExecCmd(id).exec());
+    }
+
+    private Optional<Long> inspectExitCode() {
+        InspectExecResponse inspect = inspectExec();
+        if (Boolean.TRUE.equals(inspect.isRunning()) || inspect.getExitCodeLong() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(inspect.getExitCodeLong());
     }
 
     @Override
@@ -35,14 +175,114 @@ public class DockerExecInstance implements ExecInstance {
             // TODO Auto-generated catch block
             e.printStackTrace();
         }
+        tracker.untrackExec(execCreation.getId());
+    }
+
+    /**
+     * Completes with the exit code once the exec exited. The exit is detected by the end of the
+     * attached output; the exit code is taken from the docker events if available, otherwise from
+     * inspecting the exec. Fails if the exec still runs a while after the output was closed.
+     *
+     * @return A future completing with the exit code
+     */
+    public CompletableFuture<Long> onExit() {
+        // a copy, so callers cannot complete or cancel the shared future
+        return exit.copy();
+    }
+
+    /**
+     * Blocks until the exec exited.
+     *
+     * @param timeout Maximum time to wait, null to wait without limit
+     * @return The exit code
+     * @throws InterruptedException If interrupted while waiting
+     * @throws TimeoutException If the exec did not exit in time
+     * @see #onExit()
+     */
+    public long awaitExit(Duration timeout) throws InterruptedException, TimeoutException {
+        return FrameHandler.await(onExit(), timeout);
+    }
+
+    /**
+     * @return Time from starting the exec until its output ended, if it ended already
+     */
+    public Optional<Duration> getDuration() {
+        long exitedAt = exitedAtNanos;
+        if (exitedAt == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(exitedAt - startedAtNanos));
+    }
+
+    /**
+     * @return Whether the exec is known to have exited, without asking the daemon
+     */
+    public boolean hasExited() {
+        return exit.isDone();
     }
 
     @Override
     public boolean isRunning() {
-        return DOCKER.inspectExecCmd(execCreation.getId()).exec().isRunning();
+        if (exit.isDone()) {
+            return false;
+        }
+        if (tracker.isSynchronized()) {
+            // the exec was started in the constructor, so it runs until it died
+            return !trackedState.hasExited();
+        }
+        return inspectExec().isRunning();
     }
 
     public long getExitCode() {
-        return DOCKER.inspectExecCmd(execCreation.getId()).exec().getExitCodeLong();
+        if (exit.isDone() && !exit.isCompletedExceptionally()) {
+            return exit.join();
+        }
+        if (tracker.isSynchronized()
+                && trackedState.hasExited()
+                && trackedState.getExitCode().isPresent()) {
+            return trackedState.getExitCode().get();
+        }
+        return inspectExec().getExitCodeLong();
+    }
+
+    public TrackedState getTrackedState() {
+        return trackedState;
+    }
+
+    /**
+     * @see FrameHandler#awaitLineAsync(Predicate)
+     */
+    public CompletableFuture<String> awaitLineAsync(Predicate<String> predicate) {
+        return frameHandler.awaitLineAsync(predicate);
+    }
+
+    /**
+     * @see FrameHandler#awaitOutputAsync(Pattern)
+     */
+    public CompletableFuture<String> awaitOutputAsync(Pattern pattern) {
+        return frameHandler.awaitOutputAsync(pattern);
+    }
+
+    /**
+     * @see FrameHandler#awaitLine(Predicate)
+     */
+    public String awaitLine(Predicate<String> predicate) throws InterruptedException {
+        return frameHandler.awaitLine(predicate);
+    }
+
+    /**
+     * @see FrameHandler#awaitLine(Predicate, Duration)
+     */
+    public String awaitLine(Predicate<String> predicate, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        return frameHandler.awaitLine(predicate, timeout);
+    }
+
+    /**
+     * @see FrameHandler#awaitOutput(Pattern, Duration)
+     */
+    public String awaitOutput(Pattern pattern, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        return frameHandler.awaitOutput(pattern, timeout);
     }
 }
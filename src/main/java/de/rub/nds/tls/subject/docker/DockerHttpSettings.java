@@ -0,0 +1,84 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import java.time.Duration;
+
+/**
+ * Connection pool settings of the HTTP clients created by {@link DockerClientManager}. Short
+ * control calls (create, start, inspect, ...) and long-lived streams (logs, exec, attach, events)
+ * use separate pools, so streams cannot exhaust the connections needed for control calls.
+ */
+public class DockerHttpSettings {
+
+    private int maxConnections = 100;
+    private int streamingMaxConnections = 512;
+    private Duration connectionTimeout;
+    private Duration responseTimeout;
+
+    /**
+     * @param value Maximum number of connections for control calls
+     * @return this settings
+     */
+    public DockerHttpSettings maxConnections(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("maxConnections must be at least 1");
+        }
+        maxConnections = value;
+        return this;
+    }
+
+    /**
+     * @param value Maximum number of concurrently open streams
+     * @return this settings
+     */
+    public DockerHttpSettings streamingMaxConnections(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("streamingMaxConnections must be at least 1");
+        }
+        streamingMaxConnections = value;
+        return this;
+    }
+
+    /**
+     * @param value Timeout for establishing a connection to the daemon, used by both pools; null
+     *     for the default of docker-java
+     * @return this settings
+     */
+    public DockerHttpSettings connectionTimeout(Duration value) {
+        connectionTimeout = value;
+        return this;
+    }
+
+    /**
+     * @param value Timeout for the response of a control call; null for the default of docker-java.
+     *     Streams never time out, as they may be idle for a long time.
+     * @return this settings
+     */
+    public DockerHttpSettings responseTimeout(Duration value) {
+        responseTimeout = value;
+        return this;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getStreamingMaxConnections() {
+        return streamingMaxConnections;
+    }
+
+    public Duration getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public Duration getResponseTimeout() {
+        return responseTimeout;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking lifecycle calls of {@link DockerTlsInstance}s (start, stop, close, ...) in the
+ * background. Tasks are handed to a configurable {@link Executor}, but at most {@link
+ * #getMaxConcurrentCalls()} of them run at the same time. Tasks exceeding the limit are queued
+ * without occupying a thread.
+ *
+ * <p>This bound only keeps the number of blocked threads in check; protecting the daemon is left to
+ * the {@link DockerCallLimiter} every docker call of a task passes through. Unless a fixed value is
+ * set, the bound follows the current limit of {@link DockerCallLimiter#instance()}, so the executor
+ * does not hold back tasks the limiter would admit and does not start more tasks than the limiter
+ * lets through. A task that is rejected by the executor fails its future with the {@link
+ * RejectedExecutionException}; it is never run in the submitting thread.
+ */
+public final class DockerLifecycleExecutor {
+
+    private static final Queue<Task<?>> PENDING = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+
+    private static volatile Executor executor = createDefaultExecutor();
+    private static volatile Integer maxConcurrentCalls;
+
+    private DockerLifecycleExecutor() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * @param value The executor running the lifecycle calls; defaults to a cached pool of daemon
+     *     threads
+     */
+    public static void setExecutor(Executor value) {
+        if (value == null) {
+            throw new NullPointerException("executor may not be null");
+        }
+        executor = value;
+    }
+
+    public static Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * @param value Maximum number of lifecycle calls that are executed concurrently, or null to
+     *     follow the limit of the default {@link DockerCallLimiter}
+     */
+    public static void setMaxConcurrentCalls(Integer value) {
+        if (value != null && value < 1) {
+            throw new IllegalArgumentException("At least one concurrent call must be allowed");
+        }
+        maxConcurrentCalls = value;
+        dispatch();
+    }
+
+    public static int getMaxConcurrentCalls() {
+        Integer value = maxConcurrentCalls;
+        if (value != null) {
+            return value;
+        }
+        return Math.max(1, DockerCallLimiter.instance().getLimit());
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable action) {
+        return supplyAsync(
+                () -> {
+                    action.run();
+                    return null;
+                });
+    }
+
+    public static <T> CompletableFuture<T> supplyAsync(Supplier<T> action) {
+        Task<T> task = new Task<>(action);
+        PENDING.add(task);
+        dispatch();
+        return task.future;
+    }
+
+    private static void dispatch() {
+        while (!PENDING.isEmpty()) {
+            int running = RUNNING.get();
+            if (running >= getMaxConcurrentCalls()) {
+                return;
+            }
+            if (!RUNNING.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            Task<?> task = PENDING.poll();
+            if (task == null) {
+                RUNNING.decrementAndGet();
+                continue;
+            }
+            try {
+                executor.execute(
+                        () -> {
+                            try {
+                                task.run();
+                            } finally {
+                                RUNNING.decrementAndGet();
+                                dispatch();
+                            }
+                        });
+            } catch (RejectedExecutionException e) {
+                RUNNING.decrementAndGet();
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static final class Task<T> implements Runnable {
+
+        private final Supplier<T> action;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Task(Supplier<T> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            try {
+                future.complete(action.get());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        }
+    }
+
+    private static Executor createDefaultExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool(
+                runnable -> {
+                    Thread thread =
+                            new Thread(runnable, "docker-lifecycle-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import de.rub.nds.tls.subject.constants.TlsSessionLabels;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Identifies the resources created by this JVM. Containers and networks are labelled with the
+ * session (see {@link TlsSessionLabels}), execs get the session in their environment. This allows
+ * the {@link SessionReaper} to find the resources of crashed sessions.
+ *
+ * <p>On first use, stale sessions are reaped in the background and a shutdown hook is registered
+ * that removes the auto removed containers and the networks of this session concurrently. Stale
+ * sessions on other endpoints are reaped when this session first creates resources there, and the
+ * teardown covers every endpoint this session used.
+ */
+public final class DockerSession {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /** Name of the environment variable holding the session id in execs */
+    public static final String EXEC_ENV_NAME = "TLS_DOCKER_SESSION";
+
+    private static volatile boolean teardownOnShutdown = true;
+
+    private static class InstanceHolder {
+        private static final DockerSession INSTANCE = start();
+    }
+
+    /**
+     * @return The session of this JVM
+     */
+    public static DockerSession current() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * @param value Whether the shutdown hook removes the resources of this session; enabled by
+     *     default
+     */
+    public static void setTeardownOnShutdown(boolean value) {
+        teardownOnShutdown = value;
+    }
+
+    private final String id;
+    private final String owner;
+    private final String host;
+    private final long pid;
+    private final String pidNamespace;
+    private final Instant startedAt;
+    // endpoints other than the local one this session created resources on
+    private final Set<DockerEndpoint> endpoints = ConcurrentHashMap.newKeySet();
+
+    private DockerSession(
+            String id,
+            String owner,
+            String host,
+            long pid,
+            String pidNamespace,
+            Instant startedAt) {
+        this.id = id;
+        this.owner = owner;
+        this.host = host;
+        this.pid = pid;
+        this.pidNamespace = pidNamespace;
+        this.startedAt = startedAt;
+    }
+
+    private static DockerSession start() {
+        DockerSession session =
+                new DockerSession(
+                        UUID.randomUUID().toString(),
+                        System.getProperty("user.name", "unknown"),
+                        getLocalHostName(),
+                        ProcessHandle.current().pid(),
+                        getLocalPidNamespace(),
+                        Instant.now());
+        Runtime.getRuntime()
+                .addShutdownHook(
+                        new Thread(
+                                () -> {
+                                    if (teardownOnShutdown) {
+                                        session.teardown();
+                                    }
+                                },
+                                "docker-session-teardown"));
+        SessionReaper.instance()
+                .reapAsync()
+                .exceptionally(
+                        e -> {
+                            LOGGER.debug("Could not reap stale sessions", e);
+                            return 0;
+                        });
+        return session;
+    }
+
+    static String getLocalHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * A container sharing the network of the host has the same host name, but pids of its own. The
+     * pid namespace tells whether a pid label refers to a process visible to this JVM.
+     *
+     * @return The pid namespace of this process, e.g. {@code pid:[4026531836]}, or null if it is
+     *     unknown (i.e. not on Linux)
+     */
+    static String getLocalPidNamespace() {
+        try {
+            return Files.readSymbolicLink(Paths.get("/proc/self/ns/pid")).toString();
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Marks an endpoint as used by this session before it creates resources there, so they are
+     * removed on teardown. On first use of an endpoint, its stale sessions are reaped in the
+     * background.
+     *
+     * @param endpoint The endpoint resources of this session are created on
+     */
+    void use(DockerEndpoint endpoint) {
+        if (endpoint.isLocal() || !endpoints.add(endpoint)) {
+            return;
+        }
+        endpoint.getSessionReaper()
+                .reapAsync()
+                .exceptionally(
+                        e -> {
+                            LOGGER.debug(
+                                    "Could not reap stale sessions on {}", endpoint.getName(), e);
+                            return 0;
+                        });
+    }
+
+    /**
+     * Removes the auto removed containers and the networks of this session on every endpoint it
+     * used, many at a time.
+     *
+     * @return The number of removed containers
+     */
+    public int teardown() {
+        int removed = SessionReaper.instance().removeSession(id);
+        for (DockerEndpoint endpoint : endpoints) {
+            try {
+                removed += endpoint.getSessionReaper().removeSession(id);
+            } catch (RuntimeException e) {
+                LOGGER.warn(
+                        "Could not remove the resources of session {} on {}",
+                        id,
+                        endpoint.getName(),
+                        e);
+            }
+        }
+        return removed;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public long getPid() {
+        return pid;
+    }
+
+    /**
+     * @return The pid namespace of this JVM, or null if it is unknown
+     */
+    public String getPidNamespace() {
+        return pidNamespace;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * @return The labels identifying this session
+     */
+    public Map<String, String> getLabels() {
+        Map<String, String> labels = new HashMap<>();
+        labels.put(TlsSessionLabels.SESSION.getLabelName(), id);
+        labels.put(TlsSessionLabels.OWNER.getLabelName(), owner);
+        labels.put(TlsSessionLabels.HOST.getLabelName(), host);
+        labels.put(TlsSessionLabels.PID.getLabelName(), String.valueOf(pid));
+        if (pidNamespace != null) {
+            labels.put(TlsSessionLabels.PID_NAMESPACE.getLabelName(), pidNamespace);
+        }
+        labels.put(
+                TlsSessionLabels.STARTED.getLabelName(),
+                String.valueOf(startedAt.getEpochSecond()));
+        return labels;
+    }
+
+    /**
+     * @param autoRemove Whether the container is removed with its instance; only those are removed
+     *     when the session ends
+     * @return The labels of a container of this session
+     */
+    public Map<String, String> getContainerLabels(boolean autoRemove) {
+        Map<String, String> labels = getLabels();
+        labels.put(TlsSessionLabels.AUTO_REMOVE.getLabelName(), String.valueOf(autoRemove));
+        return labels;
+    }
+
+    /**
+     * @return The environment entry marking execs of this session
+     */
+    public String getExecEnv() {
+        return EXEC_ENV_NAME + "=" + id;
+    }
+
+    @Override
+    public String toString() {
+        return "DockerSession{"
+                + "id="
+                + id
+                + ", owner="
+                + owner
+                + ", host="
+                + host
+                + ", pid="
+                + pid
+                + ", pidNamespace="
+                + pidNamespace
+                + '}';
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import com.github.dockerjava.api.command.CreateNetworkCmd;
+import com.github.dockerjava.api.exception.DockerException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import de.rub.nds.tls.subject.exceptions.DockerUnavailableException;
+import java.util.UUID;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A user-defined bridge network for the containers of one session. Docker resolves the names and
+ * aliases of the attached containers, so clients reach servers by name on their internal port,
+ * without publishing ports through the docker proxy. Containers can be attached using {@link
+ * InstanceNetwork#session(DockerSessionNetwork)}.
+ *
+ * <p>The network can only be removed once all containers attached to it are removed. It is labelled
+ * with the {@link DockerSession}, so it is removed with the session.
+ */
+public class DockerSessionNetwork implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String NAME_PREFIX = "tls-docker-library-";
+
+    private final DockerEndpoint endpoint;
+    private final String id;
+    private final String name;
+
+    private DockerSessionNetwork(DockerEndpoint endpoint, String id, String name) {
+        this.endpoint = endpoint;
+        this.id = id;
+        this.name = name;
+    }
+
+    /**
+     * Creates a network with a random name.
+     *
+     * @return The created network
+     */
+    public static DockerSessionNetwork create() {
+        return create(NAME_PREFIX + UUID.randomUUID().toString().substring(0, 8));
+    }
+
+    /**
+     * @param name Name of the network, which has to be unused
+     * @return The created network
+     */
+    public static DockerSessionNetwork create(String name) {
+        return create(DockerEndpoint.local(), name);
+    }
+
+    /**
+     * @param endpoint The daemon to create the network on; containers attached to it are created on
+     *     the same daemon
+     * @param name Name of the network, which has to be unused on that daemon
+     * @return The created network
+     */
+    public static DockerSessionNetwork create(DockerEndpoint endpoint, String name) {
+        DockerSession.current().use(endpoint);
+        CreateNetworkCmd createCmd =
+                endpoint.getDockerClient()
+                        .createNetworkCmd()
+                        .withName(name)
+                        .withDriver("bridge")
+                        .withCheckDuplicate(true)
+                        .withLabels(DockerSession.current().getLabels());
+        // a repeated create would fail as the name is taken, so it is not retried
+        String id =
+                endpoint.getCallLimiter().call("create network", false, createCmd::exec).getId();
+        LOGGER.debug("Created network {} ({})", name, id);
+        return new DockerSessionNetwork(endpoint, id, name);
+    }
+
+    public DockerEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Removes the network. Failures are logged, e.g. if containers are still attached. */
+    @Override
+    public void close() {
+        try {
+            endpoint.getCallLimiter()
+                    .run(
+                            "remove network",
+                            true,
+                            () -> endpoint.getDockerClient().removeNetworkCmd(id).exec());
+        } catch (NotFoundException e) {
+            // already removed
+        } catch (DockerException | DockerUnavailableException e) {
+            LOGGER.warn("Could not remove network {}", name, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DockerSessionNetwork{" + "id=" + id + ", name=" + name + '}';
+    }
+}
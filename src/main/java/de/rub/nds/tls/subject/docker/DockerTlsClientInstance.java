@@ -9,21 +9,27 @@
 package de.rub.nds.tls.subject.docker;
 
 import com.github.dockerjava.api.command.CreateContainerCmd;
+import com.github.dockerjava.api.command.ExecCreateCmd;
 import com.github.dockerjava.api.command.ExecCreateCmdResponse;
 import com.github.dockerjava.api.model.Bind;
-import com.github.dockerjava.api.model.ContainerConfig;
 import com.github.dockerjava.api.model.ExposedPort;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.Image;
 import com.github.dockerjava.api.model.Volume;
 import de.rub.nds.tls.subject.ConnectionRole;
 import de.rub.nds.tls.subject.HostInfo;
+import de.rub.nds.tls.subject.docker.placement.PlacementScheduler;
+import de.rub.nds.tls.subject.docker.placement.ResourceRequest;
 import de.rub.nds.tls.subject.params.ParameterProfile;
 import de.rub.nds.tls.subject.properties.ImageProperties;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.function.UnaryOperator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -32,11 +38,37 @@ public class DockerTlsClientInstance extends DockerTlsInstance {
     private static final String[] EMPTY_STR_ARR = {};
     private static final Logger LOGGER = LogManager.getLogger();
 
+    /**
+     * Runs a client command count times using concurrency background workers and prints one result
+     * line per attempt. Arguments: token, count, concurrency, command. Uses nanoseconds from date
+     * if supported, the centiseconds of /proc/uptime otherwise (e.g. on busybox).
+     */
+    private static final String BURST_SCRIPT =
+            "t=$1; n=$2; c=$3; shift 3\n"
+                    + "if date +%s%N | grep -q '^[0-9]\\{19\\}$'; then\n"
+                    + "  now() { date +%s%N; }\n"
+                    + "else\n"
+                    + "  now() { read u r < /proc/uptime; echo \"${u%.*}${u#*.}0000000\"; }\n"
+                    + "fi\n"
+                    + "w=0\n"
+                    + "while [ $w -lt $c ]; do\n"
+                    + "  (i=$w\n"
+                    + "  while [ $i -lt $n ]; do\n"
+                    + "    s=$(now); \"$@\" </dev/null >/dev/null 2>&1; x=$?; e=$(now)\n"
+                    + "    echo \"$t $i $x $s $e\"\n"
+                    + "    i=$((i + c))\n"
+                    + "  done) &\n"
+                    + "  w=$((w + 1))\n"
+                    + "done\n"
+                    + "wait\n";
+
     private final HostInfo hostInfo;
     private final String additionalParameters;
     private final boolean parallelize;
     private final boolean insecureConnection;
     private final boolean connectOnStartup;
+    private final boolean useDriverChannel;
+    private DriverChannel driverChannel;
 
     // TODO move away from HostInfo for client...
     public DockerTlsClientInstance(
@@ -52,6 +84,12 @@ public class DockerTlsClientInstance extends DockerTlsInstance {
             boolean parallelize,
             boolean insecureConnection,
             boolean connectOnStartup,
+            boolean useDriverChannel,
+            DockerEndpoint endpoint,
+            InstanceNetwork network,
+            PlacementScheduler placementScheduler,
+            ResourceRequest resourceRequest,
+            RuntimeProfile runtimeProfile,
             UnaryOperator<HostConfig> hostConfigHook,
             String[] cmd,
             List<ExposedPort> exposedPorts) {
@@ -64,6 +102,11 @@ public class DockerTlsClientInstance extends DockerTlsInstance {
                 additionalBuildFlags,
                 ConnectionRole.CLIENT,
                 autoRemove,
+                endpoint,
+                network,
+                placementScheduler,
+                resourceRequest,
+                runtimeProfile,
                 hostConfigHook,
                 cmd,
                 exposedPorts);
@@ -72,15 +115,23 @@ public class DockerTlsClientInstance extends DockerTlsInstance {
         this.parallelize = parallelize;
         this.insecureConnection = insecureConnection;
         this.connectOnStartup = connectOnStartup;
+        this.useDriverChannel = useDriverChannel;
     }
 
     @Override
     protected HostConfig prepareHostConfig(HostConfig cfg) {
-        String extraHost = "test:127.0.0.27";
-        if (hostInfo.getHostname() != null) {
-            extraHost = hostInfo.getHostname() + ":" + hostInfo.getIp();
+        cfg = super.prepareHostConfig(cfg);
+        // on a session network servers are reached by their DNS name, on other networks on the
+        // host directly; docker rejects host entries for containers sharing the namespace of
+        // another one
+        if (network.getType() != InstanceNetwork.Type.CONTAINER
+                && network.getType() != InstanceNetwork.Type.SESSION) {
+            if (hostInfo.getHostname() != null && hostInfo.getIp() != null) {
+                cfg = cfg.withExtraHosts(hostInfo.getHostname() + ":" + hostInfo.getIp());
+            } else if (network.isPublishingPorts()) {
+                cfg = cfg.withExtraHosts("test:127.0.0.27");
+            }
         }
-        cfg = super.prepareHostConfig(cfg).withExtraHosts(extraHost);
 
         List<Bind> binds = new ArrayList<>(Arrays.asList(cfg.getBinds()));
         // TODO: Bind of X11 Settings does not work as expected
@@ -94,35 +145,65 @@ public class DockerTlsClientInstance extends DockerTlsInstance {
     protected CreateContainerCmd prepareCreateContainerCmd(CreateContainerCmd cmd) {
         cmd = super.prepareCreateContainerCmd(cmd);
 
-        String host;
-        if (hostInfo.getHostname() == null || imageProperties.isUseIP()) {
-            host = hostInfo.getIp();
-        } else {
-            host = hostInfo.getHostname();
-        }
+        String host = getTargetHost();
         if (connectOnStartup) {
             cmd =
                     cmd.withCmd(
-                            parameterProfile.toParameters(
-                                    host,
-                                    hostInfo.getPort(),
-                                    imageProperties,
-                                    additionalParameters,
-                                    parallelize,
-                                    insecureConnection));
+                            getImageTemplate()
+                                    .getParameters(
+                                            parameterProfile,
+                                            imageProperties,
+                                            host,
+                                            hostInfo.getPort(),
+                                            additionalParameters,
+                                            parallelize,
+                                            insecureConnection));
         } else {
             cmd = cmd.withEntrypoint("client-entrypoint");
         }
         return cmd;
     }
 
-    public DockerExecInstance connect() {
-        String host;
-        if (hostInfo.getHostname() == null || imageProperties.isUseIP()) {
-            host = hostInfo.getIp();
-        } else {
-            host = hostInfo.getHostname();
+    /**
+     * @return The host the client connects to by default: the IP of the HostInfo for images that
+     *     require one, its hostname otherwise. Servers on a session network have no fixed IP, so
+     *     their network alias is used there.
+     */
+    private String getTargetHost() {
+        if (hostInfo.getHostname() == null
+                || (imageProperties.isUseIP() && hostInfo.getIp() != null)) {
+            return hostInfo.getIp();
+        }
+        return hostInfo.getHostname();
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        if (useDriverChannel) {
+            getDriverChannel();
         }
+    }
+
+    @Override
+    public CompletableFuture<DockerTlsClientInstance> startAsync() {
+        return DockerLifecycleExecutor.supplyAsync(
+                () -> {
+                    start();
+                    return this;
+                });
+    }
+
+    public CompletableFuture<DockerExecInstance> connectAsync() {
+        return DockerLifecycleExecutor.supplyAsync(this::connect);
+    }
+
+    public CompletableFuture<DockerExecInstance> connectAsync(String host, int targetPort) {
+        return DockerLifecycleExecutor.supplyAsync(() -> connect(host, targetPort));
+    }
+
+    public DockerExecInstance connect() {
+        String host = getTargetHost();
         return connect(host, hostInfo.getPort());
     }
 
@@ -140,39 +221,171 @@ public class DockerTlsClientInstance extends DockerTlsInstance {
             String additionalParameters,
             Boolean parallelize,
             Boolean insecureConnection) {
-        ContainerConfig imageCfg = DOCKER.inspectImageCmd(image.getId()).exec().getConfig();
-        if (imageCfg == null) {
-            throw new IllegalStateException("Could not get config for image " + image.getId());
-        }
-        String[] entrypoint = imageCfg.getEntrypoint();
-        if (entrypoint == null) {
-            throw new IllegalStateException("Could not get entrypoint for image " + image.getId());
-        }
-        List<String> cmd_lst = new LinkedList<String>(Arrays.asList(entrypoint));
-        if (cmd_lst.get(0).equals("client-entrypoint")) {
-            cmd_lst.remove(0);
-        } else {
-            LOGGER.warn("Image {} did not have client-entrypoint as entrypoint", image.getId());
-        }
+        wake();
+        ContainerTemplateCache.ImageTemplate template = getImageTemplate();
+        List<String> cmd_lst = new ArrayList<>(Arrays.asList(template.getClientExecPrefix()));
         String[] params =
-                parameterProfile.toParameters(
+                template.getParameters(
+                        parameterProfile,
+                        imageProperties,
                         host,
                         targetPort,
-                        imageProperties,
                         additionalParameters,
                         parallelize,
                         insecureConnection);
         cmd_lst.addAll(Arrays.asList(params));
-        ExecCreateCmdResponse exec =
+        ExecCreateCmd createCmd =
                 DOCKER.execCreateCmd(getId())
                         .withCmd(cmd_lst.toArray(EMPTY_STR_ARR))
                         .withAttachStdin(false)
                         .withAttachStdout(true)
                         .withAttachStderr(true)
                         .withTty(true)
-                        .exec();
-        DockerExecInstance ret = new DockerExecInstance(exec);
-        childExecs.add(ret);
+                        .withEnv(List.of(DockerSession.current().getExecEnv()));
+        // an exec that was created but never started does no harm, so creating is retried
+        ExecCreateCmdResponse exec = callLimiter.call("create exec", true, createCmd::exec);
+        DockerExecInstance ret = new DockerExecInstance(endpoint, exec, null, new FrameHandler());
+        addChildExec(ret);
         return ret;
     }
+
+    /**
+     * Returns the channel used by {@link #connectViaDriver(String, int, Duration)}. It is opened on
+     * first use (or when starting if enabled in the builder) and reopened if it was closed.
+     *
+     * @return The open driver channel of the running container
+     */
+    public synchronized DriverChannel getDriverChannel() {
+        if (driverChannel == null || !driverChannel.isOpen()) {
+            driverChannel = DriverChannel.open(endpoint, getId());
+            addChildExec(driverChannel.getExec());
+        }
+        return driverChannel;
+    }
+
+    /**
+     * Connects to the configured host through the driver channel.
+     *
+     * @see #connectViaDriver(String, int, Duration)
+     */
+    public DriverResult connectViaDriver(Duration timeout)
+            throws InterruptedException, TimeoutException {
+        String host = getTargetHost();
+        return connectViaDriver(host, hostInfo.getPort(), timeout);
+    }
+
+    /**
+     * Runs the same client command as {@link #connect(String, int)}, but through the driver channel
+     * instead of a new exec. Apart from opening the channel once, this costs no Docker API call.
+     *
+     * @param host The host to connect to
+     * @param targetPort The port to connect to
+     * @param timeout Maximum time the client may run, null to wait until it exited
+     * @return Exit code and output of the client
+     * @throws InterruptedException If interrupted while waiting
+     * @throws TimeoutException If the client did not exit in time; the channel is closed then
+     */
+    public DriverResult connectViaDriver(String host, int targetPort, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        wake();
+        return getDriverChannel().execute(timeout, getConnectCommand(host, targetPort));
+    }
+
+    /**
+     * @see #connectViaDriver(String, int, Duration)
+     */
+    public CompletableFuture<DriverResult> connectViaDriverAsync(String host, int targetPort) {
+        wake();
+        return getDriverChannel().submit(getConnectCommand(host, targetPort));
+    }
+
+    /**
+     * Runs the client count times against the given server within a single exec, so no Docker API
+     * call is made per handshake. The attempts are distributed over concurrency workers, each
+     * running the client repeatedly; the output of the client is discarded.
+     *
+     * @param host The host to connect to
+     * @param targetPort The port to connect to
+     * @param count Number of client runs
+     * @param concurrency Number of client runs in parallel
+     * @return Exit code and duration of each attempt
+     * @throws InterruptedException If interrupted while waiting for the burst to finish
+     */
+    public BurstResult connectBurst(String host, int targetPort, int count, int concurrency)
+            throws InterruptedException {
+        try {
+            return connectBurstAsync(host, targetPort, count, concurrency).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @see #connectBurst(String, int, int, int)
+     */
+    public CompletableFuture<BurstResult> connectBurstAsync(
+            String host, int targetPort, int count, int concurrency) {
+        if (count < 0 || concurrency < 1) {
+            throw new IllegalArgumentException("count must be >= 0 and concurrency >= 1");
+        }
+        wake();
+        String token = "burst-" + UUID.randomUUID();
+        List<String> cmd_lst =
+                new ArrayList<>(
+                        Arrays.asList(
+                                "sh",
+                                "-c",
+                                BURST_SCRIPT,
+                                "sh",
+                                token,
+                                Integer.toString(count),
+                                Integer.toString(Math.min(concurrency, Math.max(count, 1)))));
+        cmd_lst.addAll(Arrays.asList(getConnectCommand(host, targetPort)));
+        long startedAt = System.nanoTime();
+        ExecCreateCmd createCmd =
+                DOCKER.execCreateCmd(getId())
+                        .withCmd(cmd_lst.toArray(EMPTY_STR_ARR))
+                        .withAttachStdin(false)
+                        .withAttachStdout(true)
+                        .withAttachStderr(true)
+                        .withTty(false)
+                        .withEnv(List.of(DockerSession.current().getExecEnv()));
+        ExecCreateCmdResponse exec = callLimiter.call("create exec", true, createCmd::exec);
+        // keep all result lines, even if the client is chatty on the way
+        DockerExecInstance ret =
+                new DockerExecInstance(
+                        endpoint,
+                        exec,
+                        null,
+                        new FrameHandler(
+                                Math.max(count + 1000, FrameHandler.getDefaultCapacity())));
+        addChildExec(ret);
+        return ret.frameHandler
+                .getCompletion()
+                .thenApply(
+                        ignored ->
+                                BurstResult.parse(
+                                        Arrays.asList(ret.frameHandler.getLines()),
+                                        token,
+                                        Duration.ofNanos(System.nanoTime() - startedAt)));
+    }
+
+    private String[] getConnectCommand(String host, int targetPort) {
+        ContainerTemplateCache.ImageTemplate template = getImageTemplate();
+        List<String> cmd_lst = new ArrayList<>(Arrays.asList(template.getClientExecPrefix()));
+        cmd_lst.addAll(
+                Arrays.asList(
+                        template.getParameters(
+                                parameterProfile,
+                                imageProperties,
+                                host,
+                                targetPort,
+                                additionalParameters,
+                                parallelize,
+                                insecureConnection)));
+        return cmd_lst.toArray(EMPTY_STR_ARR);
+    }
 }
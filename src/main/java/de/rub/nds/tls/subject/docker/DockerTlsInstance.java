@@ -9,37 +9,94 @@
 package de.rub.nds.tls.subject.docker;
 
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.AttachContainerCmd;
 import com.github.dockerjava.api.command.CreateContainerCmd;
 import com.github.dockerjava.api.command.CreateContainerResponse;
+import com.github.dockerjava.api.command.InspectContainerResponse;
 import com.github.dockerjava.api.command.InspectContainerResponse.ContainerState;
-import com.github.dockerjava.api.command.InspectVolumeResponse;
+import com.github.dockerjava.api.command.LogContainerCmd;
 import com.github.dockerjava.api.exception.DockerException;
 import com.github.dockerjava.api.model.*;
 import de.rub.nds.tls.subject.ConnectionRole;
 import de.rub.nds.tls.subject.docker.build.DockerBuilder;
+import de.rub.nds.tls.subject.docker.placement.Placement;
+import de.rub.nds.tls.subject.docker.placement.PlacementScheduler;
+import de.rub.nds.tls.subject.docker.placement.ResourceRequest;
+import de.rub.nds.tls.subject.exceptions.DockerUnavailableException;
 import de.rub.nds.tls.subject.exceptions.TlsVersionNotFoundException;
 import de.rub.nds.tls.subject.params.ParameterProfile;
 import de.rub.nds.tls.subject.properties.ImageProperties;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public abstract class DockerTlsInstance {
-    protected static final DockerClient DOCKER = DockerClientManager.getDockerClient();
     private static final Logger LOGGER = LogManager.getLogger();
 
+    private static final long EXIT_EVENT_TIMEOUT_MILLISECONDS = 2000;
+
+    private static final int TAR_BLOCK_SIZE = 512;
+
+    private static final long ATTACH_TIMEOUT_SECONDS = 10;
+
+    // grace period of stops and restarts before the container is killed
+    private static final int DEFAULT_STOP_TIMEOUT_SECONDS = 2;
+
+    protected final DockerEndpoint endpoint;
+    protected final DockerClient DOCKER;
+    protected final DockerClient STREAMING_DOCKER;
+    // shared by all control calls to the daemon of the endpoint
+    protected final DockerCallLimiter callLimiter;
+    // whether this instance is counted in the load of its endpoint
+    private final AtomicBoolean endpointLoadHeld = new AtomicBoolean();
     private final String containerName;
-    private String containerId;
+    private volatile String containerId;
+    private volatile TrackedState trackedState;
     protected Image image;
     private Optional<Long> exitCode = Optional.empty();
     private boolean autoRemove;
-    private int logReadOffset = 0;
+    // timestamp of the last line returned by getLogs and how many lines had this timestamp
+    private Instant logReadInstant = null;
+    private int logReadInstantCount = 0;
+    // follows the container output for the await methods, opened on first use
+    private FrameHandler outputHandler;
+    // lines of the attach stream already returned by getLogs
+    private long attachLogCursor = 0;
     protected final ParameterProfile parameterProfile;
     protected final ImageProperties imageProperties;
-    protected List<DockerExecInstance> childExecs = new LinkedList<>();
+    protected final List<DockerExecInstance> childExecs = new CopyOnWriteArrayList<>();
     private final UnaryOperator<HostConfig> hostConfigHook;
     private final String[] cmd;
+    protected final InstanceNetwork network;
+    private final String networkAlias;
+    private final PlacementScheduler placementScheduler;
+    private final ResourceRequest resourceRequest;
+    private volatile Placement placement;
+    protected final RuntimeProfile runtimeProfile;
+    // guards pausing and unpausing; the generation invalidates scheduled idle checks
+    private final Object hibernationLock = new Object();
+    private long hibernationGeneration = 0;
+    private volatile boolean hibernating = false;
+    // set while a pause call is in flight, so wake() waits for it and unpauses the container
+    private volatile boolean pausing = false;
+    private volatile long lastActivityNanos = System.nanoTime();
+    private final AtomicInteger awakeHolds = new AtomicInteger();
+    private final ResumeStats resumeStats = new ResumeStats();
 
     private final List<ExposedPort> containerExposedPorts;
 
@@ -52,6 +109,11 @@ public abstract class DockerTlsInstance {
             String additionalBuildFlags,
             ConnectionRole role,
             boolean autoRemove,
+            DockerEndpoint endpoint,
+            InstanceNetwork network,
+            PlacementScheduler placementScheduler,
+            ResourceRequest resourceRequest,
+            RuntimeProfile runtimeProfile,
             UnaryOperator<HostConfig> hostConfigHook,
             String[] cmd,
             List<ExposedPort> exposedPorts) {
@@ -62,48 +124,85 @@ public abstract class DockerTlsInstance {
             throw new NullPointerException("imageProperties may not be null");
         }
         this.autoRemove = autoRemove;
+        this.endpoint = endpoint == null ? DockerEndpoint.local() : endpoint;
+        this.DOCKER = this.endpoint.getDockerClient();
+        this.STREAMING_DOCKER = this.endpoint.getStreamingDockerClient();
+        this.callLimiter = this.endpoint.getCallLimiter();
         this.parameterProfile = profile;
         this.imageProperties = imageProperties;
         this.hostConfigHook = hostConfigHook;
         this.containerName = containerName;
         this.cmd = cmd;
         this.containerExposedPorts = exposedPorts;
+        this.network = network == null ? InstanceNetwork.defaultBridge() : network;
+        this.networkAlias =
+                containerName != null ? containerName : createNetworkAlias(profile, role);
+        this.placementScheduler = placementScheduler;
+        this.resourceRequest = resourceRequest == null ? new ResourceRequest() : resourceRequest;
+        this.runtimeProfile = runtimeProfile == null ? RuntimeProfile.standard() : runtimeProfile;
         Map<String, String> labels =
                 DockerBuilder.getImageLabels(
                         profile.getType(), version, role, additionalBuildFlags);
         if (image == null) {
-            this.image = DockerBuilder.getImageWithLabels(labels, true);
+            // image ids differ between daemons, so the image is looked up on the endpoint
+            this.image = this.endpoint.getImageCatalog().getImage(labels, true);
             if (this.image == null) {
                 throw new TlsVersionNotFoundException();
             }
         } else {
             this.image = image;
         }
+        acquireEndpoint();
     }
 
-    protected HostConfig prepareHostConfig(HostConfig cfg) {
-        // Check if volume exists; Without this check, the container would be started
-        // without any problems, swallowing the error and making it harder to identify
-        InspectVolumeResponse vol = DockerBuilder.getCertDataVolumeInfo();
+    /**
+     * @return A DNS name like {@code openssl-server-1a2b3c4d}
+     */
+    private static String createNetworkAlias(ParameterProfile profile, ConnectionRole role) {
+        String alias =
+                profile.getType().name()
+                        + "-"
+                        + role.name()
+                        + "-"
+                        + UUID.randomUUID().toString().substring(0, 8);
+        return alias.toLowerCase().replaceAll("[^a-z0-9-]", "-");
+    }
 
+    protected HostConfig prepareHostConfig(HostConfig cfg) {
         // hook is handled in prepareCreateContainerCmd; this ensures it is called last
-        return cfg.withBinds(
-                new Bind(
-                        vol.getName(),
-                        new Volume("/cert/"),
-                        AccessMode.ro,
-                        SELContext.DEFAULT,
-                        true));
+        return cfg.withBinds(endpoint.getTemplateCache().getCertVolumeBind());
+    }
+
+    /**
+     * @return The cached creation template of the image of this instance
+     */
+    protected ContainerTemplateCache.ImageTemplate getImageTemplate() {
+        return endpoint.getTemplateCache().getTemplate(image.getId());
     }
 
     protected CreateContainerCmd prepareCreateContainerCmd(CreateContainerCmd createContainerCmd) {
         HostConfig hcfg = prepareHostConfig(HostConfig.newHostConfig());
+        if (network.getNetworkMode() != null) {
+            hcfg = hcfg.withNetworkMode(network.getNetworkMode());
+        }
+        hcfg = runtimeProfile.applyTo(hcfg, network);
+        if (placementScheduler != null) {
+            if (placement == null) {
+                placement = placementScheduler.place(resourceRequest);
+            }
+            hcfg = placement.applyTo(hcfg);
+        }
         if (hostConfigHook != null) {
             hcfg = hostConfigHook.apply(hcfg);
         }
         if (containerName != null) {
             createContainerCmd.withName(containerName);
         }
+        DockerSession.current().use(endpoint);
+        createContainerCmd.withLabels(DockerSession.current().getContainerLabels(autoRemove));
+        if (network.getType() == InstanceNetwork.Type.SESSION) {
+            createContainerCmd.withAliases(networkAlias);
+        }
         if (cmd != null) {
             createContainerCmd.withCmd(cmd);
         }
@@ -111,10 +210,10 @@ public abstract class DockerTlsInstance {
             createContainerCmd.withExposedPorts(containerExposedPorts);
         }
         return createContainerCmd
-                .withAttachStderr(true)
-                .withAttachStdout(true)
+                .withAttachStderr(runtimeProfile.isCaptureOutput())
+                .withAttachStdout(runtimeProfile.isCaptureOutput())
                 .withAttachStdin(true)
-                .withTty(true)
+                .withTty(runtimeProfile.isTty())
                 .withStdInOnce(true)
                 .withStdinOpen(true)
                 .withHostConfig(hcfg);
@@ -128,8 +227,10 @@ public abstract class DockerTlsInstance {
         // Create container does not need to be closed
         CreateContainerCmd containerCmd = DOCKER.createContainerCmd(image.getId());
 
-        containerCmd = prepareCreateContainerCmd(containerCmd);
-        CreateContainerResponse container = containerCmd.exec();
+        CreateContainerCmd preparedCmd = prepareCreateContainerCmd(containerCmd);
+        // not retried, a create that timed out may still have created the container
+        CreateContainerResponse container =
+                callLimiter.call("create container", false, preparedCmd::exec);
         String[] warnings = container.getWarnings();
         if (warnings != null && warnings.length != 0 && LOGGER.isWarnEnabled()) {
             LOGGER.warn("During container creation the following warnings were raised:");
@@ -141,29 +242,73 @@ public abstract class DockerTlsInstance {
     }
 
     public void ensureContainerExists() {
-        // TODO check if container already exists
-        if (containerId != null) {
-            // check if still exists
-            // TODO
+        TrackedState state = trackedState;
+        if (containerId != null
+                && state != null
+                && state.getStatus() == TrackedState.Status.REMOVED) {
+            // container was removed in the meantime (e.g. by the daemon due to auto removal)
+            endpoint.getEventTracker().untrackContainer(containerId);
+            containerId = null;
         }
         if (containerId == null) {
+            acquireEndpoint();
             // create new container
             containerId = createContainer();
+            trackedState = endpoint.getEventTracker().trackContainer(containerId);
         }
     }
 
     public void start() {
         ensureContainerExists();
-        DOCKER.startContainerCmd(getId()).exec();
+        TrackedState state = trackedState;
+        long startCount = state.getStartCount();
+        if (runtimeProfile.isAttachCapture()) {
+            attachOutput();
+        }
+        String id = getId();
+        callLimiter.run("start container", true, () -> DOCKER.startContainerCmd(id).exec());
+        state.onStartedLocally(startCount);
+        scheduleHibernation();
+    }
+
+    /**
+     * Starts the container in the background using the {@link DockerLifecycleExecutor}.
+     *
+     * @return A future completing with this instance once it is started
+     */
+    public CompletableFuture<? extends DockerTlsInstance> startAsync() {
+        return DockerLifecycleExecutor.supplyAsync(
+                () -> {
+                    start();
+                    return this;
+                });
     }
 
     public void remove() {
+        cancelHibernation();
+        closeOutputHandler();
         String id = getId();
         if (id != null) {
-            DOCKER.removeContainerCmd(id).exec();
+            callLimiter.run("remove container", false, () -> DOCKER.removeContainerCmd(id).exec());
+            endpoint.getEventTracker().untrackContainer(id);
         }
         closeChildren();
         containerId = null;
+        trackedState = null;
+        Placement assigned = placement;
+        if (assigned != null) {
+            placement = null;
+            placementScheduler.release(assigned);
+        }
+        if (endpointLoadHeld.compareAndSet(true, false)) {
+            endpoint.release();
+        }
+    }
+
+    private void acquireEndpoint() {
+        if (endpointLoadHeld.compareAndSet(false, true)) {
+            endpoint.acquire();
+        }
     }
 
     private void autoRemove() {
@@ -173,35 +318,110 @@ public abstract class DockerTlsInstance {
     }
 
     private void storeExitCode() {
-        this.exitCode =
-                Optional.of(
-                        DOCKER.inspectContainerCmd(getId()).exec().getState().getExitCodeLong());
+        TrackedState state = getSynchronizedState();
+        if (state != null) {
+            try {
+                // the die event may still be on its way after a stop or kill call returned
+                if (state.awaitExit(EXIT_EVENT_TIMEOUT_MILLISECONDS, TimeUnit.MILLISECONDS)
+                        && state.getExitCode().isPresent()) {
+                    this.exitCode = state.getExitCode();
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        this.exitCode = Optional.of(inspectContainer(getId()).getState().getExitCodeLong());
+    }
+
+    /**
+     * @return The state tracked via the docker events stream, or null if it is unknown or cannot be
+     *     trusted at the moment
+     */
+    private TrackedState getSynchronizedState() {
+        TrackedState state = trackedState;
+        if (state != null && endpoint.getEventTracker().isSynchronized()) {
+            return state;
+        }
+        return null;
+    }
+
+    /**
+     * Registers an exec to be closed with this instance. Execs that exited already are closed and
+     * dropped on the way, so the list does not grow with every connect.
+     *
+     * @param exec The exec started in this container
+     */
+    protected void addChildExec(DockerExecInstance exec) {
+        List<DockerExecInstance> exited = new ArrayList<>();
+        for (DockerExecInstance child : childExecs) {
+            if (child.hasExited()) {
+                exited.add(child);
+            }
+        }
+        if (!exited.isEmpty()) {
+            childExecs.removeAll(exited);
+            for (DockerExecInstance child : exited) {
+                child.close();
+            }
+        }
+        childExecs.add(exec);
     }
 
     private void closeChildren() {
-        for (DockerExecInstance exec : childExecs) {
+        // execs added concurrently are kept for the next call
+        List<DockerExecInstance> children = new ArrayList<>(childExecs);
+        for (DockerExecInstance exec : children) {
             try {
                 exec.close();
             } catch (Exception e) {
                 LOGGER.warn("Error while closing exec instance", e);
             }
         }
-        childExecs.clear();
+        childExecs.removeAll(children);
     }
 
     public void stop(int secondsToWaitBeforeKilling) {
-        DOCKER.stopContainerCmd(getId()).withTimeout(secondsToWaitBeforeKilling).exec();
+        cancelHibernation();
+        stopContainer(secondsToWaitBeforeKilling);
         closeChildren();
         storeExitCode();
         autoRemove();
     }
 
     public void stop() {
-        stop(2);
+        stop(DEFAULT_STOP_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Stops the container. Waiting for the grace period is not counted as latency of the daemon, as
+     * servers running as PID 1 without a signal handler use it up on every stop.
+     */
+    private void stopContainer(int secondsToWaitBeforeKilling) {
+        String id = getId();
+        callLimiter.run(
+                "stop container",
+                true,
+                Duration.ofSeconds(secondsToWaitBeforeKilling),
+                () -> DOCKER.stopContainerCmd(id).withTimeout(secondsToWaitBeforeKilling).exec());
+    }
+
+    public CompletableFuture<Void> stopAsync(int secondsToWaitBeforeKilling) {
+        return DockerLifecycleExecutor.runAsync(() -> stop(secondsToWaitBeforeKilling));
+    }
+
+    public CompletableFuture<Void> stopAsync() {
+        return DockerLifecycleExecutor.runAsync(this::stop);
+    }
+
+    public CompletableFuture<Void> killAsync() {
+        return DockerLifecycleExecutor.runAsync(this::kill);
     }
 
     public void kill() {
-        DOCKER.killContainerCmd(getId()).exec();
+        cancelHibernation();
+        String id = getId();
+        callLimiter.run("kill container", true, () -> DOCKER.killContainerCmd(id).exec());
         closeChildren();
         storeExitCode();
         autoRemove();
@@ -214,47 +434,438 @@ public abstract class DockerTlsInstance {
     @SuppressWarnings("squid:S2142") // sonarlint: "InterruptedException" should not be ignored
     // we rethrow the interrupted exception a bit later
     public void close() {
+        cancelHibernation();
         closeChildren();
+        closeOutputHandler();
         if (autoRemove) {
             try {
                 String id = getId();
                 if (id != null) {
-                    DOCKER.killContainerCmd(id).exec();
+                    callLimiter.run(
+                            "kill container", true, () -> DOCKER.killContainerCmd(id).exec());
                 }
-            } catch (DockerException e) {
+            } catch (DockerException | DockerUnavailableException e) {
                 LOGGER.warn("Failed to kill container on close()");
             }
             try {
                 remove();
-            } catch (DockerException e) {
+            } catch (DockerException | DockerUnavailableException e) {
                 // we did our best
                 LOGGER.warn("Failed to remove container on close()", e);
             }
         }
     }
 
+    public CompletableFuture<Void> closeAsync() {
+        return DockerLifecycleExecutor.runAsync(this::close);
+    }
+
     public void restart() {
-        DOCKER.restartContainerCmd(getId()).exec();
+        restart(DEFAULT_STOP_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * @param secondsToWaitBeforeKilling Grace period of the stop before the container is killed
+     */
+    public void restart(int secondsToWaitBeforeKilling) {
+        cancelHibernation();
+        String id = getId();
+        if (runtimeProfile.isAttachCapture()) {
+            // the attach stream ends with the container, it has to be reopened before the start
+            stopContainer(secondsToWaitBeforeKilling);
+            attachOutput();
+            callLimiter.run("start container", true, () -> DOCKER.startContainerCmd(id).exec());
+        } else {
+            callLimiter.run(
+                    "restart container",
+                    true,
+                    Duration.ofSeconds(secondsToWaitBeforeKilling),
+                    () ->
+                            DOCKER.restartContainerCmd(id)
+                                    .withTimeout(secondsToWaitBeforeKilling)
+                                    .exec());
+        }
+        scheduleHibernation();
+    }
+
+    /**
+     * Marks the container as used. If it is hibernated or being paused, it is unpaused and the time
+     * this took is recorded in the resume statistics.
+     */
+    public void wake() {
+        lastActivityNanos = System.nanoTime();
+        if (!hibernating && !pausing) {
+            return;
+        }
+        synchronized (hibernationLock) {
+            // a pause in flight has finished once the lock is held
+            if (hibernating) {
+                resume();
+            }
+        }
+    }
+
+    /** Unpauses the hibernated container; the caller holds the hibernation lock. */
+    private void resume() {
+        long unpauseStart = System.nanoTime();
+        String id = getId();
+        try {
+            unpauseContainer(id);
+            Duration latency = Duration.ofNanos(System.nanoTime() - unpauseStart);
+            resumeStats.record(latency);
+            Hibernator.instance().getResumeStats().record(latency);
+        } catch (DockerException | DockerUnavailableException e) {
+            LOGGER.debug("Could not unpause container {}", getId(), e);
+        }
+        hibernating = false;
+        lastActivityNanos = System.nanoTime();
+        scheduleHibernation();
+    }
+
+    /**
+     * Wakes the container and keeps it from hibernating until {@link #releaseAwake()} is called,
+     * e.g. while it is tested from outside of the library.
+     */
+    public void holdAwake() {
+        awakeHolds.incrementAndGet();
+        wake();
+    }
+
+    /** Releases a hold of {@link #holdAwake()}; the idle time starts now. */
+    public void releaseAwake() {
+        lastActivityNanos = System.nanoTime();
+        awakeHolds.updateAndGet(holds -> Math.max(0, holds - 1));
+    }
+
+    /**
+     * @return Whether the container is paused because it was idle
+     */
+    public boolean isHibernating() {
+        return hibernating;
+    }
+
+    /**
+     * @return The latencies of unpausing this container
+     */
+    public ResumeStats getResumeStats() {
+        return resumeStats;
+    }
+
+    /** Starts the idle checks of a (re)started container, if its profile hibernates it. */
+    void scheduleHibernation() {
+        Duration idleTime = runtimeProfile.getHibernateAfter();
+        if (idleTime == null) {
+            return;
+        }
+        synchronized (hibernationLock) {
+            lastActivityNanos = System.nanoTime();
+            Hibernator.instance().schedule(this, ++hibernationGeneration, idleTime.toNanos());
+        }
+    }
+
+    /** Stops the idle checks and unpauses the container, as docker cannot stop paused ones. */
+    private void cancelHibernation() {
+        synchronized (hibernationLock) {
+            hibernationGeneration++;
+            Hibernator.instance().cancel(this);
+            if (hibernating) {
+                hibernating = false;
+                String id = getId();
+                try {
+                    unpauseContainer(id);
+                } catch (DockerException | DockerUnavailableException e) {
+                    LOGGER.debug("Could not unpause container {}", getId(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pauses the container if it was idle long enough, otherwise checks again once it could be.
+     * Called by the {@link Hibernator}.
+     */
+    void hibernateIfIdle(long generation) {
+        synchronized (hibernationLock) {
+            String id = getId();
+            if (generation != hibernationGeneration || hibernating || id == null) {
+                return;
+            }
+            // announced before the idle time is read: a concurrent wake() either updated the
+            // activity read below or sees the flag and waits for the pause to finish
+            pausing = true;
+            long lastActivity;
+            try {
+                lastActivity = lastActivityNanos;
+                long idleNanos = runtimeProfile.getHibernateAfter().toNanos();
+                long remaining = lastActivity + idleNanos - System.nanoTime();
+                if (remaining > 0 || awakeHolds.get() > 0) {
+                    Hibernator.instance()
+                            .schedule(this, generation, remaining > 0 ? remaining : idleNanos);
+                    return;
+                }
+                pauseContainer(id);
+                hibernating = true;
+            } catch (DockerException | DockerUnavailableException e) {
+                // e.g. the container exited; the next start schedules new checks
+                LOGGER.debug("Could not pause container {}", id, e);
+                return;
+            } finally {
+                pausing = false;
+            }
+            if (lastActivityNanos != lastActivity || awakeHolds.get() > 0) {
+                LOGGER.debug("Container {} was used while it was paused", id);
+                resume();
+            } else {
+                LOGGER.debug("Hibernated idle container {}", id);
+            }
+        }
+    }
+
+    /**
+     * @param id The container to freeze
+     */
+    protected void pauseContainer(String id) {
+        callLimiter.run("pause container", true, () -> DOCKER.pauseContainerCmd(id).exec());
+    }
+
+    /**
+     * @param id The container to thaw
+     */
+    protected void unpauseContainer(String id) {
+        callLimiter.run("unpause container", true, () -> DOCKER.unpauseContainerCmd(id).exec());
+    }
+
+    /**
+     * @param id The container
+     * @return The result of inspecting the container, retried if the daemon is overloaded
+     */
+    protected InspectContainerResponse inspectContainer(String id) {
+        return callLimiter.call(
+                "inspect container", true, () -> DOCKER.inspectContainerCmd(id).exec());
     }
 
     public String getId() {
         return containerId;
     }
 
+    public boolean isRunning() {
+        String id = getId();
+        if (id == null) {
+            return false;
+        }
+        TrackedState trackedState = getSynchronizedState();
+        if (trackedState != null) {
+            return trackedState.isRunning();
+        }
+        ContainerState state = inspectContainer(id).getState();
+        return Boolean.TRUE.equals(state.getRunning());
+    }
+
+    public boolean isOomKilled() {
+        TrackedState trackedState = getSynchronizedState();
+        if (trackedState != null) {
+            return trackedState.isOomKilled();
+        }
+        ContainerState state = inspectContainer(getId()).getState();
+        return Boolean.TRUE.equals(state.getOOMKilled());
+    }
+
+    /**
+     * @return The state of the container as tracked via the docker events stream
+     */
+    public TrackedState getTrackedState() {
+        return trackedState;
+    }
+
+    /**
+     * Returns the log lines written since the previous call. Only the logs since the second of the
+     * last returned line are fetched from docker; lines of that second which were already returned
+     * are skipped based on their timestamp. A line the container has not finished yet is returned
+     * by a later call once it is complete, so it is neither split nor skipped.
+     *
+     * @return The new log lines, each terminated by a newline, or "-" if there are none
+     * @throws InterruptedException If interrupted while reading the logs
+     */
     public String getLogs() throws InterruptedException {
-        FrameHandler fh = new FrameHandler();
-        DOCKER.logContainerCmd(getId()).withStdOut(true).withStdErr(true).exec(fh);
+        wake();
+        if (!runtimeProfile.isLogReadable()) {
+            return getAttachedLogs();
+        }
+        FrameHandler fh = new FrameHandler(FrameHandler.getDefaultCapacity(), true);
+        LogContainerCmd logCmd =
+                STREAMING_DOCKER
+                        .logContainerCmd(getId())
+                        .withStdOut(true)
+                        .withStdErr(true)
+                        .withTimestamps(true);
+        if (logReadInstant != null) {
+            logCmd.withSince((int) logReadInstant.getEpochSecond());
+        }
+        callLimiter.run("read logs", true, () -> logCmd.exec(fh));
         fh.awaitCompletion();
-        String[] lines = fh.getLines();
-        // TODO optimize the following into the frame handler itself
-        String logs =
-                Arrays.stream(lines)
-                        .skip(logReadOffset)
-                        .map(s -> s.concat("\n"))
-                        .reduce(String::concat)
-                        .orElse("-");
-        logReadOffset = lines.length;
-        return logs;
+        StringBuilder logs = new StringBuilder();
+        Instant previousInstant = logReadInstant;
+        int previousCount = logReadInstantCount;
+        int seenAtPreviousInstant = 0;
+        boolean skipEntry = false;
+        List<String> lines = fh.readLines(0).getLines();
+        if (!lines.isEmpty() && !fh.isLastLineTerminated() && isRunning()) {
+            // the line is fetched again with its rest by the next call
+            lines = lines.subList(0, lines.size() - 1);
+        }
+        for (String line : lines) {
+            int separator = line.indexOf(' ');
+            Instant timestamp;
+            try {
+                timestamp = Instant.parse(line.substring(0, Math.max(separator, 0)));
+            } catch (DateTimeParseException e) {
+                // continuation of a log entry that contained a carriage return
+                if (!skipEntry) {
+                    logs.append(line).append('\n');
+                }
+                continue;
+            }
+            if (previousInstant != null) {
+                int comparison = timestamp.compareTo(previousInstant);
+                skipEntry =
+                        comparison < 0
+                                || (comparison == 0 && ++seenAtPreviousInstant <= previousCount);
+                if (skipEntry) {
+                    continue;
+                }
+            }
+            if (timestamp.equals(logReadInstant)) {
+                logReadInstantCount++;
+            } else {
+                logReadInstant = timestamp;
+                logReadInstantCount = 1;
+            }
+            logs.append(line, separator + 1, line.length()).append('\n');
+        }
+        return logs.length() > 0 ? logs.toString() : "-";
+    }
+
+    /**
+     * @return The lines of the attach stream written since the previous call, or "-"
+     */
+    private synchronized String getAttachedLogs() {
+        if (!runtimeProfile.isAttachCapture() || outputHandler == null) {
+            throw new IllegalStateException(
+                    "The output of the container is neither logged nor captured");
+        }
+        FrameHandler.LineChunk chunk = outputHandler.readLines(attachLogCursor);
+        attachLogCursor = chunk.getNextCursor();
+        StringBuilder logs = new StringBuilder();
+        for (String line : chunk.getLines()) {
+            logs.append(line).append('\n');
+        }
+        return logs.length() > 0 ? logs.toString() : "-";
+    }
+
+    /** Attaches to the output of the container, which has to happen before it is started. */
+    private synchronized void attachOutput() {
+        closeOutputHandler();
+        FrameHandler handler = new FrameHandler();
+        AttachContainerCmd attachCmd =
+                STREAMING_DOCKER
+                        .attachContainerCmd(getId())
+                        .withStdOut(true)
+                        .withStdErr(true)
+                        .withFollowStream(true);
+        // only opening the stream counts as call, reading it does not hold a permit
+        callLimiter.run("attach container", true, () -> attachCmd.exec(handler));
+        try {
+            if (!handler.awaitStarted(ATTACH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Attaching to container {} timed out", getId());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        outputHandler = handler;
+        attachLogCursor = 0;
+    }
+
+    private synchronized FrameHandler getOutputHandler() {
+        if (!runtimeProfile.isLogReadable()) {
+            if (!runtimeProfile.isAttachCapture() || outputHandler == null) {
+                throw new IllegalStateException(
+                        "The output of the container is neither logged nor captured");
+            }
+            // the lines of the ended stream stay readable until the next start
+            return outputHandler;
+        }
+        if (outputHandler == null || outputHandler.getCompletion().isDone()) {
+            // the previous stream ended with the container, restarts need a new one
+            FrameHandler handler = new FrameHandler();
+            LogContainerCmd logCmd =
+                    STREAMING_DOCKER
+                            .logContainerCmd(getId())
+                            .withStdOut(true)
+                            .withStdErr(true)
+                            .withFollowStream(true);
+            callLimiter.run("follow logs", true, () -> logCmd.exec(handler));
+            outputHandler = handler;
+        }
+        return outputHandler;
+    }
+
+    private synchronized void closeOutputHandler() {
+        if (outputHandler != null) {
+            try {
+                outputHandler.close();
+            } catch (IOException e) {
+                LOGGER.debug("Could not close output stream", e);
+            }
+            outputHandler = null;
+        }
+    }
+
+    /**
+     * Waits for a line of the container output matching the predicate. The output since the start
+     * of the container is considered, so lines written before this call are found as well.
+     *
+     * @param predicate The condition the line must fulfill
+     * @return A future completing with the first matching line. It fails if the container stops
+     *     without writing a matching line.
+     * @see FrameHandler#awaitLineAsync(Predicate)
+     */
+    public CompletableFuture<String> awaitLineAsync(Predicate<String> predicate) {
+        return getOutputHandler().awaitLineAsync(predicate);
+    }
+
+    /**
+     * @param pattern The pattern to search for (see {@link java.util.regex.Matcher#find()})
+     * @return A future completing with the first output line containing the pattern
+     * @see #awaitLineAsync(Predicate)
+     */
+    public CompletableFuture<String> awaitOutputAsync(Pattern pattern) {
+        return getOutputHandler().awaitOutputAsync(pattern);
+    }
+
+    /**
+     * @see #awaitLineAsync(Predicate)
+     * @see FrameHandler#awaitLine(Predicate)
+     */
+    public String awaitLine(Predicate<String> predicate) throws InterruptedException {
+        return getOutputHandler().awaitLine(predicate);
+    }
+
+    /**
+     * @see #awaitLineAsync(Predicate)
+     * @see FrameHandler#awaitLine(Predicate, Duration)
+     */
+    public String awaitLine(Predicate<String> predicate, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        return getOutputHandler().awaitLine(predicate, timeout);
+    }
+
+    /**
+     * @see #awaitOutputAsync(Pattern)
+     * @see FrameHandler#awaitOutput(Pattern, Duration)
+     */
+    public String awaitOutput(Pattern pattern, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        return getOutputHandler().awaitOutput(pattern, timeout);
     }
 
     @SuppressWarnings(
@@ -264,9 +875,7 @@ public abstract class DockerTlsInstance {
     // new value
     public long getExitCode() {
         if (!exitCode.isPresent()) {
-            // check if still running
-            ContainerState state = DOCKER.inspectContainerCmd(getId()).exec().getState();
-            if (Boolean.TRUE.equals(state.getRunning())) {
+            if (isRunning()) {
                 throw new IllegalStateException("Container is still running");
             } else {
                 storeExitCode();
@@ -276,6 +885,34 @@ public abstract class DockerTlsInstance {
         return exitCode.get();
     }
 
+    /**
+     * Reads a file from the container.
+     *
+     * @param containerPath Absolute path of a regular file in the container
+     * @return The content of the file
+     * @throws IOException If the file could not be read
+     */
+    public byte[] readFile(String containerPath) throws IOException {
+        String id = getId();
+        try (InputStream tar =
+                callLimiter.call(
+                        "copy file",
+                        true,
+                        () -> DOCKER.copyArchiveFromContainerCmd(id, containerPath).exec())) {
+            // the archive holds a single entry; its size is stored as octal number in the header
+            byte[] header = tar.readNBytes(TAR_BLOCK_SIZE);
+            if (header.length < TAR_BLOCK_SIZE) {
+                throw new IOException("Empty archive returned for " + containerPath);
+            }
+            String size = new String(header, 124, 12, StandardCharsets.US_ASCII);
+            try {
+                return tar.readNBytes((int) Long.parseLong(size.replace("\0", "").trim(), 8));
+            } catch (NumberFormatException e) {
+                throw new IOException("Invalid archive returned for " + containerPath, e);
+            }
+        }
+    }
+
     public String getContainerName() {
         return containerName;
     }
@@ -284,6 +921,37 @@ public abstract class DockerTlsInstance {
         return containerExposedPorts;
     }
 
+    /**
+     * @return The daemon the container is created on
+     */
+    public DockerEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return The CPUs and limits assigned to the container, null if no {@link PlacementScheduler}
+     *     is used or no container was created yet
+     */
+    public Placement getPlacement() {
+        return placement;
+    }
+
+    public RuntimeProfile getRuntimeProfile() {
+        return runtimeProfile;
+    }
+
+    public InstanceNetwork getNetwork() {
+        return network;
+    }
+
+    /**
+     * @return The DNS name of the container on a session network: the container name if set, a
+     *     generated alias otherwise
+     */
+    public String getNetworkAlias() {
+        return networkAlias;
+    }
+
     public String[] getCmd() {
         return cmd;
     }
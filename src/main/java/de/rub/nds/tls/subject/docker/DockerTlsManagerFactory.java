@@ -18,6 +18,8 @@ import de.rub.nds.tls.subject.TlsImplementationType;
 import de.rub.nds.tls.subject.constants.TlsImageLabels;
 import de.rub.nds.tls.subject.constants.TransportType;
 import de.rub.nds.tls.subject.docker.build.DockerBuilder;
+import de.rub.nds.tls.subject.docker.placement.PlacementScheduler;
+import de.rub.nds.tls.subject.docker.placement.ResourceRequest;
 import de.rub.nds.tls.subject.exceptions.DefaultProfileNotFoundException;
 import de.rub.nds.tls.subject.exceptions.PropertyNotFoundException;
 import de.rub.nds.tls.subject.exceptions.TlsVersionNotFoundException;
@@ -28,11 +30,7 @@ import de.rub.nds.tls.subject.properties.PropertyManager;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.UnaryOperator;
 import org.apache.logging.log4j.LogManager;
@@ -52,9 +50,6 @@ public class DockerTlsManagerFactory {
         throw new UnsupportedOperationException("Utility class");
     }
 
-    private static final com.github.dockerjava.api.DockerClient DOCKER =
-            DockerClientManager.getDockerClient();
-
     private static final int DEFAULT_PORT = 4433;
 
     @SuppressWarnings("unchecked")
@@ -71,6 +66,12 @@ public class DockerTlsManagerFactory {
         protected String hostname = null;
         protected int port = DEFAULT_PORT;
         protected UnaryOperator<HostConfig> hostConfigHook;
+        protected InstanceNetwork network = InstanceNetwork.defaultBridge();
+        protected DockerEndpoint endpoint;
+        protected DockerEndpointSet endpoints;
+        protected PlacementScheduler placementScheduler;
+        protected ResourceRequest resourceRequest;
+        protected RuntimeProfile runtimeProfile = RuntimeProfile.standard();
         // remaining shared params
         protected String[] cmd = null;
         protected List<ExposedPort> containerExposedPorts = null;
@@ -163,6 +164,81 @@ public class DockerTlsManagerFactory {
             return (T) this;
         }
 
+        /**
+         * @param value The network to attach the container to, e.g. {@link
+         *     InstanceNetwork#session(DockerSessionNetwork)} to address servers by name without
+         *     publishing their ports
+         */
+        public T network(InstanceNetwork value) {
+            network = value;
+            return (T) this;
+        }
+
+        /**
+         * @param value The daemon to create the container on, null to use the endpoints or the
+         *     local daemon
+         */
+        public T endpoint(DockerEndpoint value) {
+            endpoint = value;
+            return (T) this;
+        }
+
+        /**
+         * Distributes the containers built by this builder over several daemons; the daemon is
+         * picked by the strategy of the set on every build. Ignored if an endpoint is set or the
+         * network is a session network, which only exists on the daemon it was created on.
+         *
+         * @param value The daemons, null to use the local daemon
+         */
+        public T endpoints(DockerEndpointSet value) {
+            endpoints = value;
+            return (T) this;
+        }
+
+        /**
+         * @return The daemon the next container is created on
+         */
+        protected DockerEndpoint resolveEndpoint() {
+            if (network.getType() == InstanceNetwork.Type.SESSION) {
+                return network.getSessionNetwork().getEndpoint();
+            }
+            if (endpoint != null) {
+                return endpoint;
+            }
+            if (endpoints != null) {
+                return endpoints.select(
+                        DockerBuilder.getImageLabels(
+                                profile.getType(),
+                                version,
+                                profile.getRole(),
+                                additionalBuildFlags));
+            }
+            return DockerEndpoint.local();
+        }
+
+        /**
+         * Pins the container to CPUs assigned by the scheduler and applies the limits of the
+         * request. The assignment is made when the container is created and released when it is
+         * removed; the hostConfigHook is applied afterwards and may override it.
+         *
+         * @param scheduler The scheduler assigning the CPUs, null to not pin the container
+         * @param request The CPUs and memory of the container
+         */
+        public T placement(PlacementScheduler scheduler, ResourceRequest request) {
+            placementScheduler = scheduler;
+            resourceRequest = request;
+            return (T) this;
+        }
+
+        /**
+         * @param value Logging, TTY, root filesystem and limits of the container, e.g. {@link
+         *     RuntimeProfile#benchmark()} for load tests
+         */
+        public T runtimeProfile(RuntimeProfile value) {
+            runtimeProfile = value;
+            return (T) this;
+        }
+
         public T hostConfigHook(UnaryOperator<HostConfig> value) {
             hostConfigHook = value;
             return (T) this;
@@ -180,17 +256,11 @@ public class DockerTlsManagerFactory {
 
         public void pull(ConnectionRole connectionRole) {
             // only pull if image does not exist
-            Map<String, String> labels = new HashMap<>();
-            labels.put(
-                    TlsImageLabels.IMPLEMENTATION.getLabelName(),
-                    profile.getType().name().toLowerCase());
-            labels.put(TlsImageLabels.VERSION.getLabelName(), version);
-            labels.put(
-                    TlsImageLabels.CONNECTION_ROLE.getLabelName(),
-                    connectionRole.toString().toLowerCase());
-            Optional<Image> image =
-                    DOCKER.listImagesCmd().withLabelFilter(labels).exec().stream().findFirst();
-            if (image.isPresent()) {
+            Image image =
+                    resolveEndpoint()
+                            .getImageCatalog()
+                            .getImage(profile.getType(), version, connectionRole, null, false);
+            if (image != null) {
                 LOGGER.warn("Not pulling image, image already exists!");
                 return;
             }
@@ -243,6 +313,7 @@ public class DockerTlsManagerFactory {
             extends TlsInstanceBuilder<TlsClientInstanceBuilder> {
 
         protected boolean connectOnStartup = true;
+        protected boolean driverChannel = false;
 
         public TlsClientInstanceBuilder(
                 TlsImplementationType type, String version, TransportType transportType) {
@@ -273,6 +344,12 @@ public class DockerTlsManagerFactory {
                     parallelize,
                     insecureConnection,
                     connectOnStartup,
+                    driverChannel,
+                    resolveEndpoint(),
+                    network,
+                    placementScheduler,
+                    resourceRequest,
+                    runtimeProfile,
                     hostConfigHook,
                     cmd,
                     containerExposedPorts);
@@ -282,11 +359,23 @@ public class DockerTlsManagerFactory {
             connectOnStartup = value;
             return this;
         }
+
+        /**
+         * @param value Whether to open the driver channel when starting the client, so {@link
+         *     DockerTlsClientInstance#connectViaDriver(String, int, java.time.Duration)} runs
+         *     without Docker API calls
+         */
+        public TlsClientInstanceBuilder driverChannel(boolean value) {
+            driverChannel = value;
+            return this;
+        }
     }
 
     public static class TlsServerInstanceBuilder
             extends TlsInstanceBuilder<TlsServerInstanceBuilder> {
 
+        protected HostPortAllocator hostPortAllocator;
+
         public TlsServerInstanceBuilder(
                 TlsImplementationType type, String version, TransportType transportType) {
             super(type, version, ConnectionRole.SERVER, transportType);
@@ -315,10 +404,26 @@ public class DockerTlsManagerFactory {
                     additionalParameters,
                     parallelize,
                     insecureConnection,
+                    hostPortAllocator,
+                    resolveEndpoint(),
+                    network,
+                    placementScheduler,
+                    resourceRequest,
+                    runtimeProfile,
                     hostConfigHook,
                     cmd,
                     containerExposedPorts);
         }
+
+        /**
+         * @param value Allocator reserving the host address and port the server is published on;
+         *     null to let docker pick a port, which has to be looked up after each start
+         * @see HostPortAllocator#instance()
+         */
+        public TlsServerInstanceBuilder hostPortAllocator(HostPortAllocator value) {
+            hostPortAllocator = value;
+            return this;
+        }
     }
 
     public static TlsClientInstanceBuilder getTlsClientBuilder(
@@ -384,28 +489,55 @@ public class DockerTlsManagerFactory {
 
     public static List<String> getAvailableVersions(
             ConnectionRole role, TlsImplementationType type) {
-        List<String> versionList = new LinkedList<>();
-        Map<String, String> labels = new HashMap<>();
-        labels.put(TlsImageLabels.IMPLEMENTATION.getLabelName(), type.name().toLowerCase());
-        labels.put(TlsImageLabels.CONNECTION_ROLE.getLabelName(), role.toString().toLowerCase());
-        List<Image> serverImageList =
-                DOCKER.listImagesCmd().withLabelFilter(labels).withDanglingFilter(false).exec();
-        for (Image image : serverImageList) {
-            if (image.getLabels() != null) {
-                String version = image.getLabels().get(TlsImageLabels.VERSION.getLabelName());
-                if (version != null) {
-                    versionList.add(version);
-                }
-            }
-        }
-        return versionList;
+        return getAvailableVersions(DockerEndpoint.local(), role, type);
+    }
+
+    /**
+     * @param endpoint The daemon to look up the images on
+     * @param role The role of the images
+     * @param type The implementation of the images
+     * @return The versions of the implementation available on the daemon
+     */
+    public static List<String> getAvailableVersions(
+            DockerEndpoint endpoint, ConnectionRole role, TlsImplementationType type) {
+        return endpoint.getImageCatalog().getVersions(role, type);
     }
 
     public static List<Image> getAllImages() {
-        return DOCKER.listImagesCmd()
-                .withLabelFilter(TlsImageLabels.IMPLEMENTATION.getLabelName())
-                .withDanglingFilter(false)
-                .exec();
+        return getAllImages(DockerEndpoint.local());
+    }
+
+    /**
+     * @param endpoint The daemon to look up the images on
+     * @return The images of the library on the daemon
+     */
+    public static List<Image> getAllImages(DockerEndpoint endpoint) {
+        return endpoint.getImageCatalog().getImages();
+    }
+
+    public static Image getMatchingImage(
+            TlsImplementationType type,
+            String version,
+            String additionalBuildFlags,
+            ConnectionRole role) {
+        return getMatchingImage(DockerEndpoint.local(), type, version, additionalBuildFlags, role);
+    }
+
+    /**
+     * @param endpoint The daemon to look up the image on; image ids differ between daemons
+     * @param type The implementation of the image
+     * @param version The version of the implementation
+     * @param additionalBuildFlags The build flags of the image
+     * @param role The role of the image
+     * @return The matching image on the daemon, or null if there is none
+     */
+    public static Image getMatchingImage(
+            DockerEndpoint endpoint,
+            TlsImplementationType type,
+            String version,
+            String additionalBuildFlags,
+            ConnectionRole role) {
+        return endpoint.getImageCatalog().getImage(type, version, role, additionalBuildFlags, true);
     }
 
     public static Image getMatchingImage(
@@ -0,0 +1,125 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import com.github.dockerjava.api.exception.DockerException;
+import de.rub.nds.tls.subject.docker.DockerTlsManagerFactory.TlsClientInstanceBuilder;
+import de.rub.nds.tls.subject.docker.DockerTlsManagerFactory.TlsServerInstanceBuilder;
+import java.util.concurrent.CompletableFuture;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A server and a client sharing the network namespace of the server container. The client connects
+ * to the server over loopback, so handshake timings contain no bridge or NAT overhead.
+ */
+public class DockerTlsPair implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String LOOPBACK = "127.0.0.1";
+
+    private final DockerTlsServerInstance server;
+    private final DockerTlsClientInstance client;
+
+    private DockerTlsPair(DockerTlsServerInstance server, DockerTlsClientInstance client) {
+        this.server = server;
+        this.client = client;
+    }
+
+    /**
+     * Starts the server and then the client in the network namespace of the server. The client
+     * builder is pointed at the daemon and the listen port of the server on 127.0.0.1 and switched
+     * to {@code connectOnStartup(false)}, as the server may not be ready yet; use {@link
+     * #connect()} once it is.
+     *
+     * @param serverBuilder Builder of the server
+     * @param clientBuilder Builder of the client; its endpoint, network, host and port are
+     *     overwritten
+     * @return The started pair
+     * @throws DockerException If a container could not be created or started
+     * @throws InterruptedException If interrupted while building the containers
+     */
+    public static DockerTlsPair launch(
+            TlsServerInstanceBuilder serverBuilder, TlsClientInstanceBuilder clientBuilder)
+            throws DockerException, InterruptedException {
+        DockerTlsServerInstance server = serverBuilder.build();
+        try {
+            server.start();
+            DockerTlsClientInstance client =
+                    clientBuilder
+                            .endpoint(server.getEndpoint())
+                            .network(InstanceNetwork.container(server.getId()))
+                            .ip(LOOPBACK)
+                            .hostname(null)
+                            .port(server.getListenPort())
+                            .connectOnStartup(false)
+                            .build();
+            try {
+                client.start();
+            } catch (RuntimeException e) {
+                destroy(client);
+                throw e;
+            }
+            return new DockerTlsPair(server, client);
+        } catch (RuntimeException | InterruptedException e) {
+            destroy(server);
+            throw e;
+        }
+    }
+
+    /**
+     * Connects the client to the server over loopback.
+     *
+     * @return The exec running the client
+     */
+    public DockerExecInstance connect() {
+        return client.connect(LOOPBACK, server.getListenPort());
+    }
+
+    public CompletableFuture<DockerExecInstance> connectAsync() {
+        return DockerLifecycleExecutor.supplyAsync(this::connect);
+    }
+
+    public DockerTlsServerInstance getServer() {
+        return server;
+    }
+
+    public DockerTlsClientInstance getClient() {
+        return client;
+    }
+
+    /**
+     * @return The address the client connects to
+     */
+    public String getHost() {
+        return LOOPBACK;
+    }
+
+    /**
+     * @return The port the client connects to
+     */
+    public int getPort() {
+        return server.getListenPort();
+    }
+
+    private static void destroy(DockerTlsInstance instance) {
+        try {
+            instance.close();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not destroy container {}", instance.getId(), e);
+        }
+    }
+
+    /** Destroys the client and then the server, whose namespace the client uses. */
+    @Override
+    public void close() {
+        destroy(client);
+        destroy(server);
+    }
+}
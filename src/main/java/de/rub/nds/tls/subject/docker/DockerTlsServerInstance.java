@@ -10,6 +10,8 @@ package de.rub.nds.tls.subject.docker;
 
 import com.github.dockerjava.api.command.CreateContainerCmd;
 import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.exception.DockerException;
+import com.github.dockerjava.api.model.ContainerNetwork;
 import com.github.dockerjava.api.model.ExposedPort;
 import com.github.dockerjava.api.model.HostConfig;
 import com.github.dockerjava.api.model.Image;
@@ -18,19 +20,45 @@ import com.github.dockerjava.api.model.PortBinding;
 import com.github.dockerjava.api.model.Ports.Binding;
 import de.rub.nds.tls.subject.ConnectionRole;
 import de.rub.nds.tls.subject.HostInfo;
+import de.rub.nds.tls.subject.constants.TransportType;
+import de.rub.nds.tls.subject.docker.placement.PlacementScheduler;
+import de.rub.nds.tls.subject.docker.placement.ResourceRequest;
+import de.rub.nds.tls.subject.exceptions.ImplementationDidNotStartException;
 import de.rub.nds.tls.subject.params.ParameterProfile;
+import de.rub.nds.tls.subject.probe.ProbeMode;
+import de.rub.nds.tls.subject.probe.ProbeSchedule;
+import de.rub.nds.tls.subject.probe.ReadinessProber;
+import de.rub.nds.tls.subject.probe.StartupProfile;
 import de.rub.nds.tls.subject.properties.ImageProperties;
+import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.function.UnaryOperator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 public class DockerTlsServerInstance extends DockerTlsInstance {
 
     private int port;
+    private static final Logger LOGGER = LogManager.getLogger();
+
     private final HostInfo hostInfo;
     private final String additionalParameters;
     private final boolean parallelize;
     private final boolean insecureConnection;
     private ExposedPort exposedImplementationPort;
+    private final HostPortAllocator portAllocator;
+    private volatile HostPortAllocator.Allocation hostPortAllocation;
+    // address of the container on its session network, looked up once per start
+    private volatile String sessionNetworkAddress;
+    // start time of the container, until the readiness of this start was recorded
+    private volatile long startedAtNanos = 0;
+
+    private static final int MAX_PORT_ATTEMPTS = 3;
+    // docker publishes ports on all interfaces unless a host address is bound
+    private static final String DEFAULT_HOST = "127.0.0.1";
 
     public DockerTlsServerInstance(
             Image image,
@@ -44,6 +72,12 @@ public class DockerTlsServerInstance extends DockerTlsInstance {
             String additionalParameters,
             boolean parallelize,
             boolean insecureConnection,
+            HostPortAllocator portAllocator,
+            DockerEndpoint endpoint,
+            InstanceNetwork network,
+            PlacementScheduler placementScheduler,
+            ResourceRequest resourceRequest,
+            RuntimeProfile runtimeProfile,
             UnaryOperator<HostConfig> hostConfigHook,
             String[] cmd,
             List<ExposedPort> exposedPorts) {
@@ -56,26 +90,44 @@ public class DockerTlsServerInstance extends DockerTlsInstance {
                 additionalBuildFlags,
                 ConnectionRole.SERVER,
                 autoRemove,
+                endpoint,
+                network,
+                placementScheduler,
+                resourceRequest,
+                runtimeProfile,
                 hostConfigHook,
                 cmd,
                 exposedPorts);
-        this.port = hostInfo.getPort(); // fill with default port
         this.hostInfo = hostInfo;
+        this.port = getListenPort(); // fill with default port
         this.additionalParameters = additionalParameters;
         this.parallelize = parallelize;
         this.insecureConnection = insecureConnection;
+        this.portAllocator = portAllocator;
     }
 
     @Override
     protected HostConfig prepareHostConfig(HostConfig cfg) {
         super.prepareHostConfig(cfg);
-        if (getContainerExposedPorts() == null) {
+        if (getContainerExposedPorts() == null && network.isPublishingPorts()) {
+            Binding binding = Binding.empty();
+            if (portAllocator != null) {
+                // the port is reserved up front, so it is known without inspecting the container
+                if (hostPortAllocation == null) {
+                    hostPortAllocation = portAllocator.allocate(hostInfo.getType());
+                }
+                binding =
+                        Binding.bindIpAndPort(
+                                hostPortAllocation.getAddress(), hostPortAllocation.getPort());
+                port = hostPortAllocation.getPort();
+            }
             return cfg.withPortBindings(
                     new PortBinding(
-                            Binding.empty(),
-                            new ExposedPort(
-                                    imageProperties.getInternalPort(),
-                                    hostInfo.getType().toInternetProtocol())));
+                            binding,
+                            getImageTemplate()
+                                    .getExposedPort(
+                                            imageProperties.getInternalPort(),
+                                            hostInfo.getType().toInternetProtocol())));
         }
         return cfg;
     }
@@ -90,22 +142,26 @@ public class DockerTlsServerInstance extends DockerTlsInstance {
             host = hostInfo.getHostname();
         }
 
-        if (getContainerExposedPorts() == null) {
+        if (getContainerExposedPorts() == null && network.isPublishingPorts()) {
             // only set default port mapping if not managed externally
             exposedImplementationPort =
-                    new ExposedPort(hostInfo.getPort(), hostInfo.getType().toInternetProtocol());
+                    getImageTemplate()
+                            .getExposedPort(
+                                    hostInfo.getPort(), hostInfo.getType().toInternetProtocol());
             cmd.withExposedPorts(exposedImplementationPort);
         }
 
         if (getCmd() == null) {
             String[] additionalCmds =
-                    parameterProfile.toParameters(
-                            host,
-                            hostInfo.getPort(),
-                            imageProperties,
-                            additionalParameters,
-                            parallelize,
-                            insecureConnection);
+                    getImageTemplate()
+                            .getParameters(
+                                    parameterProfile,
+                                    imageProperties,
+                                    host,
+                                    getListenPort(),
+                                    additionalParameters,
+                                    parallelize,
+                                    insecureConnection);
             cmd.withCmd(additionalCmds);
         }
 
@@ -114,13 +170,82 @@ public class DockerTlsServerInstance extends DockerTlsInstance {
 
     @Override
     public void start() {
-        super.start();
-        updateInstancePort();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                super.start();
+                break;
+            } catch (DockerException e) {
+                if (hostPortAllocation == null
+                        || attempt >= MAX_PORT_ATTEMPTS
+                        || !isPortConflict(e)) {
+                    throw e;
+                }
+                // the port is used outside of the allocator; recreate the container with a new one
+                LOGGER.debug("Host port {} is in use, retrying with another", hostPortAllocation);
+                remove();
+            }
+        }
+        startedAtNanos = System.nanoTime();
+        sessionNetworkAddress = null;
+        if (hostPortAllocation == null && network.isPublishingPorts()) {
+            updateInstancePort();
+        }
+    }
+
+    /**
+     * @return The port the server listens on inside the container, which is also the port clients
+     *     sharing its network namespace connect to; on a session network the internal port of the
+     *     image, so all servers can be reached on the same port by name
+     */
+    public int getListenPort() {
+        if (network.getType() == InstanceNetwork.Type.SESSION
+                && imageProperties.getInternalPort() != null) {
+            return imageProperties.getInternalPort();
+        }
+        return hostInfo.getPort();
+    }
+
+    private static boolean isPortConflict(DockerException e) {
+        String message = e.getMessage();
+        return message != null
+                && (message.contains("port is already allocated")
+                        || message.contains("address already in use"));
+    }
+
+    /** Removes the container and returns its host port to the allocator. */
+    @Override
+    public void remove() {
+        super.remove();
+        HostPortAllocator.Allocation allocation = hostPortAllocation;
+        if (allocation != null) {
+            hostPortAllocation = null;
+            portAllocator.release(allocation);
+        }
+    }
+
+    @Override
+    public CompletableFuture<DockerTlsServerInstance> startAsync() {
+        return DockerLifecycleExecutor.supplyAsync(
+                () -> {
+                    start();
+                    return this;
+                });
+    }
+
+    @Override
+    public void restart() {
+        super.restart();
+        startedAtNanos = System.nanoTime();
+        sessionNetworkAddress = null;
+        if (hostPortAllocation == null && network.isPublishingPorts()) {
+            // docker may assign a different host port when restarting
+            updateInstancePort();
+        }
     }
 
     /** Update port to match actually exposed port. */
     public void updateInstancePort() {
-        InspectContainerResponse containerInfo = DOCKER.inspectContainerCmd(getId()).exec();
+        InspectContainerResponse containerInfo = inspectContainer(getId());
         if (containerInfo == null) {
             throw new IllegalStateException("Could not find container with ID:" + getId());
         }
@@ -142,10 +267,140 @@ public class DockerTlsServerInstance extends DockerTlsInstance {
         }
     }
 
+    /**
+     * Waits until the server is ready. TCP servers have to answer a TLS handshake, DTLS servers a
+     * ClientHello.
+     *
+     * @param timeout Maximum time to wait
+     * @throws ImplementationDidNotStartException If the server is not ready in time
+     */
+    public void waitUntilReady(Duration timeout) {
+        waitUntilReady(ProbeMode.HANDSHAKE, timeout);
+    }
+
+    /**
+     * @param mode What a TCP probe has to achieve
+     * @param timeout Maximum time to wait
+     * @throws ImplementationDidNotStartException If the server is not ready in time
+     * @see #waitUntilReadyAsync(ProbeMode, Duration)
+     */
+    public void waitUntilReady(ProbeMode mode, Duration timeout) {
+        try {
+            waitUntilReadyAsync(mode, timeout).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImplementationDidNotStartException("Interrupted while waiting for Server", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ImplementationDidNotStartException) {
+                throw (ImplementationDidNotStartException) e.getCause();
+            }
+            throw new ImplementationDidNotStartException("Could not start Server", e.getCause());
+        }
+    }
+
+    /**
+     * Probes the server using the shared {@link ReadinessProber}. If the probe was submitted right
+     * after the last start, the time until the server is ready is recorded in the {@link
+     * StartupProfile} of the image, whose tuned schedule is used for later starts of the same
+     * image.
+     *
+     * @param mode What a TCP probe has to achieve
+     * @param timeout Maximum time to wait
+     * @return A future completing once the server is ready
+     */
+    public CompletableFuture<DockerTlsServerInstance> waitUntilReadyAsync(
+            ProbeMode mode, Duration timeout) {
+        InetSocketAddress address;
+        try {
+            wake();
+            address = new InetSocketAddress(getHost(), port);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(
+                    new ImplementationDidNotStartException("Could not probe Server", e));
+        }
+        StartupProfile profile = StartupProfile.forImage(image.getId());
+        long startedAt = startedAtNanos;
+        ProbeSchedule fallback =
+                hostInfo.getType() == TransportType.UDP
+                        ? ProbeSchedule.DATAGRAM_DEFAULT
+                        : ProbeSchedule.DEFAULT;
+        ProbeSchedule schedule = profile.getSchedule(fallback, timeout);
+        Duration elapsed =
+                startedAt != 0 ? Duration.ofNanos(System.nanoTime() - startedAt) : Duration.ZERO;
+        if (startedAt != 0) {
+            // the learned start delay is relative to the start of the container
+            Duration remaining = schedule.getStartDelay().minus(elapsed);
+            schedule = schedule.withStartDelay(remaining.isNegative() ? Duration.ZERO : remaining);
+        } else {
+            schedule = schedule.withStartDelay(Duration.ZERO);
+        }
+        return ReadinessProber.instance()
+                .probe(
+                        address,
+                        hostInfo.getType(),
+                        mode,
+                        endpoint.getHandshakeTrust().getSslContext(),
+                        timeout,
+                        schedule)
+                .thenApply(
+                        ready -> {
+                            if (startedAt != 0 && startedAtNanos == startedAt) {
+                                startedAtNanos = 0;
+                                // a probe submitted late says when it was asked, not when the
+                                // server became ready
+                                profile.record(
+                                        elapsed, Duration.ofNanos(System.nanoTime() - startedAt));
+                            }
+                            return this;
+                        });
+    }
+
     public int getPort() {
         return port;
     }
 
+    /**
+     * @return The address the server is reachable on from the docker host: its address on the
+     *     session network, since its network alias only resolves inside that network; the published
+     *     host of a remote endpoint unless the HostInfo names a host; the allocated address if a
+     *     {@link HostPortAllocator} is used; the host of the HostInfo otherwise, or the local
+     *     loopback address if it names none
+     */
+    public String getHost() {
+        if (network.getType() == InstanceNetwork.Type.SESSION) {
+            return getSessionNetworkAddress();
+        }
+        String host = hostInfo.getHostname() == null ? hostInfo.getIp() : hostInfo.getHostname();
+        if (endpoint.getPublishedHost() != null) {
+            // the port is published on the machine of the daemon, whatever address it is bound to
+            return host != null ? host : endpoint.getPublishedHost();
+        }
+        HostPortAllocator.Allocation allocation = hostPortAllocation;
+        if (allocation != null) {
+            return allocation.getAddress();
+        }
+        return host != null ? host : DEFAULT_HOST;
+    }
+
+    private String getSessionNetworkAddress() {
+        String address = sessionNetworkAddress;
+        if (address == null) {
+            String networkName = network.getSessionNetwork().getName();
+            NetworkSettings networkSettings = inspectContainer(getId()).getNetworkSettings();
+            ContainerNetwork containerNetwork =
+                    networkSettings == null ? null : networkSettings.getNetworks().get(networkName);
+            if (containerNetwork == null
+                    || containerNetwork.getIpAddress() == null
+                    || containerNetwork.getIpAddress().isEmpty()) {
+                throw new IllegalStateException(
+                        "Container " + getId() + " has no address on network " + networkName);
+            }
+            address = containerNetwork.getIpAddress();
+            sessionNetworkAddress = address;
+        }
+        return address;
+    }
+
     public HostInfo getHostInfo() {
         return hostInfo;
     }
@@ -0,0 +1,217 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import com.github.dockerjava.api.command.ExecCreateCmd;
+import com.github.dockerjava.api.command.ExecCreateCmdResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A long-lived shell running as exec in a container. Commands are written to the stdin of the
+ * shell; their output is framed by marker lines on stdout, so running a command costs no Docker API
+ * call once the channel is open. The shell runs one command at a time, commands submitted while
+ * another one runs are queued by the shell.
+ *
+ * <p>The container needs a POSIX {@code sh}. Commands get {@code /dev/null} as stdin, stderr is
+ * merged into stdout.
+ */
+public class DriverChannel implements Closeable {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final String[] SHELL = {"sh"};
+
+    private final DockerExecInstance exec;
+    private final Pipe.SinkChannel stdin;
+    // makes the markers unique, so the output of a command cannot end its frame by accident
+    private final String token = UUID.randomUUID().toString();
+    private long nextSequence = 0;
+    private volatile boolean closed = false;
+
+    DriverChannel(DockerExecInstance exec, Pipe.SinkChannel stdin) {
+        this.exec = exec;
+        this.stdin = stdin;
+    }
+
+    /**
+     * Starts a shell in the given container.
+     *
+     * @param endpoint The daemon running the container
+     * @param containerId The running container
+     * @return The open channel
+     */
+    public static DriverChannel open(DockerEndpoint endpoint, String containerId) {
+        Pipe pipe;
+        try {
+            pipe = Pipe.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create stdin pipe", e);
+        }
+        ExecCreateCmd createCmd =
+                endpoint.getDockerClient()
+                        .execCreateCmd(containerId)
+                        .withCmd(SHELL)
+                        .withAttachStdin(true)
+                        .withAttachStdout(true)
+                        .withAttachStderr(true)
+                        .withTty(false)
+                        .withEnv(List.of(DockerSession.current().getExecEnv()));
+        // an exec that was created but never started does no harm, so creating is retried
+        ExecCreateCmdResponse creation =
+                endpoint.getCallLimiter().call("create exec", true, createCmd::exec);
+        DockerExecInstance exec =
+                new DockerExecInstance(
+                        endpoint,
+                        creation,
+                        Channels.newInputStream(pipe.source()),
+                        new FrameHandler());
+        return new DriverChannel(exec, pipe.sink());
+    }
+
+    /**
+     * Sends a command to the shell.
+     *
+     * @param command The program and its arguments; each element is passed as one argument
+     * @return A future completing with the result once the command exited
+     */
+    public synchronized CompletableFuture<DriverResult> submit(String... command) {
+        if (!isOpen()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Driver channel is closed"));
+        }
+        long sequence = nextSequence++;
+        String beginMarker = token + ":" + sequence + ":begin";
+        String endMarker = token + ":" + sequence + ":end";
+        FrameHandler output = exec.frameHandler;
+        long cursor = output.getLineCount();
+        CompletableFuture<String> endLine = output.awaitLineAsync(l -> l.contains(endMarker));
+        long sentAt = System.nanoTime();
+        try {
+            ByteBuffer line =
+                    ByteBuffer.wrap(
+                            toShellLine(beginMarker, endMarker, command)
+                                    .getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                stdin.write(line);
+            }
+        } catch (IOException e) {
+            endLine.cancel(false);
+            close();
+            return CompletableFuture.failedFuture(e);
+        }
+        return endLine.thenApply(
+                l ->
+                        parseResult(
+                                output.readLines(cursor).getLines(),
+                                beginMarker,
+                                endMarker,
+                                Duration.ofNanos(System.nanoTime() - sentAt)));
+    }
+
+    /**
+     * Runs a command and waits for its result. If the command does not exit in time, the channel is
+     * closed, as all later commands would queue behind it.
+     *
+     * @param timeout Maximum time to wait, null to wait until the command exited
+     * @param command The program and its arguments
+     * @return The result of the command
+     * @throws InterruptedException If interrupted while waiting
+     * @throws TimeoutException If the command did not exit in time
+     * @throws IllegalStateException If the channel is or got closed
+     */
+    public DriverResult execute(Duration timeout, String... command)
+            throws InterruptedException, TimeoutException {
+        try {
+            return FrameHandler.await(submit(command), timeout);
+        } catch (TimeoutException e) {
+            LOGGER.debug("Driver command timed out, closing channel");
+            close();
+            throw e;
+        }
+    }
+
+    public boolean isOpen() {
+        return !closed && !exec.frameHandler.getCompletion().isDone();
+    }
+
+    /**
+     * @return The exec running the shell
+     */
+    public DockerExecInstance getExec() {
+        return exec;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            // the shell exits on end of input
+            stdin.close();
+        } catch (IOException e) {
+            LOGGER.debug("Could not close stdin of driver channel", e);
+        }
+        exec.close();
+    }
+
+    /**
+     * @return A shell command line printing the begin marker, running the command and printing the
+     *     end marker followed by the exit code
+     */
+    static String toShellLine(String beginMarker, String endMarker, String... command) {
+        StringBuilder line = new StringBuilder("echo ").append(beginMarker).append(';');
+        for (String argument : command) {
+            line.append(' ').append(quote(argument));
+        }
+        return line.append(" </dev/null 2>&1; echo \"")
+                .append(endMarker)
+                .append(" $?\"\n")
+                .toString();
+    }
+
+    private static String quote(String argument) {
+        return "'" + argument.replace("'", "'\\''") + "'";
+    }
+
+    /**
+     * Extracts the result from the lines between the markers. The end marker may follow output that
+     * did not end with a newline on the same line.
+     */
+    static DriverResult parseResult(
+            List<String> lines, String beginMarker, String endMarker, Duration duration) {
+        List<String> commandOutput = new ArrayList<>();
+        for (String line : lines) {
+            int end = line.indexOf(endMarker);
+            if (end >= 0) {
+                if (end > 0) {
+                    commandOutput.add(line.substring(0, end));
+                }
+                String exitCode = line.substring(end + endMarker.length()).trim();
+                return new DriverResult(Integer.parseInt(exitCode), commandOutput, duration);
+            } else if (line.equals(beginMarker)) {
+                // anything before belongs to earlier commands
+                commandOutput.clear();
+            } else {
+                commandOutput.add(line);
+            }
+        }
+        throw new IllegalStateException("Output does not contain the end marker " + endMarker);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import java.time.Duration;
+import java.util.List;
+
+/** Outcome of a command run through a {@link DriverChannel}. */
+public class DriverResult {
+    private final int exitCode;
+    private final List<String> output;
+    private final Duration duration;
+
+    public DriverResult(int exitCode, List<String> output, Duration duration) {
+        this.exitCode = exitCode;
+        this.output = List.copyOf(output);
+        this.duration = duration;
+    }
+
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    /**
+     * @return The lines the command wrote to stdout and stderr
+     */
+    public List<String> getOutput() {
+        return output;
+    }
+
+    /**
+     * @return Time from sending the command until its result was received
+     */
+    public Duration getDuration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return "DriverResult{"
+                + "exitCode="
+                + exitCode
+                + ", lines="
+                + output.size()
+                + ", duration="
+                + duration
+                + '}';
+    }
+}
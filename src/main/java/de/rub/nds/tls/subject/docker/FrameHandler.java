@@ -10,49 +10,482 @@ package de.rub.nds.tls.subject.docker;
 
 import com.github.dockerjava.api.async.ResultCallbackTemplate;
 import com.github.dockerjava.api.model.Frame;
-import java.util.Collection;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
+/**
+ * Collects the output of a container or exec. The output is decoded as UTF-8 and split into lines
+ * while the frames arrive. Only the last {@link #getCapacity()} lines are kept; every line has a
+ * sequence number, so readers can keep a cursor and only fetch the lines they have not seen yet
+ * (see {@link #readLines(long)}).
+ *
+ * <p>Callers can wait for a line matching a predicate or pattern (see {@link
+ * #awaitLineAsync(Predicate)}); such waits complete as soon as the line arrives.
+ *
+ * <p>For logs requested with timestamps, docker prefixes every log entry with its own timestamp,
+ * including the continuations of a line that was written in several parts (e.g. by a TTY). A
+ * handler created for timestamped output drops the timestamp of a frame continuing an unterminated
+ * line, so the line keeps the timestamp of its first part.
+ */
 public class FrameHandler extends ResultCallbackTemplate<FrameHandler, Frame> {
     private static String[] EMPTY_STR_ARR = new String[] {};
+    private static final byte[] EMPTY_BYTE_ARR = new byte[] {};
+
+    private static final int INITIAL_RING_SIZE = 16;
+    private static final Pattern TIMESTAMP =
+            Pattern.compile("\\d{4}-\\d{2}-\\d{2}T[0-9:.]+(Z|[+-][0-9:]+)");
+    // longer than any RFC 3339 timestamp including the separating space
+    private static final int MAX_TIMESTAMP_LENGTH = 48;
 
-    private Collection<Frame> frames;
+    private static volatile int defaultCapacity = 10000;
+
+    private final int capacity;
+    private final boolean timestamped;
+    // grows up to the capacity as lines arrive
+    private String[] ring = EMPTY_STR_ARR;
+    private final CharsetDecoder decoder =
+            StandardCharsets.UTF_8
+                    .newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    // bytes of a multi byte character that was split between two frames
+    private byte[] undecoded = EMPTY_BYTE_ARR;
+    private final StringBuilder currentLine = new StringBuilder();
+    private boolean pendingNewline = false;
+    // whether the last frame ended without a line break
+    private boolean midLine = false;
+    private boolean lastLineTerminated = true;
+    // sequence number of the next completed line
+    private long lineCount = 0;
+    private final List<LineWaiter> waiters = new ArrayList<>();
+    // waiters matched while holding the lock; completed after releasing it
+    private final List<Runnable> pendingCompletions = new ArrayList<>();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private boolean ended = false;
 
     public FrameHandler() {
-        frames = new LinkedList<>();
+        this(defaultCapacity);
+    }
+
+    /**
+     * @param capacity The maximum number of lines to keep
+     */
+    public FrameHandler(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * @param capacity The maximum number of lines to keep
+     * @param timestamped Whether the frames are log entries prefixed with their timestamp
+     */
+    public FrameHandler(int capacity, boolean timestamped) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.timestamped = timestamped;
+    }
+
+    /**
+     * @param capacity The maximum number of lines new frame handlers keep
+     */
+    public static void setDefaultCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        defaultCapacity = capacity;
+    }
+
+    public static int getDefaultCapacity() {
+        return defaultCapacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
     }
 
     @Override
     public void onNext(Frame object) {
-        synchronized (frames) {
-            frames.add(object);
+        byte[] payload = object.getPayload();
+        if (payload == null || payload.length == 0) {
+            return;
         }
+        synchronized (this) {
+            int offset = timestamped && midLine ? getTimestampLength(payload) : 0;
+            midLine = payload[payload.length - 1] != '\n';
+            ByteBuffer in;
+            if (undecoded.length == 0) {
+                in = ByteBuffer.wrap(payload, offset, payload.length - offset);
+            } else {
+                in = ByteBuffer.allocate(undecoded.length + payload.length - offset);
+                in.put(undecoded).put(payload, offset, payload.length - offset).flip();
+            }
+            CharBuffer out = CharBuffer.allocate(in.remaining());
+            decoder.decode(in, out, false);
+            undecoded = in.hasRemaining() ? copyRemaining(in) : EMPTY_BYTE_ARR;
+            out.flip();
+            appendChars(out);
+        }
+        runPendingCompletions();
     }
 
-    public String[] getLines() {
-        Collection<String> ret = new LinkedList<>();
-        boolean pending_newline = false;
-        StringBuilder current_line = new StringBuilder();
-        for (Frame frame : frames) {
-            for (byte b : frame.getPayload()) {
-                if (b == '\r') {
-                    pending_newline = true;
-                } else if (b == '\n' || pending_newline) {
-                    // handle newline
-                    pending_newline = false;
-                    ret.add(current_line.toString());
-                    current_line = new StringBuilder();
-                    if (b != '\n') {
-                        current_line.append((char) b);
-                    }
-                } else {
-                    current_line.append((char) b);
+    @Override
+    public void onComplete() {
+        end(null);
+        super.onComplete();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        end(throwable);
+        super.onError(throwable);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            // closing does not call onComplete, but nobody should wait for more output
+            end(null);
+        }
+    }
+
+    private void end(Throwable throwable) {
+        List<LineWaiter> unmatched;
+        synchronized (this) {
+            flush();
+            ended = true;
+            unmatched = new ArrayList<>(waiters);
+            waiters.clear();
+        }
+        runPendingCompletions();
+        for (LineWaiter waiter : unmatched) {
+            waiter.future.completeExceptionally(
+                    new IllegalStateException("Output ended without a matching line", throwable));
+        }
+        if (throwable == null) {
+            completion.complete(null);
+        } else {
+            completion.completeExceptionally(throwable);
+        }
+    }
+
+    private void runPendingCompletions() {
+        List<Runnable> completions;
+        synchronized (this) {
+            if (pendingCompletions.isEmpty()) {
+                return;
+            }
+            completions = new ArrayList<>(pendingCompletions);
+            pendingCompletions.clear();
+        }
+        completions.forEach(Runnable::run);
+    }
+
+    private synchronized void flush() {
+        if (undecoded.length > 0) {
+            CharBuffer out = CharBuffer.allocate(undecoded.length);
+            decoder.decode(ByteBuffer.wrap(undecoded), out, true);
+            undecoded = EMPTY_BYTE_ARR;
+            out.flip();
+            appendChars(out);
+        }
+        if (currentLine.length() > 0) {
+            completeLine();
+            lastLineTerminated = false;
+        }
+        pendingNewline = false;
+        midLine = false;
+    }
+
+    /**
+     * @return The length of the timestamp and the following space the payload starts with, or 0
+     */
+    static int getTimestampLength(byte[] payload) {
+        int limit = Math.min(payload.length, MAX_TIMESTAMP_LENGTH);
+        for (int i = 0; i < limit; i++) {
+            if (payload[i] == ' ') {
+                String prefix = new String(payload, 0, i, StandardCharsets.US_ASCII);
+                return TIMESTAMP.matcher(prefix).matches() ? i + 1 : 0;
+            }
+        }
+        return 0;
+    }
+
+    private static byte[] copyRemaining(ByteBuffer buffer) {
+        byte[] remaining = new byte[buffer.remaining()];
+        buffer.get(remaining);
+        return remaining;
+    }
+
+    private void appendChars(CharBuffer chars) {
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if (c == '\r') {
+                pendingNewline = true;
+            } else if (c == '\n' || pendingNewline) {
+                // handle newline
+                pendingNewline = false;
+                completeLine();
+                if (c != '\n') {
+                    currentLine.append(c);
+                }
+            } else {
+                currentLine.append(c);
+            }
+        }
+    }
+
+    private void completeLine() {
+        String line = currentLine.toString();
+        if (lineCount == ring.length && ring.length < capacity) {
+            ring =
+                    Arrays.copyOf(
+                            ring, Math.min(capacity, Math.max(INITIAL_RING_SIZE, ring.length * 2)));
+        }
+        ring[(int) (lineCount % ring.length)] = line;
+        lineCount++;
+        lastLineTerminated = true;
+        currentLine.setLength(0);
+        Iterator<LineWaiter> iterator = waiters.iterator();
+        while (iterator.hasNext()) {
+            LineWaiter waiter = iterator.next();
+            if (waiter.matches(line)) {
+                iterator.remove();
+                pendingCompletions.add(() -> waiter.future.complete(line));
+            }
+        }
+    }
+
+    /**
+     * @return A future that completes when the output stream ended
+     */
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Waits for a line matching the predicate. Lines still in the buffer are considered as well, so
+     * no line is missed that arrived before this call.
+     *
+     * @param predicate The condition the line must fulfill
+     * @return A future completing with the first matching line. It fails if the output ends without
+     *     a matching line. Cancelling it stops the wait.
+     */
+    public CompletableFuture<String> awaitLineAsync(Predicate<String> predicate) {
+        LineWaiter waiter = new LineWaiter(predicate);
+        synchronized (this) {
+            for (String line : readLines(0).getLines()) {
+                if (waiter.matches(line)) {
+                    waiter.future.complete(line);
+                    return waiter.future;
                 }
             }
+            if (ended) {
+                waiter.future.completeExceptionally(
+                        new IllegalStateException("Output ended without a matching line"));
+                return waiter.future;
+            }
+            waiters.add(waiter);
         }
-        if (current_line.length() > 0) {
-            ret.add(current_line.toString());
+        waiter.future.whenComplete(
+                (line, throwable) -> {
+                    if (throwable instanceof CancellationException) {
+                        synchronized (this) {
+                            waiters.remove(waiter);
+                        }
+                    }
+                });
+        return waiter.future;
+    }
+
+    /**
+     * @param pattern The pattern to search for (see {@link java.util.regex.Matcher#find()})
+     * @return A future completing with the first line containing the pattern
+     * @see #awaitLineAsync(Predicate)
+     */
+    public CompletableFuture<String> awaitOutputAsync(Pattern pattern) {
+        return awaitLineAsync(line -> pattern.matcher(line).find());
+    }
+
+    /**
+     * Blocks until a line matching the predicate arrived or the output ended.
+     *
+     * @param predicate The condition the line must fulfill
+     * @return The first matching line
+     * @throws InterruptedException If interrupted while waiting
+     * @throws IllegalStateException If the output ended without a matching line
+     */
+    public String awaitLine(Predicate<String> predicate) throws InterruptedException {
+        try {
+            return awaitLine(predicate, null);
+        } catch (TimeoutException e) {
+            // cannot happen without a timeout
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Blocks until a line matching the predicate arrived.
+     *
+     * @param predicate The condition the line must fulfill
+     * @param timeout Maximum time to wait, null to wait until the output ended
+     * @return The first matching line
+     * @throws InterruptedException If interrupted while waiting
+     * @throws TimeoutException If no matching line arrived within the timeout
+     * @throws IllegalStateException If the output ended without a matching line
+     */
+    public String awaitLine(Predicate<String> predicate, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        return await(awaitLineAsync(predicate), timeout);
+    }
+
+    /**
+     * Blocks until a line containing the pattern arrived.
+     *
+     * @param pattern The pattern to search for (see {@link java.util.regex.Matcher#find()})
+     * @param timeout Maximum time to wait, null to wait until the output ended
+     * @return The first matching line
+     * @throws InterruptedException If interrupted while waiting
+     * @throws TimeoutException If no matching line arrived within the timeout
+     * @throws IllegalStateException If the output ended without a matching line
+     */
+    public String awaitOutput(Pattern pattern, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        return await(awaitOutputAsync(pattern), timeout);
+    }
+
+    /**
+     * Waits for a future returned by one of the await methods and unwraps its failure. The future
+     * is cancelled if the wait times out or is interrupted.
+     */
+    static <T> T await(CompletableFuture<T> future, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        try {
+            if (timeout == null) {
+                return future.get();
+            }
+            return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * @return The number of lines completed so far, including the ones dropped from the buffer.
+     *     This is the cursor to pass to {@link #readLines(long)} to only read lines that arrive
+     *     later.
+     */
+    public synchronized long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return Whether the last completed line ended with a line break. This is false if the output
+     *     ended in the middle of a line, which was completed nonetheless.
+     */
+    public synchronized boolean isLastLineTerminated() {
+        return lastLineTerminated;
+    }
+
+    /**
+     * Returns all completed lines starting with the given sequence number.
+     *
+     * @param cursor The sequence number of the first line to read, usually the {@link
+     *     LineChunk#getNextCursor()} of the previous read
+     * @return The lines and the cursor for the next read
+     */
+    public synchronized LineChunk readLines(long cursor) {
+        long first = Math.max(0, lineCount - capacity);
+        long start = Math.max(cursor, first);
+        List<String> lines = new ArrayList<>((int) Math.max(0, lineCount - start));
+        for (long i = start; i < lineCount; i++) {
+            lines.add(ring[(int) (i % ring.length)]);
+        }
+        return new LineChunk(lines, lineCount, Math.max(0, start - Math.max(cursor, 0)));
+    }
+
+    /**
+     * @return All lines still in the buffer, followed by the current incomplete line (if any)
+     */
+    public String[] getLines() {
+        List<String> ret;
+        synchronized (this) {
+            ret = new ArrayList<>(readLines(0).getLines());
+            if (currentLine.length() > 0) {
+                ret.add(currentLine.toString());
+            }
         }
         return ret.toArray(EMPTY_STR_ARR);
     }
+
+    private static class LineWaiter {
+        private final Predicate<String> predicate;
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        private LineWaiter(Predicate<String> predicate) {
+            this.predicate = predicate;
+        }
+
+        private boolean matches(String line) {
+            try {
+                return predicate.test(line);
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                return true;
+            }
+        }
+    }
+
+    /** The result of a cursor based read. */
+    public static class LineChunk {
+        private final List<String> lines;
+        private final long nextCursor;
+        private final long droppedLines;
+
+        private LineChunk(List<String> lines, long nextCursor, long droppedLines) {
+            this.lines = Collections.unmodifiableList(lines);
+            this.nextCursor = nextCursor;
+            this.droppedLines = droppedLines;
+        }
+
+        public List<String> getLines() {
+            return lines;
+        }
+
+        public long getNextCursor() {
+            return nextCursor;
+        }
+
+        /**
+         * @return The number of lines after the requested cursor that were already dropped from the
+         *     buffer
+         */
+        public long getDroppedLines() {
+            return droppedLines;
+        }
+    }
 }
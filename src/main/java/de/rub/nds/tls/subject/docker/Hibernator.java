@@ -0,0 +1,102 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pauses containers that were idle for the time configured in their {@link RuntimeProfile}. Paused
+ * containers are frozen by the cgroup freezer: they keep their memory and sockets but get no CPU
+ * time. They are unpaused on the next use through the library, e.g. a connect, reading the logs or
+ * leasing them from a pool.
+ *
+ * <p>Traffic from outside of the library does not count as use, so servers that are tested directly
+ * should be kept awake using {@link DockerTlsInstance#holdAwake()}.
+ */
+public class Hibernator {
+
+    private static class InstanceHolder {
+        private static final Hibernator INSTANCE = new Hibernator();
+    }
+
+    /**
+     * @return The hibernator shared by all instances
+     */
+    public static Hibernator instance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "docker-hibernator");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+    private final ResumeStats resumeStats = new ResumeStats();
+    // the pending idle check of each instance
+    private final Map<DockerTlsInstance, IdleCheck> checks = new ConcurrentHashMap<>();
+
+    Hibernator() {}
+
+    /**
+     * Runs the idle check of an instance after the given delay. A pending check of the instance is
+     * cancelled, so every instance has at most one check scheduled.
+     */
+    void schedule(DockerTlsInstance instance, long generation, long delayNanos) {
+        checks.compute(
+                instance,
+                (key, previous) -> {
+                    if (previous != null) {
+                        previous.future.cancel(false);
+                    }
+                    IdleCheck check = new IdleCheck(instance, generation);
+                    check.future = executor.schedule(check, delayNanos, TimeUnit.NANOSECONDS);
+                    return check;
+                });
+    }
+
+    /** Cancels the pending idle check of an instance, e.g. because it is stopped. */
+    void cancel(DockerTlsInstance instance) {
+        IdleCheck check = checks.remove(instance);
+        if (check != null) {
+            check.future.cancel(false);
+        }
+    }
+
+    /**
+     * @return The resume latencies of all instances
+     */
+    public ResumeStats getResumeStats() {
+        return resumeStats;
+    }
+
+    private class IdleCheck implements Runnable {
+        private final DockerTlsInstance instance;
+        private final long generation;
+        private ScheduledFuture<?> future;
+
+        private IdleCheck(DockerTlsInstance instance, long generation) {
+            this.instance = instance;
+            this.generation = generation;
+        }
+
+        @Override
+        public void run() {
+            // removed first, so a check scheduled by the instance below stays registered
+            checks.remove(instance, this);
+            instance.hibernateIfIdle(generation);
+        }
+    }
+}
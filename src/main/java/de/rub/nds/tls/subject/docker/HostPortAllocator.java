@@ -0,0 +1,238 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import de.rub.nds.tls.subject.constants.TransportType;
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hands out host addresses and ports for the published port of server containers, so the port is
+ * known before the container starts and no inspect is needed to find it. Ports are taken from a
+ * fixed range outside of the ephemeral range and can be spread over several loopback aliases
+ * (127.0.0.0/8) to multiply the number of available ports. Released ports are quarantined for a
+ * while, so a new server does not get connections meant for the previous one.
+ *
+ * <p>Aliases other than 127.0.0.1 have to be routable on the docker host; this is the case on
+ * Linux, but not on macOS by default.
+ */
+public class HostPortAllocator {
+
+    public static final int DEFAULT_MIN_PORT = 20000;
+    public static final int DEFAULT_MAX_PORT = 29999;
+    public static final Duration DEFAULT_QUARANTINE = Duration.ofSeconds(5);
+
+    private static class InstanceHolder {
+        private static final HostPortAllocator INSTANCE =
+                new HostPortAllocator(
+                        DEFAULT_MIN_PORT,
+                        DEFAULT_MAX_PORT,
+                        List.of("127.0.0.1"),
+                        DEFAULT_QUARANTINE,
+                        true);
+    }
+
+    /**
+     * @return A shared allocator using 127.0.0.1 and the default port range
+     */
+    public static HostPortAllocator instance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private final int minPort;
+    private final int maxPort;
+    private final List<String> addresses;
+    private final long quarantineNanos;
+    private final boolean probeLocally;
+
+    private final Set<Allocation> allocated = new HashSet<>();
+    // released allocations and the time they may be handed out again
+    private final Map<Allocation, Long> quarantined = new HashMap<>();
+    private int nextAddress = 0;
+    private final int[] nextPort;
+
+    /**
+     * @param minPort First port of the range
+     * @param maxPort Last port of the range
+     * @param addresses The host addresses to bind to, used in turn
+     * @param quarantine Time a released port is not handed out again
+     * @param probeLocally Whether to skip ports that are in use on this machine, which is only
+     *     meaningful if the docker daemon runs locally
+     */
+    public HostPortAllocator(
+            int minPort,
+            int maxPort,
+            List<String> addresses,
+            Duration quarantine,
+            boolean probeLocally) {
+        if (minPort < 1 || maxPort > 65535 || minPort > maxPort) {
+            throw new IllegalArgumentException("Invalid port range " + minPort + "-" + maxPort);
+        }
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("At least one address is needed");
+        }
+        this.minPort = minPort;
+        this.maxPort = maxPort;
+        this.addresses = List.copyOf(addresses);
+        this.quarantineNanos = quarantine.toNanos();
+        this.probeLocally = probeLocally;
+        this.nextPort = new int[this.addresses.size()];
+    }
+
+    /**
+     * @param first The first alias, e.g. 127.0.0.1
+     * @param count The number of consecutive aliases
+     * @return The aliases, e.g. 127.0.0.1, 127.0.0.2, ...
+     */
+    public static List<String> loopbackAliases(String first, int count) {
+        String[] octets = first.split("\\.");
+        if (octets.length != 4 || !octets[0].equals("127")) {
+            throw new IllegalArgumentException("Not a loopback address: " + first);
+        }
+        long base =
+                (Long.parseLong(octets[1]) << 16)
+                        | (Long.parseLong(octets[2]) << 8)
+                        | Long.parseLong(octets[3]);
+        if (count < 1 || base + count > 0xffffff) {
+            throw new IllegalArgumentException("Invalid number of aliases: " + count);
+        }
+        List<String> aliases = new ArrayList<>(count);
+        for (long value = base; value < base + count; value++) {
+            aliases.add(
+                    "127." + (value >> 16) + "." + ((value >> 8) & 0xff) + "." + (value & 0xff));
+        }
+        return aliases;
+    }
+
+    /**
+     * Reserves an address and port. The addresses are used in turn, on each address the ports are
+     * handed out in ascending order and wrap around at the end of the range.
+     *
+     * @param transportType The protocol the port is published for
+     * @return The reserved address and port
+     * @throws IllegalStateException If all ports are in use
+     */
+    public synchronized Allocation allocate(TransportType transportType) {
+        long now = System.nanoTime();
+        quarantined.values().removeIf(until -> until - now <= 0);
+        int rangeSize = maxPort - minPort + 1;
+        for (int a = 0; a < addresses.size(); a++) {
+            int addressIndex = (nextAddress + a) % addresses.size();
+            String address = addresses.get(addressIndex);
+            for (int p = 0; p < rangeSize; p++) {
+                int port = minPort + (nextPort[addressIndex] + p) % rangeSize;
+                Allocation candidate = new Allocation(address, port);
+                if (allocated.contains(candidate)
+                        || quarantined.containsKey(candidate)
+                        || (probeLocally && !isFree(candidate, transportType))) {
+                    continue;
+                }
+                nextPort[addressIndex] = (port - minPort + 1) % rangeSize;
+                nextAddress = (addressIndex + 1) % addresses.size();
+                allocated.add(candidate);
+                return candidate;
+            }
+        }
+        throw new IllegalStateException(
+                "No free host port in " + minPort + "-" + maxPort + " on " + addresses);
+    }
+
+    /**
+     * Returns a port to the allocator. It is handed out again after the quarantine.
+     *
+     * @param allocation A reservation of this allocator
+     */
+    public synchronized void release(Allocation allocation) {
+        if (allocated.remove(allocation)) {
+            quarantined.put(allocation, System.nanoTime() + quarantineNanos);
+        }
+    }
+
+    /**
+     * @return The number of ports currently reserved
+     */
+    public synchronized int getAllocatedCount() {
+        return allocated.size();
+    }
+
+    public List<String> getAddresses() {
+        return addresses;
+    }
+
+    private static boolean isFree(Allocation allocation, TransportType transportType) {
+        try {
+            InetSocketAddress address =
+                    new InetSocketAddress(
+                            InetAddress.getByName(allocation.getAddress()), allocation.getPort());
+            if (transportType == TransportType.UDP) {
+                try (DatagramSocket socket = new DatagramSocket(address)) {
+                    return socket.isBound();
+                }
+            }
+            try (ServerSocket socket = new ServerSocket()) {
+                socket.setReuseAddress(false);
+                socket.bind(address);
+                return socket.isBound();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** An address and port reserved for the published port of a container. */
+    public static class Allocation {
+        private final String address;
+        private final int port;
+
+        public Allocation(String address, int port) {
+            this.address = address;
+            this.port = port;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Allocation)) {
+                return false;
+            }
+            Allocation other = (Allocation) obj;
+            return port == other.port && address.equals(other.address);
+        }
+
+        @Override
+        public int hashCode() {
+            return address.hashCode() * 31 + port;
+        }
+
+        @Override
+        public String toString() {
+            return address + ":" + port;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+/**
+ * The network a container is attached to. By default containers use the default bridge and servers
+ * publish their port on the host, which routes all traffic through the docker proxy. Containers on
+ * a {@link DockerSessionNetwork} reach each other directly by DNS name, containers on the host
+ * network share the network stack of the docker host and containers joining another container share
+ * its network namespace.
+ */
+public class InstanceNetwork {
+
+    /** How a container is attached */
+    public enum Type {
+        /** Default bridge, server ports are published on the host */
+        DEFAULT_BRIDGE,
+        /** User-defined bridge of a session, servers are addressed by DNS name */
+        SESSION,
+        /** Network stack of the docker host */
+        HOST,
+        /** Network namespace of another container, which is reached on 127.0.0.1 */
+        CONTAINER
+    }
+
+    private static final InstanceNetwork DEFAULT_BRIDGE =
+            new InstanceNetwork(Type.DEFAULT_BRIDGE, null, null);
+    private static final InstanceNetwork HOST = new InstanceNetwork(Type.HOST, null, null);
+
+    private final Type type;
+    private final DockerSessionNetwork sessionNetwork;
+    private final String containerId;
+
+    private InstanceNetwork(Type type, DockerSessionNetwork sessionNetwork, String containerId) {
+        this.type = type;
+        this.sessionNetwork = sessionNetwork;
+        this.containerId = containerId;
+    }
+
+    public static InstanceNetwork defaultBridge() {
+        return DEFAULT_BRIDGE;
+    }
+
+    /**
+     * Servers on the host network listen on the port of their HostInfo directly on the docker host,
+     * so the port has to be free there. Only available on Linux hosts.
+     */
+    public static InstanceNetwork host() {
+        return HOST;
+    }
+
+    /**
+     * @param network The network to attach to; it has to exist as long as the container does
+     */
+    public static InstanceNetwork session(DockerSessionNetwork network) {
+        if (network == null) {
+            throw new NullPointerException("network may not be null");
+        }
+        return new InstanceNetwork(Type.SESSION, network, null);
+    }
+
+    /**
+     * Shares the network namespace of a running container, so both containers talk over loopback.
+     * The namespace is gone once the other container stops, restarting it does not reattach the
+     * container sharing it.
+     *
+     * @param containerId The container whose namespace is joined
+     */
+    public static InstanceNetwork container(String containerId) {
+        if (containerId == null) {
+            throw new NullPointerException("containerId may not be null");
+        }
+        return new InstanceNetwork(Type.CONTAINER, null, containerId);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return The session network, null unless the type is {@link Type#SESSION}
+     */
+    public DockerSessionNetwork getSessionNetwork() {
+        return sessionNetwork;
+    }
+
+    /**
+     * @return The container whose namespace is joined, null unless the type is {@link
+     *     Type#CONTAINER}
+     */
+    public String getContainerId() {
+        return containerId;
+    }
+
+    /**
+     * @return Whether server ports are published on the docker host
+     */
+    public boolean isPublishingPorts() {
+        return type == Type.DEFAULT_BRIDGE;
+    }
+
+    /**
+     * @return The network mode of the host config, null to keep the default
+     */
+    public String getNetworkMode() {
+        switch (type) {
+            case SESSION:
+                return sessionNetwork.getName();
+            case HOST:
+                return "host";
+            case CONTAINER:
+                return "container:" + containerId;
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "InstanceNetwork{" + "type=" + type + ", networkMode=" + getNetworkMode() + '}';
+    }
+}
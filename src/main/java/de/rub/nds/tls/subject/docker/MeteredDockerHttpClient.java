@@ -0,0 +1,150 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import com.github.dockerjava.transport.DockerHttpClient;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the requests of a {@link DockerHttpClient}. A request occupies a pooled connection from
+ * sending it until its response is closed, so the number of open responses relative to the pool
+ * size shows how busy the pool is.
+ */
+public class MeteredDockerHttpClient implements DockerHttpClient {
+
+    private final DockerHttpClient delegate;
+    private final int maxConnections;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+
+    public MeteredDockerHttpClient(DockerHttpClient delegate, int maxConnections) {
+        this.delegate = delegate;
+        this.maxConnections = maxConnections;
+    }
+
+    @Override
+    public Response execute(Request request) {
+        requestCount.increment();
+        int current = inFlight.incrementAndGet();
+        peakInFlight.accumulateAndGet(current, Math::max);
+        try {
+            return new MeteredResponse(delegate.execute(request));
+        } catch (RuntimeException | Error e) {
+            inFlight.decrementAndGet();
+            failureCount.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    /**
+     * @return The number of requests whose response is still open
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return The highest number of requests in flight at the same time
+     */
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * @return The number of requests that failed without a response
+     */
+    public long getFailureCount() {
+        return failureCount.sum();
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return The share of the pooled connections currently in use; values at 1 mean requests wait
+     *     for a connection
+     */
+    public double getUtilization() {
+        return Math.min(1.0, (double) inFlight.get() / maxConnections);
+    }
+
+    @Override
+    public String toString() {
+        return "MeteredDockerHttpClient{"
+                + "inFlight="
+                + getInFlight()
+                + ", peakInFlight="
+                + getPeakInFlight()
+                + ", maxConnections="
+                + maxConnections
+                + ", requests="
+                + getRequestCount()
+                + ", failures="
+                + getFailureCount()
+                + '}';
+    }
+
+    private class MeteredResponse implements Response {
+        private final Response response;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private MeteredResponse(Response response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.getHeader(name);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return response.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                if (closed.compareAndSet(false, true)) {
+                    inFlight.decrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/** Latencies of unpausing hibernated containers, see {@link Hibernator}. */
+public class ResumeStats {
+
+    private long count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+    private long lastNanos = 0;
+
+    public synchronized void record(Duration latency) {
+        long nanos = latency.toNanos();
+        count++;
+        totalNanos += nanos;
+        maxNanos = Math.max(maxNanos, nanos);
+        lastNanos = nanos;
+    }
+
+    /**
+     * @return The number of resumes
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The mean resume latency, if there was a resume
+     */
+    public synchronized Optional<Duration> getMean() {
+        if (count == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(Duration.ofNanos(totalNanos / count));
+    }
+
+    public synchronized Duration getMax() {
+        return Duration.ofNanos(maxNanos);
+    }
+
+    public synchronized Duration getLast() {
+        return Duration.ofNanos(lastNanos);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResumeStats{"
+                + "count="
+                + count
+                + ", mean="
+                + getMean().orElse(null)
+                + ", max="
+                + getMax()
+                + '}';
+    }
+}
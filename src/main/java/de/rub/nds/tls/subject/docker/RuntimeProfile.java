@@ -0,0 +1,241 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.LogConfig;
+import com.github.dockerjava.api.model.LogConfig.LoggingType;
+import com.github.dockerjava.api.model.Ulimit;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runtime settings of a container: logging, terminal, root filesystem and kernel limits. The {@link
+ * #standard()} profile keeps the settings of docker and allocates a TTY; {@link #benchmark()}
+ * removes the overhead of logging and overlay writes for load tests.
+ *
+ * <p>Without a readable log driver (e.g. {@code none}), the output of the container is only
+ * available if it is captured, which is done by attaching to the container before it is started.
+ * Output written before attaching after a restart may be lost.
+ */
+public class RuntimeProfile {
+
+    private LoggingType logDriver;
+    private boolean tty = true;
+    private boolean captureOutput = true;
+    private boolean readOnlyRootfs = false;
+    private Map<String, String> tmpfs = Map.of();
+    private Long nofileLimit;
+    private Map<String, String> sysctls = Map.of();
+    private Duration hibernateAfter;
+
+    /**
+     * @return A profile using the log driver of the daemon, a TTY and a writable root filesystem
+     */
+    public static RuntimeProfile standard() {
+        return new RuntimeProfile();
+    }
+
+    /**
+     * @return A profile without logging, TTY and output capture, with a read-only root filesystem
+     *     with tmpfs scratch directories and raised limits for connections
+     */
+    public static RuntimeProfile benchmark() {
+        return new RuntimeProfile()
+                .logDriver(LoggingType.NONE)
+                .tty(false)
+                .captureOutput(false)
+                .readOnlyRootfs(true)
+                .tmpfs(Map.of("/tmp", "rw,exec,size=64m", "/run", "rw,size=16m"))
+                .nofileLimit(1_048_576L)
+                .sysctls(
+                        Map.of(
+                                "net.core.somaxconn", "4096",
+                                "net.ipv4.tcp_max_syn_backlog", "4096",
+                                "net.ipv4.ip_local_port_range", "1024 65000",
+                                "net.ipv4.tcp_tw_reuse", "1"));
+    }
+
+    /**
+     * @param value The log driver, e.g. {@link LoggingType#LOCAL} or {@link LoggingType#NONE}; null
+     *     for the default of the daemon
+     * @return this profile
+     */
+    public RuntimeProfile logDriver(LoggingType value) {
+        logDriver = value;
+        return this;
+    }
+
+    /**
+     * @param value Whether to allocate a TTY; without one stdout and stderr are multiplexed
+     * @return this profile
+     */
+    public RuntimeProfile tty(boolean value) {
+        tty = value;
+        return this;
+    }
+
+    /**
+     * @param value Whether the output is read by {@link DockerTlsInstance#getLogs()} and the await
+     *     methods; uses an attach stream if the log driver cannot be read
+     * @return this profile
+     */
+    public RuntimeProfile captureOutput(boolean value) {
+        captureOutput = value;
+        return this;
+    }
+
+    /**
+     * @param value Whether to mount the root filesystem read-only; writable paths need a tmpfs
+     * @return this profile
+     */
+    public RuntimeProfile readOnlyRootfs(boolean value) {
+        readOnlyRootfs = value;
+        return this;
+    }
+
+    /**
+     * @param value Mount points of tmpfs mounts and their options, e.g. {@code size=64m}
+     * @return this profile
+     */
+    public RuntimeProfile tmpfs(Map<String, String> value) {
+        tmpfs = Map.copyOf(value);
+        return this;
+    }
+
+    /**
+     * @param value Soft and hard limit of open files; null for the default of the daemon
+     * @return this profile
+     */
+    public RuntimeProfile nofileLimit(Long value) {
+        nofileLimit = value;
+        return this;
+    }
+
+    /**
+     * @param value Namespaced kernel parameters; they are not set for containers sharing the host
+     *     network or the network of another container, which docker rejects
+     * @return this profile
+     */
+    public RuntimeProfile sysctls(Map<String, String> value) {
+        sysctls = Map.copyOf(value);
+        return this;
+    }
+
+    /**
+     * @param value Idle time after which the container is paused by the {@link Hibernator}; null to
+     *     never pause it
+     * @return this profile
+     */
+    public RuntimeProfile hibernateAfter(Duration value) {
+        if (value != null && (value.isNegative() || value.isZero())) {
+            throw new IllegalArgumentException("hibernateAfter must be positive");
+        }
+        hibernateAfter = value;
+        return this;
+    }
+
+    /**
+     * Applies the profile to the host config of a container.
+     *
+     * @param cfg The host config
+     * @param network The network of the container
+     * @return The host config
+     */
+    HostConfig applyTo(HostConfig cfg, InstanceNetwork network) {
+        if (logDriver != null) {
+            cfg = cfg.withLogConfig(new LogConfig(logDriver));
+        }
+        if (readOnlyRootfs) {
+            cfg = cfg.withReadonlyRootfs(true);
+        }
+        if (!tmpfs.isEmpty()) {
+            cfg = cfg.withTmpFs(new HashMap<>(tmpfs));
+        }
+        if (nofileLimit != null) {
+            cfg = cfg.withUlimits(List.of(new Ulimit("nofile", nofileLimit, nofileLimit)));
+        }
+        if (!sysctls.isEmpty()
+                && network.getType() != InstanceNetwork.Type.HOST
+                && network.getType() != InstanceNetwork.Type.CONTAINER) {
+            cfg = cfg.withSysctls(new HashMap<>(sysctls));
+        }
+        return cfg;
+    }
+
+    /**
+     * @return Whether the output can be read using the logs of the container
+     */
+    public boolean isLogReadable() {
+        return logDriver != LoggingType.NONE;
+    }
+
+    /**
+     * @return Whether the output is captured by attaching to the container
+     */
+    public boolean isAttachCapture() {
+        return captureOutput && !isLogReadable();
+    }
+
+    public LoggingType getLogDriver() {
+        return logDriver;
+    }
+
+    public boolean isTty() {
+        return tty;
+    }
+
+    public boolean isCaptureOutput() {
+        return captureOutput;
+    }
+
+    public boolean isReadOnlyRootfs() {
+        return readOnlyRootfs;
+    }
+
+    public Map<String, String> getTmpfs() {
+        return tmpfs;
+    }
+
+    public Long getNofileLimit() {
+        return nofileLimit;
+    }
+
+    public Map<String, String> getSysctls() {
+        return sysctls;
+    }
+
+    public Duration getHibernateAfter() {
+        return hibernateAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "RuntimeProfile{"
+                + "logDriver="
+                + logDriver
+                + ", tty="
+                + tty
+                + ", captureOutput="
+                + captureOutput
+                + ", readOnlyRootfs="
+                + readOnlyRootfs
+                + ", tmpfs="
+                + tmpfs
+                + ", nofileLimit="
+                + nofileLimit
+                + ", sysctls="
+                + sysctls
+                + ", hibernateAfter="
+                + hibernateAfter
+                + '}';
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.DockerException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.Network;
+import de.rub.nds.tls.subject.constants.TlsSessionLabels;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Removes the containers and networks left behind by sessions that ended without cleaning up, e.g.
+ * because the JVM crashed. A session started on this host in the same pid namespace is stale once
+ * its process is gone. Sessions of other hosts sharing the daemon, and of other pid namespaces with
+ * the same host name (e.g. CI jobs in containers using the host network), can only be judged by
+ * their age, so they are only reaped if a maximum age is configured. Containers created without
+ * auto removal are kept.
+ *
+ * <p>A reaper only sees the resources on its own daemon; each {@link DockerEndpoint} has one.
+ */
+public class SessionReaper {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int DEFAULT_PARALLELISM = 16;
+
+    private static class InstanceHolder {
+        private static final SessionReaper INSTANCE =
+                new SessionReaper(DockerClientManager.getDockerClient());
+    }
+
+    /**
+     * @return The reaper of the default docker daemon
+     * @see DockerEndpoint#getSessionReaper()
+     */
+    public static SessionReaper instance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private final DockerClient docker;
+    private final Supplier<DockerEventTracker> eventTracker;
+    private volatile Duration foreignSessionMaxAge = null;
+    private volatile int parallelism = DEFAULT_PARALLELISM;
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> scheduledReap;
+
+    public SessionReaper(DockerClient docker) {
+        this(docker, DockerEventTracker::instance);
+    }
+
+    /**
+     * @param docker The daemon to reap
+     * @param eventTracker The tracker of the daemon, which forgets removed containers
+     */
+    SessionReaper(DockerClient docker, Supplier<DockerEventTracker> eventTracker) {
+        this.docker = docker;
+        this.eventTracker = eventTracker;
+    }
+
+    /**
+     * Removes the resources of all stale sessions.
+     *
+     * @return The number of removed containers
+     */
+    public int reap() {
+        DockerSession session = DockerSession.current();
+        String currentSession = session.getId();
+        String localHost = session.getHost();
+        String localPidNamespace = session.getPidNamespace();
+        Duration maxAge = foreignSessionMaxAge;
+        Instant now = Instant.now();
+        List<String> containerIds = new ArrayList<>();
+        for (Container container : listContainers(TlsSessionLabels.SESSION.getLabelName())) {
+            Map<String, String> labels = container.getLabels();
+            if (isAutoRemoved(labels)
+                    && isStale(
+                            labels,
+                            currentSession,
+                            localHost,
+                            localPidNamespace,
+                            maxAge,
+                            now,
+                            SessionReaper::isOwnerAlive)) {
+                containerIds.add(container.getId());
+            }
+        }
+        int removed = removeContainers(containerIds);
+        List<String> networkIds = new ArrayList<>();
+        for (Network network : listNetworks(TlsSessionLabels.SESSION.getLabelName())) {
+            if (isStale(
+                    network.getLabels(),
+                    currentSession,
+                    localHost,
+                    localPidNamespace,
+                    maxAge,
+                    now,
+                    SessionReaper::isOwnerAlive)) {
+                networkIds.add(network.getId());
+            }
+        }
+        removeNetworks(networkIds);
+        if (removed > 0 || !networkIds.isEmpty()) {
+            LOGGER.info(
+                    "Removed {} containers and {} networks of stale sessions",
+                    removed,
+                    networkIds.size());
+        }
+        return removed;
+    }
+
+    /**
+     * @return A future completing with the number of removed containers
+     * @see #reap()
+     */
+    public CompletableFuture<Integer> reapAsync() {
+        return DockerLifecycleExecutor.supplyAsync(this::reap);
+    }
+
+    /**
+     * Reaps stale sessions periodically in the background, replacing an earlier schedule.
+     *
+     * @param interval Time between two runs
+     */
+    public synchronized void schedule(Duration interval) {
+        cancelSchedule();
+        if (scheduler == null) {
+            scheduler =
+                    Executors.newSingleThreadScheduledExecutor(
+                            runnable -> {
+                                Thread thread = new Thread(runnable, "docker-session-reaper");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+        }
+        scheduledReap =
+                scheduler.scheduleWithFixedDelay(
+                        () -> {
+                            try {
+                                reap();
+                            } catch (RuntimeException e) {
+                                LOGGER.warn("Could not reap stale sessions", e);
+                            }
+                        },
+                        interval.toNanos(),
+                        interval.toNanos(),
+                        TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized void cancelSchedule() {
+        if (scheduledReap != null) {
+            scheduledReap.cancel(false);
+            scheduledReap = null;
+        }
+    }
+
+    /**
+     * Removes the auto removed containers and the networks of a session, regardless of whether it
+     * is stale.
+     *
+     * @param sessionId The session to remove
+     * @return The number of removed containers
+     */
+    int removeSession(String sessionId) {
+        String filter = TlsSessionLabels.SESSION.getLabelName() + "=" + sessionId;
+        List<String> containerIds = new ArrayList<>();
+        for (Container container : listContainers(filter)) {
+            if (isAutoRemoved(container.getLabels())) {
+                containerIds.add(container.getId());
+            }
+        }
+        int removed = removeContainers(containerIds);
+        List<String> networkIds = new ArrayList<>();
+        for (Network network : listNetworks(filter)) {
+            networkIds.add(network.getId());
+        }
+        removeNetworks(networkIds);
+        return removed;
+    }
+
+    /**
+     * @param value Age after which sessions of other hosts are considered stale; null to never reap
+     *     them, which is the default
+     */
+    public void setForeignSessionMaxAge(Duration value) {
+        foreignSessionMaxAge = value;
+    }
+
+    public Duration getForeignSessionMaxAge() {
+        return foreignSessionMaxAge;
+    }
+
+    /**
+     * @param value Number of containers removed at the same time
+     */
+    public void setParallelism(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        parallelism = value;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param labels The labels of a container or network
+     * @param currentSession The session of this JVM, which is never stale
+     * @param localHost The name of this host
+     * @param localPidNamespace The pid namespace of this JVM, null if unknown
+     * @param foreignMaxAge Age after which sessions of other hosts are stale, null for never
+     * @param now The current time
+     * @param ownerAlive Tells whether a process of this host with the given pid exists and was
+     *     started before the given session start
+     * @return Whether the resource belongs to a stale session
+     */
+    static boolean isStale(
+            Map<String, String> labels,
+            String currentSession,
+            String localHost,
+            String localPidNamespace,
+            Duration foreignMaxAge,
+            Instant now,
+            BiPredicate<Long, Instant> ownerAlive) {
+        String session = labels.get(TlsSessionLabels.SESSION.getLabelName());
+        if (session == null || session.equals(currentSession)) {
+            return false;
+        }
+        Instant started = null;
+        try {
+            started =
+                    Instant.ofEpochSecond(
+                            Long.parseLong(labels.get(TlsSessionLabels.STARTED.getLabelName())));
+        } catch (NumberFormatException e) {
+            // unknown age
+        }
+        // the pid is only meaningful if the owner shares the host and the pid namespace with us
+        if (localHost.equals(labels.get(TlsSessionLabels.HOST.getLabelName()))
+                && Objects.equals(
+                        localPidNamespace,
+                        labels.get(TlsSessionLabels.PID_NAMESPACE.getLabelName()))) {
+            try {
+                long pid = Long.parseLong(labels.get(TlsSessionLabels.PID.getLabelName()));
+                return !ownerAlive.test(pid, started == null ? Instant.EPOCH : started);
+            } catch (NumberFormatException e) {
+                // unknown owner, judge by age
+            }
+        }
+        return foreignMaxAge != null
+                && started != null
+                && started.plus(foreignMaxAge).isBefore(now);
+    }
+
+    /** The pid may have been reused, so the process must not be younger than the session. */
+    private static boolean isOwnerAlive(long pid, Instant sessionStart) {
+        return ProcessHandle.of(pid)
+                .map(
+                        process ->
+                                process.info()
+                                        .startInstant()
+                                        // the session start is truncated to seconds
+                                        .map(start -> !start.isAfter(sessionStart.plusSeconds(1)))
+                                        .orElse(true))
+                .orElse(false);
+    }
+
+    private static boolean isAutoRemoved(Map<String, String> labels) {
+        return !"false".equals(labels.get(TlsSessionLabels.AUTO_REMOVE.getLabelName()));
+    }
+
+    private List<Container> listContainers(String labelFilter) {
+        return docker.listContainersCmd()
+                .withShowAll(true)
+                .withLabelFilter(List.of(labelFilter))
+                .exec();
+    }
+
+    private List<Network> listNetworks(String labelFilter) {
+        return docker.listNetworksCmd().withFilter("label", List.of(labelFilter)).exec();
+    }
+
+    private int removeContainers(List<String> containerIds) {
+        AtomicInteger removed = new AtomicInteger();
+        List<Callable<Void>> removals = new ArrayList<>(containerIds.size());
+        for (String id : containerIds) {
+            removals.add(
+                    () -> {
+                        try {
+                            docker.removeContainerCmd(id).withForce(true).exec();
+                            eventTracker.get().untrackContainer(id);
+                            removed.incrementAndGet();
+                        } catch (NotFoundException e) {
+                            // removed in the meantime
+                        } catch (DockerException e) {
+                            LOGGER.warn("Could not remove container {}", id, e);
+                        }
+                        return null;
+                    });
+        }
+        runAll(removals);
+        return removed.get();
+    }
+
+    private void removeNetworks(List<String> networkIds) {
+        for (String id : networkIds) {
+            try {
+                docker.removeNetworkCmd(id).exec();
+            } catch (NotFoundException e) {
+                // removed in the meantime
+            } catch (DockerException e) {
+                LOGGER.debug("Could not remove network {}", id, e);
+            }
+        }
+    }
+
+    /** Runs the tasks on a pool of its own, which also works during JVM shutdown. */
+    private void runAll(List<Callable<Void>> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        Math.min(parallelism, tasks.size()),
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "docker-session-removal");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.warn("Could not remove container", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
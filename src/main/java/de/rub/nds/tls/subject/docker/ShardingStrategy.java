@@ -0,0 +1,26 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+/** Describes how a {@link DockerEndpointSet} picks the daemon of a new instance. */
+public enum ShardingStrategy {
+    /** Use the endpoint with the fewest instances. */
+    LEAST_LOADED,
+    /**
+     * Always use the same endpoint for the same image (rendezvous hashing), so each image only has
+     * to exist on some daemons. Adding or removing an endpoint only moves the images of that
+     * endpoint.
+     */
+    HASH_BY_IMAGE,
+    /**
+     * Use the least loaded endpoint that already has the image, so no build or pull is needed; fall
+     * back to the least loaded endpoint if none has it.
+     */
+    IMAGE_AFFINITY
+}
@@ -0,0 +1,168 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * State of a container or exec as reported by the docker events stream. Instances are maintained by
+ * the {@link DockerEventTracker}.
+ */
+public class TrackedState {
+
+    public enum Status {
+        CREATED,
+        RUNNING,
+        PAUSED,
+        EXITED,
+        REMOVED
+    }
+
+    private final String id;
+    private Status status = Status.CREATED;
+    private Long exitCode = null;
+    private boolean oomKilled = false;
+    private long startCount = 0;
+    // time of the last event applied, to skip replayed events that are outdated
+    private long lastEventNanos = Long.MIN_VALUE;
+
+    TrackedState(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    public synchronized Optional<Long> getExitCode() {
+        return Optional.ofNullable(exitCode);
+    }
+
+    public synchronized boolean isOomKilled() {
+        return oomKilled;
+    }
+
+    public synchronized boolean isRunning() {
+        return status == Status.RUNNING || status == Status.PAUSED;
+    }
+
+    public synchronized boolean hasExited() {
+        return status == Status.EXITED || status == Status.REMOVED;
+    }
+
+    synchronized long getStartCount() {
+        return startCount;
+    }
+
+    /**
+     * Waits until the container or exec has exited.
+     *
+     * @param timeout Maximum time to wait
+     * @param unit Unit of the timeout
+     * @return Whether the exit was observed within the timeout
+     * @throws InterruptedException If interrupted while waiting
+     */
+    public synchronized boolean awaitExit(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!hasExited()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    /**
+     * Events may be received twice or out of order while missed events are replayed. An event older
+     * than the last one accepted is rejected, so it cannot overwrite a newer state.
+     *
+     * @param eventNanos Time of the event, null if unknown
+     * @return Whether the event should be applied
+     */
+    synchronized boolean acceptEvent(Long eventNanos) {
+        if (eventNanos == null) {
+            return true;
+        }
+        if (eventNanos < lastEventNanos) {
+            return false;
+        }
+        lastEventNanos = eventNanos;
+        return true;
+    }
+
+    synchronized void onStarted() {
+        startCount++;
+        status = Status.RUNNING;
+        exitCode = null;
+        oomKilled = false;
+        notifyAll();
+    }
+
+    /**
+     * Records a start the library performed itself. This bridges the gap until the start event
+     * arrives, but is ignored if the event (or a later one) was already processed.
+     *
+     * @param expectedStartCount The start count observed before the container was started
+     */
+    synchronized void onStartedLocally(long expectedStartCount) {
+        if (startCount == expectedStartCount && status != Status.REMOVED) {
+            onStarted();
+        }
+    }
+
+    synchronized void onPaused() {
+        if (status == Status.RUNNING) {
+            status = Status.PAUSED;
+        }
+    }
+
+    synchronized void onUnpaused() {
+        if (status == Status.PAUSED) {
+            status = Status.RUNNING;
+        }
+    }
+
+    synchronized void onOom() {
+        oomKilled = true;
+    }
+
+    synchronized void onExited(Long exitCode) {
+        if (status != Status.REMOVED) {
+            status = Status.EXITED;
+        }
+        this.exitCode = exitCode;
+        notifyAll();
+    }
+
+    synchronized void onRemoved() {
+        status = Status.REMOVED;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TrackedState{"
+                + "id="
+                + id
+                + ", status="
+                + status
+                + ", exitCode="
+                + exitCode
+                + ", oomKilled="
+                + oomKilled
+                + '}';
+    }
+}
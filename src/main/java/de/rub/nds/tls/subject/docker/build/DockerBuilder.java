@@ -16,6 +16,7 @@ import com.github.dockerjava.api.model.Image;
 import de.rub.nds.tls.subject.ConnectionRole;
 import de.rub.nds.tls.subject.TlsImplementationType;
 import de.rub.nds.tls.subject.constants.TlsImageLabels;
+import de.rub.nds.tls.subject.docker.DockerCallLimiter;
 import de.rub.nds.tls.subject.docker.DockerClientManager;
 import de.rub.nds.tls.subject.docker.build.exception.VersionNotListedException;
 import de.rub.nds.tls.subject.exceptions.CertVolumeNotFoundException;
@@ -39,7 +40,6 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -61,6 +61,7 @@ public class DockerBuilder {
     private final Map<TlsImplementationType, JsonBuildData> knownBuildableLibraries;
 
     private static final DockerClient DOCKER = DockerClientManager.getDockerClient();
+    private static final DockerCallLimiter LIMITER = DockerCallLimiter.instance();
 
     public DockerBuilder() {
         libraryImageDirectories = readLibraryDirectories();
@@ -69,9 +70,12 @@ public class DockerBuilder {
 
     /**
      * When there is a large number of docker images, it may take some time to fetch the list of
-     * images. Hence, we cache the list and only update when necessary.
+     * images. Hence, we cache the list and only update when necessary. This forces an update of the
+     * {@link DockerImageCatalog}.
      */
-    public void updateLocallyAvailableBuilds() {}
+    public void updateLocallyAvailableBuilds() {
+        DockerImageCatalog.instance().refresh();
+    }
 
     public static String getBuildFlagParameterTag(
             TlsImplementationType library,
@@ -151,7 +155,8 @@ public class DockerBuilder {
             ConnectionRole connectionRole,
             String buildFlags)
             throws VersionNotListedException {
-        List<Image> previouslyBuiltImages = DOCKER.listImagesCmd().exec();
+        List<Image> previouslyBuiltImages =
+                LIMITER.call("list images", true, () -> DOCKER.listImagesCmd().exec());
         Image builtImage = getBuiltImage(library, version, connectionRole, buildFlags);
         if (builtImage == null) {
             DockerfileArguments dockerfileArguments =
@@ -166,6 +171,7 @@ public class DockerBuilder {
             try {
                 File dockerfile =
                         prepareDockerfile(Files.newInputStream(dockerfilePath), library, version);
+                // builds take minutes and stream their progress, so they bypass the limiter
                 DOCKER.buildImageCmd()
                         .withDockerfile(dockerfile)
                         .withBuildArg(BUILD_FLAGS_ARGUMENT, buildFlags)
@@ -174,6 +180,7 @@ public class DockerBuilder {
                         .exec(new BuildImageResultCallback())
                         .awaitImageId();
                 tagBuiltImages(library, version, connectionRole, buildFlags, previouslyBuiltImages);
+                DockerImageCatalog.instance().invalidate();
             } catch (IOException e) {
                 LOGGER.error(e);
             }
@@ -204,26 +211,50 @@ public class DockerBuilder {
         Map<String, String> mandatoryLabelsServer =
                 getImageLabels(library, version, ConnectionRole.SERVER, buildFlags);
         List<Image> matchingClientImages =
-                DOCKER.listImagesCmd().withLabelFilter(mandatoryLabelsClient).exec();
+                LIMITER.call(
+                        "list images",
+                        true,
+                        () -> DOCKER.listImagesCmd().withLabelFilter(mandatoryLabelsClient).exec());
         List<Image> matchingServerImages =
-                DOCKER.listImagesCmd().withLabelFilter(mandatoryLabelsServer).exec();
+                LIMITER.call(
+                        "list images",
+                        true,
+                        () -> DOCKER.listImagesCmd().withLabelFilter(mandatoryLabelsServer).exec());
         int tagged = 0;
         if (!matchingClientImages.isEmpty()
                 && !previouslyBuiltImages.contains(matchingClientImages.get(0))) {
-            DOCKER.tagImageCmd(
-                            matchingClientImages.get(0).getId(),
-                            getDefaultRepo(library, ConnectionRole.CLIENT),
-                            getDefaultTag(library, version, ConnectionRole.CLIENT, buildFlags))
-                    .exec();
+            String imageId = matchingClientImages.get(0).getId();
+            LIMITER.run(
+                    "tag image",
+                    true,
+                    () ->
+                            DOCKER.tagImageCmd(
+                                            imageId,
+                                            getDefaultRepo(library, ConnectionRole.CLIENT),
+                                            getDefaultTag(
+                                                    library,
+                                                    version,
+                                                    ConnectionRole.CLIENT,
+                                                    buildFlags))
+                                    .exec());
             tagged++;
         }
         if (!matchingServerImages.isEmpty()
                 && !previouslyBuiltImages.contains(matchingServerImages.get(0))) {
-            DOCKER.tagImageCmd(
-                            matchingServerImages.get(0).getId(),
-                            getDefaultRepo(library, ConnectionRole.SERVER),
-                            getDefaultTag(library, version, ConnectionRole.SERVER, buildFlags))
-                    .exec();
+            String imageId = matchingServerImages.get(0).getId();
+            LIMITER.run(
+                    "tag image",
+                    true,
+                    () ->
+                            DOCKER.tagImageCmd(
+                                            imageId,
+                                            getDefaultRepo(library, ConnectionRole.SERVER),
+                                            getDefaultTag(
+                                                    library,
+                                                    version,
+                                                    ConnectionRole.SERVER,
+                                                    buildFlags))
+                                    .exec());
             tagged++;
         }
 
@@ -253,12 +284,14 @@ public class DockerBuilder {
             TlsImplementationType implementationType,
             String version,
             ConnectionRole connectionRole) {
-        Map<String, String> labels =
-                getImageLabels(implementationType, version, connectionRole, "");
-        Optional<Image> image =
-                DOCKER.listImagesCmd().withLabelFilter(labels).exec().stream().findFirst();
-
-        return image.isPresent();
+        return DockerImageCatalog.instance()
+                        .getImage(
+                                implementationType,
+                                version,
+                                connectionRole,
+                                NO_ADDITIONAL_BUILDFLAGS,
+                                false)
+                != null;
     }
 
     public static boolean isImageLocallyAvailable(
@@ -289,8 +322,16 @@ public class DockerBuilder {
     }
 
     public static InspectVolumeResponse getCertDataVolumeInfo() {
+        return LIMITER.call("list volumes", true, () -> getCertDataVolumeInfo(DOCKER));
+    }
+
+    /**
+     * @param docker The client of the daemon the volume is looked up on
+     * @return The certificate volume of the daemon
+     */
+    public static InspectVolumeResponse getCertDataVolumeInfo(DockerClient docker) {
         InspectVolumeResponse volumeInfo =
-                DOCKER
+                docker
                         .listVolumesCmd()
                         .withFilter("name", Arrays.asList(CERTIFICATE_VOLUME_NAME))
                         .exec()
@@ -303,25 +344,7 @@ public class DockerBuilder {
 
     public static Image getImageWithLabels(
             Map<String, String> labels, boolean allowMissingEmptyBuildFlags) {
-        Optional<Image> image =
-                DOCKER.listImagesCmd().withLabelFilter(labels).exec().stream().findFirst();
-        if (image.isPresent()) {
-            return image.get();
-        } else if (allowMissingEmptyBuildFlags
-                && labels.containsKey(TlsImageLabels.ADDITIONAL_BUILD_FLAGS.getLabelName())
-                && labels.get(TlsImageLabels.ADDITIONAL_BUILD_FLAGS.getLabelName())
-                        .equals(NO_ADDITIONAL_BUILDFLAGS)) {
-            Map<String, String> reducedLabels = new HashMap<>();
-            reducedLabels.putAll(labels);
-            reducedLabels.remove(TlsImageLabels.ADDITIONAL_BUILD_FLAGS.getLabelName());
-            image =
-                    DOCKER.listImagesCmd().withLabelFilter(reducedLabels).exec().stream()
-                            .findFirst();
-            if (image.isPresent()) {
-                return image.get();
-            }
-        }
-        return null;
+        return DockerImageCatalog.instance().getImage(labels, allowMissingEmptyBuildFlags);
     }
 
     public static Map<String, String> getImageLabels(
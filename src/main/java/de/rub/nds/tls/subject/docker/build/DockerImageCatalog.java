@@ -0,0 +1,329 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.build;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.Image;
+import de.rub.nds.tls.subject.ConnectionRole;
+import de.rub.nds.tls.subject.TlsImplementationType;
+import de.rub.nds.tls.subject.constants.TlsImageLabels;
+import de.rub.nds.tls.subject.docker.DockerCallLimiter;
+import de.rub.nds.tls.subject.docker.DockerClientManager;
+import de.rub.nds.tls.subject.docker.DockerEventTracker;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Caches the locally available TLS images indexed by their {@link TlsImageLabels}. Listing images
+ * gets slow when there are many images on the host, so the list is only fetched again after an
+ * image event (pull, tag, untag, delete, ...) was observed by the {@link DockerEventTracker} or the
+ * cache was invalidated explicitly. While the events stream is disconnected, every lookup lists the
+ * images again.
+ */
+public class DockerImageCatalog {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final Set<String> INVALIDATING_ACTIONS =
+            Set.of("pull", "tag", "untag", "delete", "import", "load");
+
+    private static final String DANGLING_TAG = "<none>:<none>";
+
+    private static class InstanceHolder {
+        private static final DockerImageCatalog INSTANCE =
+                new DockerImageCatalog(
+                        DockerClientManager.getDockerClient(),
+                        DockerEventTracker.instance(),
+                        DockerCallLimiter.instance());
+    }
+
+    public static DockerImageCatalog instance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private final DockerClient docker;
+    private final DockerEventTracker tracker;
+    private final DockerCallLimiter callLimiter;
+    private volatile Snapshot snapshot;
+    private volatile boolean dirty = true;
+
+    /**
+     * @param docker The client of the daemon whose images are indexed
+     * @param tracker The tracker of the same daemon
+     * @param callLimiter The limiter of the same daemon
+     */
+    public DockerImageCatalog(
+            DockerClient docker, DockerEventTracker tracker, DockerCallLimiter callLimiter) {
+        this.docker = docker;
+        this.tracker = tracker;
+        this.callLimiter = callLimiter;
+        tracker.addListener(this::onEvent);
+    }
+
+    private void onEvent(Event event) {
+        String action = event.getAction() != null ? event.getAction() : event.getStatus();
+        if (event.getType() == EventType.IMAGE && INVALIDATING_ACTIONS.contains(action)) {
+            invalidate();
+        }
+    }
+
+    /** Forces the next lookup to list the images again. */
+    public void invalidate() {
+        dirty = true;
+    }
+
+    /**
+     * Lists the TLS images of the docker daemon and rebuilds the index.
+     *
+     * @return The new index
+     */
+    public synchronized Snapshot refresh() {
+        // reset before listing, so that events arriving during the listing mark the result stale
+        dirty = false;
+        long epoch = tracker.getEpoch();
+        List<Image> images =
+                callLimiter.call(
+                        "list images",
+                        true,
+                        () ->
+                                docker.listImagesCmd()
+                                        .withLabelFilter(
+                                                TlsImageLabels.IMPLEMENTATION.getLabelName())
+                                        .exec());
+        snapshot = new Snapshot(images, epoch);
+        LOGGER.debug("Indexed {} TLS images", images.size());
+        return snapshot;
+    }
+
+    private Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        synchronized (this) {
+            // another thread may have refreshed the index while we waited
+            current = snapshot;
+            if (isFresh(current)) {
+                return current;
+            }
+            return refresh();
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null
+                && !dirty
+                && tracker.isSynchronized()
+                && current.epoch == tracker.getEpoch();
+    }
+
+    /**
+     * Looks up an image by its labels.
+     *
+     * @param type The implementation
+     * @param version The version
+     * @param role The connection role
+     * @param buildFlags The additional build flags, null matches any build flags
+     * @param allowMissingEmptyBuildFlags Whether images without build flag label match empty build
+     *     flags
+     * @return The first matching image or null
+     */
+    public Image getImage(
+            TlsImplementationType type,
+            String version,
+            ConnectionRole role,
+            String buildFlags,
+            boolean allowMissingEmptyBuildFlags) {
+        return getImage(
+                type.name().toLowerCase(),
+                version,
+                role.name().toLowerCase(),
+                buildFlags,
+                allowMissingEmptyBuildFlags);
+    }
+
+    /**
+     * Looks up an image using a label map as created by {@link DockerBuilder#getImageLabels}. Label
+     * maps that contain other labels than the TLS image labels are resolved by listing the images.
+     *
+     * @param labels The labels the image must have
+     * @param allowMissingEmptyBuildFlags Whether images without build flag label match empty build
+     *     flags
+     * @return The first matching image or null
+     */
+    public Image getImage(Map<String, String> labels, boolean allowMissingEmptyBuildFlags) {
+        String implementation = labels.get(TlsImageLabels.IMPLEMENTATION.getLabelName());
+        String version = labels.get(TlsImageLabels.VERSION.getLabelName());
+        String role = labels.get(TlsImageLabels.CONNECTION_ROLE.getLabelName());
+        boolean hasBuildFlags =
+                labels.containsKey(TlsImageLabels.ADDITIONAL_BUILD_FLAGS.getLabelName());
+        int indexedLabels = hasBuildFlags ? 4 : 3;
+        if (implementation == null
+                || version == null
+                || role == null
+                || labels.size() != indexedLabels) {
+            return callLimiter
+                    .call(
+                            "list images",
+                            true,
+                            () -> docker.listImagesCmd().withLabelFilter(labels).exec())
+                    .stream()
+                    .findFirst()
+                    .orElse(null);
+        }
+        return getImage(
+                implementation,
+                version,
+                role,
+                labels.get(TlsImageLabels.ADDITIONAL_BUILD_FLAGS.getLabelName()),
+                allowMissingEmptyBuildFlags);
+    }
+
+    private Image getImage(
+            String implementation,
+            String version,
+            String role,
+            String buildFlags,
+            boolean allowMissingEmptyBuildFlags) {
+        Snapshot current = getSnapshot();
+        if (buildFlags == null) {
+            return current.byBaseLabels.get(new LabelKey(implementation, version, role, null));
+        }
+        Image image = current.byLabels.get(new LabelKey(implementation, version, role, buildFlags));
+        if (image == null
+                && allowMissingEmptyBuildFlags
+                && DockerBuilder.NO_ADDITIONAL_BUILDFLAGS.equals(buildFlags)) {
+            image =
+                    current.withoutBuildFlags.get(
+                            new LabelKey(implementation, version, role, null));
+        }
+        return image;
+    }
+
+    /**
+     * @return All TLS images that are tagged (i.e. not dangling)
+     */
+    public List<Image> getImages() {
+        return getSnapshot().taggedImages;
+    }
+
+    /**
+     * @param role The connection role
+     * @param type The implementation
+     * @return The versions of all tagged images of the implementation and role
+     */
+    public List<String> getVersions(ConnectionRole role, TlsImplementationType type) {
+        List<Image> images =
+                getSnapshot()
+                        .byImplementation
+                        .get(Arrays.asList(type.name().toLowerCase(), role.name().toLowerCase()));
+        List<String> versions = new LinkedList<>();
+        if (images != null) {
+            for (Image image : images) {
+                versions.add(image.getLabels().get(TlsImageLabels.VERSION.getLabelName()));
+            }
+        }
+        return versions;
+    }
+
+    private static boolean isDangling(Image image) {
+        String[] repoTags = image.getRepoTags();
+        return repoTags == null
+                || repoTags.length == 0
+                || Arrays.stream(repoTags).allMatch(DANGLING_TAG::equals);
+    }
+
+    /** Immutable index over one listing of the TLS images. */
+    public static class Snapshot {
+        private final long epoch;
+        private final List<Image> taggedImages;
+        private final Map<LabelKey, Image> byLabels = new HashMap<>();
+        private final Map<LabelKey, Image> byBaseLabels = new HashMap<>();
+        private final Map<LabelKey, Image> withoutBuildFlags = new HashMap<>();
+        private final Map<List<String>, List<Image>> byImplementation = new HashMap<>();
+
+        private Snapshot(List<Image> images, long epoch) {
+            this.epoch = epoch;
+            List<Image> tagged = new ArrayList<>();
+            for (Image image : images) {
+                Map<String, String> labels = image.getLabels();
+                if (labels == null) {
+                    continue;
+                }
+                String implementation = labels.get(TlsImageLabels.IMPLEMENTATION.getLabelName());
+                String version = labels.get(TlsImageLabels.VERSION.getLabelName());
+                String role = labels.get(TlsImageLabels.CONNECTION_ROLE.getLabelName());
+                String buildFlags =
+                        labels.get(TlsImageLabels.ADDITIONAL_BUILD_FLAGS.getLabelName());
+                if (implementation == null || version == null || role == null) {
+                    continue;
+                }
+                // keep the first image, listings are ordered by creation date (newest first)
+                byBaseLabels.putIfAbsent(new LabelKey(implementation, version, role, null), image);
+                if (buildFlags == null) {
+                    withoutBuildFlags.putIfAbsent(
+                            new LabelKey(implementation, version, role, null), image);
+                } else {
+                    byLabels.putIfAbsent(
+                            new LabelKey(implementation, version, role, buildFlags), image);
+                }
+                if (!isDangling(image)) {
+                    tagged.add(image);
+                    byImplementation
+                            .computeIfAbsent(
+                                    Arrays.asList(implementation, role), k -> new ArrayList<>())
+                            .add(image);
+                }
+            }
+            this.taggedImages = Collections.unmodifiableList(tagged);
+        }
+    }
+
+    private static class LabelKey {
+        private final String implementation;
+        private final String version;
+        private final String role;
+        private final String buildFlags;
+
+        private LabelKey(String implementation, String version, String role, String buildFlags) {
+            this.implementation = implementation;
+            this.version = version;
+            this.role = role;
+            this.buildFlags = buildFlags;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof LabelKey)) {
+                return false;
+            }
+            LabelKey other = (LabelKey) obj;
+            return implementation.equals(other.implementation)
+                    && version.equals(other.version)
+                    && role.equals(other.role)
+                    && Objects.equals(buildFlags, other.buildFlags);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(implementation, version, role, buildFlags);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.placement;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The logical CPUs of a machine with the physical core and NUMA node they belong to. The CPU ids
+ * are the ones used by {@code cpuset.cpus}, so the topology has to be the one of the docker host.
+ */
+public class CpuTopology {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final Pattern CPU_DIRECTORY = Pattern.compile("cpu(\\d+)");
+    private static final Pattern NODE_DIRECTORY = Pattern.compile("node(\\d+)");
+
+    private final List<LogicalCpu> cpus;
+    private final boolean numaKnown;
+
+    /**
+     * @param cpus The logical CPUs
+     * @param numaKnown Whether the nodes of the CPUs are known, so memory can be bound to them
+     */
+    public CpuTopology(List<LogicalCpu> cpus, boolean numaKnown) {
+        if (cpus.isEmpty()) {
+            throw new IllegalArgumentException("At least one CPU is needed");
+        }
+        List<LogicalCpu> sorted = new ArrayList<>(cpus);
+        sorted.sort(Comparator.comparingInt(LogicalCpu::getId));
+        this.cpus = List.copyOf(sorted);
+        this.numaKnown = numaKnown;
+    }
+
+    /**
+     * Reads the topology of this machine from sysfs. If it is not available, every available
+     * processor is treated as a core of its own on a single node.
+     *
+     * @return The topology of this machine
+     */
+    public static CpuTopology detect() {
+        try {
+            return fromSysfs(Paths.get("/sys/devices/system"));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not read CPU topology, assuming flat topology", e);
+            return flat(Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * @param count Number of logical CPUs
+     * @return A topology with one core per CPU on a single node
+     */
+    public static CpuTopology flat(int count) {
+        List<LogicalCpu> cpus = new ArrayList<>(count);
+        for (int id = 0; id < count; id++) {
+            cpus.add(new LogicalCpu(id, id, 0));
+        }
+        return new CpuTopology(cpus, false);
+    }
+
+    /**
+     * @param root Directory laid out like {@code /sys/devices/system}, containing {@code
+     *     cpu/cpuN/topology} and optionally {@code node/nodeN/cpulist}
+     * @return The topology of the online CPUs
+     * @throws IOException If the directory could not be read
+     */
+    static CpuTopology fromSysfs(Path root) throws IOException {
+        Map<Integer, Integer> nodeOfCpu = new HashMap<>();
+        Path nodeRoot = root.resolve("node");
+        if (Files.isDirectory(nodeRoot)) {
+            try (DirectoryStream<Path> nodes = Files.newDirectoryStream(nodeRoot)) {
+                for (Path node : nodes) {
+                    Matcher matcher = NODE_DIRECTORY.matcher(node.getFileName().toString());
+                    Path cpuList = node.resolve("cpulist");
+                    if (matcher.matches() && Files.exists(cpuList)) {
+                        int nodeId = Integer.parseInt(matcher.group(1));
+                        for (int cpu : parseCpuList(readLine(cpuList))) {
+                            nodeOfCpu.put(cpu, nodeId);
+                        }
+                    }
+                }
+            }
+        }
+        Path cpuRoot = root.resolve("cpu");
+        List<Integer> online = null;
+        if (Files.exists(cpuRoot.resolve("online"))) {
+            online = parseCpuList(readLine(cpuRoot.resolve("online")));
+        }
+        List<LogicalCpu> cpus = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(cpuRoot)) {
+            for (Path entry : entries) {
+                Matcher matcher = CPU_DIRECTORY.matcher(entry.getFileName().toString());
+                Path topology = entry.resolve("topology");
+                if (!matcher.matches() || !Files.isDirectory(topology)) {
+                    continue;
+                }
+                int id = Integer.parseInt(matcher.group(1));
+                if (online != null && !online.contains(id)) {
+                    continue;
+                }
+                int packageId = Integer.parseInt(readLine(topology.resolve("physical_package_id")));
+                int coreId = Integer.parseInt(readLine(topology.resolve("core_id")));
+                // core ids are only unique within a package
+                int core = packageId * 0x10000 + coreId;
+                cpus.add(new LogicalCpu(id, core, nodeOfCpu.getOrDefault(id, 0)));
+            }
+        }
+        return new CpuTopology(cpus, !nodeOfCpu.isEmpty());
+    }
+
+    private static String readLine(Path file) throws IOException {
+        return new String(Files.readAllBytes(file)).trim();
+    }
+
+    /**
+     * @param list A CPU list like {@code 0-3,8,10-11}
+     * @return The CPU ids of the list
+     */
+    public static List<Integer> parseCpuList(String list) {
+        List<Integer> ids = new ArrayList<>();
+        if (list.isBlank()) {
+            return ids;
+        }
+        for (String range : list.trim().split(",")) {
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                ids.add(Integer.parseInt(range.trim()));
+            } else {
+                int first = Integer.parseInt(range.substring(0, dash).trim());
+                int last = Integer.parseInt(range.substring(dash + 1).trim());
+                for (int id = first; id <= last; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return The logical CPUs ordered by id
+     */
+    public List<LogicalCpu> getCpus() {
+        return cpus;
+    }
+
+    /**
+     * @return Whether the NUMA nodes of the CPUs are known
+     */
+    public boolean isNumaKnown() {
+        return numaKnown;
+    }
+
+    public long getCoreCount() {
+        return cpus.stream().mapToInt(LogicalCpu::getCore).distinct().count();
+    }
+
+    public long getNodeCount() {
+        return cpus.stream().mapToInt(LogicalCpu::getNode).distinct().count();
+    }
+
+    @Override
+    public String toString() {
+        return "CpuTopology{"
+                + "cpus="
+                + cpus.size()
+                + ", cores="
+                + getCoreCount()
+                + ", nodes="
+                + getNodeCount()
+                + '}';
+    }
+
+    /** A hardware thread */
+    public static class LogicalCpu {
+        private final int id;
+        private final int core;
+        private final int node;
+
+        /**
+         * @param id The id used in cpusets
+         * @param core Identifies the physical core, shared by the hardware threads of the core
+         * @param node The NUMA node
+         */
+        public LogicalCpu(int id, int core, int node) {
+            this.id = id;
+            this.core = core;
+            this.node = node;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public int getCore() {
+            return core;
+        }
+
+        public int getNode() {
+            return node;
+        }
+
+        @Override
+        public String toString() {
+            return "LogicalCpu{" + "id=" + id + ", core=" + core + ", node=" + node + '}';
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.placement;
+
+import com.github.dockerjava.api.model.HostConfig;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/** The CPUs and memory limits assigned to a container by a {@link PlacementScheduler}. */
+public class Placement {
+
+    /** Period of the CFS quota in microseconds, the docker default */
+    static final long CPU_PERIOD = 100_000;
+
+    private final List<Integer> cpus;
+    private final List<Integer> nodes;
+    private final ResourceRequest request;
+
+    Placement(List<Integer> cpus, List<Integer> nodes, ResourceRequest request) {
+        this.cpus = List.copyOf(cpus);
+        this.nodes = List.copyOf(nodes);
+        this.request = request;
+    }
+
+    /**
+     * Sets the cpuset, the CPU quota and the memory limit of the placement.
+     *
+     * @param cfg The host config of the container
+     * @return The host config
+     */
+    public HostConfig applyTo(HostConfig cfg) {
+        cfg = cfg.withCpusetCpus(toList(cpus));
+        if (!nodes.isEmpty()) {
+            cfg = cfg.withCpusetMems(toList(nodes));
+        }
+        if (request.getCpuLimit() != null) {
+            cfg =
+                    cfg.withCpuPeriod(CPU_PERIOD)
+                            .withCpuQuota(Math.round(request.getCpuLimit() * CPU_PERIOD));
+        }
+        if (request.getMemoryBytes() != null) {
+            // no swap, so the limit is a hard one
+            cfg = cfg.withMemory(request.getMemoryBytes()).withMemorySwap(request.getMemoryBytes());
+        }
+        return cfg;
+    }
+
+    private static String toList(List<Integer> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    /**
+     * @return The logical CPUs the container is pinned to, ordered by id
+     */
+    public List<Integer> getCpus() {
+        return cpus;
+    }
+
+    /**
+     * @return The NUMA nodes memory is allocated from, empty if the nodes are unknown
+     */
+    public List<Integer> getNodes() {
+        return nodes;
+    }
+
+    public ResourceRequest getRequest() {
+        return request;
+    }
+
+    @Override
+    public String toString() {
+        return "Placement{" + "cpus=" + cpus + ", nodes=" + nodes + ", request=" + request + '}';
+    }
+}
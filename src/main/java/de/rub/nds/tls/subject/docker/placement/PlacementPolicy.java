@@ -0,0 +1,24 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.placement;
+
+/** Describes how a {@link PlacementScheduler} picks the CPUs of a container. */
+public enum PlacementPolicy {
+    /**
+     * Use as few physical cores and NUMA nodes as possible, filling the hardware threads of a core
+     * before using the next one. Leaves whole cores and nodes free for other work.
+     */
+    PACK,
+    /**
+     * Use one hardware thread per physical core and distribute containers over the NUMA nodes, so
+     * containers compete as little as possible for cores, caches and memory bandwidth. The CPUs of
+     * one container are kept on a single node if it has enough of them.
+     */
+    SPREAD
+}
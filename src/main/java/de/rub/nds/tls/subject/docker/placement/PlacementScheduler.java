@@ -0,0 +1,187 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.placement;
+
+import de.rub.nds.tls.subject.docker.placement.CpuTopology.LogicalCpu;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Pins containers to logical CPUs of the docker host according to a {@link PlacementPolicy} and
+ * keeps track of how many containers use each CPU. A CPU may be assigned to several containers once
+ * all CPUs are in use; the least used CPUs are always taken first.
+ *
+ * <p>The topology has to be the one of the docker host, so {@link #instance()} is only meaningful
+ * if the daemon runs on this machine.
+ */
+public class PlacementScheduler {
+
+    private static class InstanceHolder {
+        private static final PlacementScheduler INSTANCE =
+                new PlacementScheduler(CpuTopology.detect(), PlacementPolicy.SPREAD);
+    }
+
+    /**
+     * @return A shared scheduler spreading over the CPUs of this machine
+     */
+    public static PlacementScheduler instance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private final CpuTopology topology;
+    private final PlacementPolicy policy;
+    // number of placements per logical CPU id
+    private final Map<Integer, Integer> loads = new HashMap<>();
+
+    public PlacementScheduler(CpuTopology topology, PlacementPolicy policy) {
+        this.topology = topology;
+        this.policy = policy;
+        for (LogicalCpu cpu : topology.getCpus()) {
+            loads.put(cpu.getId(), 0);
+        }
+    }
+
+    /**
+     * Assigns CPUs to a container.
+     *
+     * @param request The resources of the container
+     * @return The assignment, which has to be returned using {@link #release(Placement)}
+     * @throws IllegalArgumentException If more CPUs are requested than the machine has
+     */
+    public synchronized Placement place(ResourceRequest request) {
+        List<LogicalCpu> cpus = topology.getCpus();
+        if (request.getCpus() > cpus.size()) {
+            throw new IllegalArgumentException(
+                    "Requested " + request.getCpus() + " CPUs, but only " + cpus.size() + " exist");
+        }
+        List<LogicalCpu> candidates = new ArrayList<>(cpus);
+        if (policy == PlacementPolicy.SPREAD && topology.isNumaKnown()) {
+            // the CPUs of one container share a node if it fits, containers are spread over nodes
+            Integer node = getSpreadNode(cpus, request.getCpus());
+            if (node != null) {
+                candidates.removeIf(cpu -> cpu.getNode() != node);
+            }
+        }
+        // the CPUs picked for this container do not count, they should stay on one node
+        Map<Integer, Integer> nodeLoads = new HashMap<>();
+        for (LogicalCpu cpu : cpus) {
+            nodeLoads.merge(cpu.getNode(), loads.get(cpu.getId()), Integer::sum);
+        }
+        List<LogicalCpu> picked = new ArrayList<>();
+        for (int i = 0; i < request.getCpus(); i++) {
+            Map<Integer, Integer> coreLoads = new HashMap<>();
+            for (LogicalCpu cpu : cpus) {
+                int load = loads.get(cpu.getId()) + (picked.contains(cpu) ? 1 : 0);
+                coreLoads.merge(cpu.getCore(), load, Integer::sum);
+            }
+            Comparator<LogicalCpu> order = Comparator.comparingInt(cpu -> loads.get(cpu.getId()));
+            if (policy == PlacementPolicy.PACK) {
+                // cpus of a core and cores of a node are adjacent in this order
+                order =
+                        order.thenComparingInt(LogicalCpu::getNode)
+                                .thenComparingInt(LogicalCpu::getCore);
+            } else {
+                order =
+                        order.thenComparingInt(cpu -> coreLoads.get(cpu.getCore()))
+                                .thenComparingInt(cpu -> nodeLoads.get(cpu.getNode()));
+            }
+            LogicalCpu best =
+                    candidates.stream()
+                            .min(order.thenComparingInt(LogicalCpu::getId))
+                            .orElseThrow();
+            candidates.remove(best);
+            picked.add(best);
+        }
+        TreeSet<Integer> cpuIds = new TreeSet<>();
+        TreeSet<Integer> nodes = new TreeSet<>();
+        for (LogicalCpu cpu : picked) {
+            loads.merge(cpu.getId(), 1, Integer::sum);
+            cpuIds.add(cpu.getId());
+            nodes.add(cpu.getNode());
+        }
+        if (!topology.isNumaKnown()) {
+            nodes.clear();
+        }
+        return new Placement(new ArrayList<>(cpuIds), new ArrayList<>(nodes), request);
+    }
+
+    /**
+     * Picks the node whose least used CPUs are used the least, then the least used node.
+     *
+     * @param cpus All CPUs
+     * @param count The number of CPUs of the container
+     * @return The node, or null if no node has enough CPUs
+     */
+    private Integer getSpreadNode(List<LogicalCpu> cpus, int count) {
+        Map<Integer, List<Integer>> nodeCpuLoads = new TreeMap<>();
+        for (LogicalCpu cpu : cpus) {
+            nodeCpuLoads
+                    .computeIfAbsent(cpu.getNode(), node -> new ArrayList<>())
+                    .add(loads.get(cpu.getId()));
+        }
+        Integer best = null;
+        int bestLeastUsed = 0;
+        int bestTotal = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : nodeCpuLoads.entrySet()) {
+            List<Integer> nodeLoads = entry.getValue();
+            if (nodeLoads.size() < count) {
+                continue;
+            }
+            Collections.sort(nodeLoads);
+            int leastUsed = 0;
+            int total = 0;
+            for (int i = 0; i < nodeLoads.size(); i++) {
+                if (i < count) {
+                    leastUsed += nodeLoads.get(i);
+                }
+                total += nodeLoads.get(i);
+            }
+            if (best == null
+                    || leastUsed < bestLeastUsed
+                    || (leastUsed == bestLeastUsed && total < bestTotal)) {
+                best = entry.getKey();
+                bestLeastUsed = leastUsed;
+                bestTotal = total;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the CPUs of a placement of this scheduler.
+     *
+     * @param placement The placement to release
+     */
+    public synchronized void release(Placement placement) {
+        for (int cpu : placement.getCpus()) {
+            loads.computeIfPresent(cpu, (id, load) -> Math.max(0, load - 1));
+        }
+    }
+
+    /**
+     * @return The number of placements using each logical CPU, by CPU id
+     */
+    public synchronized Map<Integer, Integer> getLoads() {
+        return Map.copyOf(loads);
+    }
+
+    public CpuTopology getTopology() {
+        return topology;
+    }
+
+    public PlacementPolicy getPolicy() {
+        return policy;
+    }
+}
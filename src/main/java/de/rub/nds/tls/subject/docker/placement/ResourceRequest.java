@@ -0,0 +1,78 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.placement;
+
+/** The CPUs and memory a container gets from a {@link PlacementScheduler}. */
+public class ResourceRequest {
+
+    private int cpus = 1;
+    private Double cpuLimit;
+    private Long memoryBytes;
+
+    /**
+     * @param value Number of logical CPUs the container is pinned to
+     * @return this request
+     */
+    public ResourceRequest cpus(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("cpus must be at least 1");
+        }
+        cpus = value;
+        return this;
+    }
+
+    /**
+     * @param value CPU time the container may use within its CPUs, in CPUs (e.g. 0.5); null for no
+     *     quota
+     * @return this request
+     */
+    public ResourceRequest cpuLimit(Double value) {
+        if (value != null && value <= 0) {
+            throw new IllegalArgumentException("cpuLimit must be positive");
+        }
+        cpuLimit = value;
+        return this;
+    }
+
+    /**
+     * @param value Memory limit in bytes; null for no limit
+     * @return this request
+     */
+    public ResourceRequest memoryBytes(Long value) {
+        if (value != null && value <= 0) {
+            throw new IllegalArgumentException("memoryBytes must be positive");
+        }
+        memoryBytes = value;
+        return this;
+    }
+
+    public int getCpus() {
+        return cpus;
+    }
+
+    public Double getCpuLimit() {
+        return cpuLimit;
+    }
+
+    public Long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceRequest{"
+                + "cpus="
+                + cpus
+                + ", cpuLimit="
+                + cpuLimit
+                + ", memoryBytes="
+                + memoryBytes
+                + '}';
+    }
+}
@@ -0,0 +1,17 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.pool;
+
+/** Describes how a {@link DockerTlsClientFarm} picks the client container for a connect. */
+public enum DispatchStrategy {
+    /** Use the containers in turn. */
+    ROUND_ROBIN,
+    /** Use the container with the fewest running connects, ties are broken round robin. */
+    LEAST_LOADED
+}
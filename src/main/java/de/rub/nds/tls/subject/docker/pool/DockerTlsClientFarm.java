@@ -0,0 +1,294 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.pool;
+
+import com.github.dockerjava.api.exception.DockerException;
+import de.rub.nds.tls.subject.docker.DockerExecInstance;
+import de.rub.nds.tls.subject.docker.DockerTlsClientInstance;
+import de.rub.nds.tls.subject.docker.DockerTlsManagerFactory.TlsClientInstanceBuilder;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A fixed set of started client containers of the same kind, which share the connects made against
+ * a server. Connects are dispatched according to a {@link DispatchStrategy}; each one runs as exec
+ * in the chosen container, just like {@link DockerTlsClientInstance#connect(String, int)}.
+ */
+public class DockerTlsClientFarm implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final List<Member> members;
+    private final DispatchStrategy strategy;
+    private final AtomicInteger nextMember = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    /**
+     * Starts one client container per available core using round robin dispatch.
+     *
+     * @see #DockerTlsClientFarm(TlsClientInstanceBuilder, int, DispatchStrategy)
+     */
+    public DockerTlsClientFarm(TlsClientInstanceBuilder builder)
+            throws DockerException, InterruptedException {
+        this(builder, getDefaultSize(), DispatchStrategy.ROUND_ROBIN);
+    }
+
+    /**
+     * Builds and starts the client containers. The builder is switched to {@code
+     * connectOnStartup(false)} and must not set a container name, as it is used for all containers.
+     *
+     * @param builder Builder of the clients
+     * @param size Number of client containers
+     * @param strategy How connects are distributed over the containers
+     * @throws DockerException If a container could not be created or started
+     * @throws InterruptedException If interrupted while starting the containers
+     */
+    public DockerTlsClientFarm(
+            TlsClientInstanceBuilder builder, int size, DispatchStrategy strategy)
+            throws DockerException, InterruptedException {
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1");
+        }
+        this.strategy = strategy;
+        builder.connectOnStartup(false);
+        List<DockerTlsClientInstance> clients = new ArrayList<>(size);
+        List<CompletableFuture<DockerTlsClientInstance>> starts = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                DockerTlsClientInstance client = builder.build();
+                clients.add(client);
+                starts.add(client.startAsync());
+            }
+            CompletableFuture.allOf(starts.toArray(new CompletableFuture<?>[0])).get();
+        } catch (ExecutionException e) {
+            destroyAll(clients);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Could not start client farm", e.getCause());
+        } catch (RuntimeException | InterruptedException e) {
+            destroyAll(clients);
+            throw e;
+        }
+        List<Member> started = new ArrayList<>(size);
+        for (DockerTlsClientInstance client : clients) {
+            started.add(new Member(client));
+        }
+        this.members = Collections.unmodifiableList(started);
+    }
+
+    /**
+     * @return The default number of client containers, one per available core
+     */
+    public static int getDefaultSize() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Connects one of the clients to the given server.
+     *
+     * @param host The host to connect to
+     * @param targetPort The port to connect to
+     * @return The exec running the client
+     */
+    public DockerExecInstance connect(String host, int targetPort) {
+        ensureOpen();
+        Member member = pickMember();
+        DockerExecInstance exec = member.client.connect(host, targetPort);
+        member.track(exec);
+        return exec;
+    }
+
+    /**
+     * Dispatches count connects to the given server over the clients.
+     *
+     * @param host The host to connect to
+     * @param targetPort The port to connect to
+     * @param count Number of connects
+     * @return The execs running the clients in the order they were started
+     */
+    public List<DockerExecInstance> connect(String host, int targetPort, int count) {
+        List<DockerExecInstance> execs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            execs.add(connect(host, targetPort));
+        }
+        return execs;
+    }
+
+    /**
+     * Waits until the given execs finished and collects their exit codes. Execs whose exit code
+     * could not be determined are recorded as failed with {@link FarmResult#UNKNOWN_EXIT_CODE}.
+     *
+     * @param execs Execs returned by this farm
+     * @param timeout Maximum time to wait for all execs
+     * @return The aggregated results
+     * @throws InterruptedException If interrupted while waiting
+     * @throws TimeoutException If not all execs finished in time
+     */
+    public FarmResult awaitResults(List<DockerExecInstance> execs, Duration timeout)
+            throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        List<Long> exitCodes = new ArrayList<>(execs.size());
+        List<Duration> durations = new ArrayList<>(execs.size());
+        for (DockerExecInstance exec : execs) {
+            long exitCode;
+            try {
+                exitCode = exec.onExit().get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                // the exec may still be running, so its exit code cannot be inspected either
+                LOGGER.warn(
+                        "Could not get exit code of exec {}",
+                        exec.execCreation.getId(),
+                        e.getCause());
+                exitCode = FarmResult.UNKNOWN_EXIT_CODE;
+            }
+            exitCodes.add(exitCode);
+            exec.getDuration().ifPresent(durations::add);
+        }
+        return new FarmResult(exitCodes, durations);
+    }
+
+    private Member pickMember() {
+        return members.get(
+                pickIndex(
+                        strategy,
+                        nextMember.getAndIncrement(),
+                        members.size(),
+                        index -> members.get(index).getLoad()));
+    }
+
+    /**
+     * @param strategy The dispatch strategy
+     * @param counter Number of connects dispatched before, which rotates the starting member
+     * @param size Number of members
+     * @param load Number of running connects of the member with the given index
+     * @return Index of the member the next connect is dispatched to; ties of the least loaded
+     *     members are broken in round robin order
+     */
+    static int pickIndex(DispatchStrategy strategy, int counter, int size, IntUnaryOperator load) {
+        int start = Math.floorMod(counter, size);
+        if (strategy == DispatchStrategy.ROUND_ROBIN) {
+            return start;
+        }
+        int best = start;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            int memberLoad = load.applyAsInt(index);
+            if (memberLoad < bestLoad) {
+                best = index;
+                bestLoad = memberLoad;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return The client containers of this farm
+     */
+    public List<DockerTlsClientInstance> getClients() {
+        List<DockerTlsClientInstance> clients = new ArrayList<>(members.size());
+        for (Member member : members) {
+            clients.add(member.client);
+        }
+        return clients;
+    }
+
+    /**
+     * @return The number of connects running in each client container
+     */
+    public List<Integer> getLoads() {
+        List<Integer> loads = new ArrayList<>(members.size());
+        for (Member member : members) {
+            loads.add(member.getLoad());
+        }
+        return loads;
+    }
+
+    public DispatchStrategy getStrategy() {
+        return strategy;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Farm is closed");
+        }
+    }
+
+    private static void destroyAll(List<DockerTlsClientInstance> clients) {
+        for (DockerTlsClientInstance client : clients) {
+            destroy(client);
+        }
+    }
+
+    private static void destroy(DockerTlsClientInstance client) {
+        try {
+            client.close();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not destroy client container {}", client.getId(), e);
+        }
+    }
+
+    /** Destroys all client containers. */
+    @Override
+    public void close() {
+        closed = true;
+        List<CompletableFuture<Void>> closing = new ArrayList<>(members.size());
+        for (Member member : members) {
+            DockerTlsClientInstance client = member.client;
+            closing.add(
+                    client.closeAsync()
+                            .exceptionally(
+                                    e -> {
+                                        LOGGER.warn(
+                                                "Could not destroy client container {}",
+                                                client.getId(),
+                                                e);
+                                        return null;
+                                    }));
+        }
+        CompletableFuture.allOf(closing.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    private static class Member {
+        private final DockerTlsClientInstance client;
+        // connects that did not exit yet
+        private final List<DockerExecInstance> running = new ArrayList<>();
+
+        private Member(DockerTlsClientInstance client) {
+            this.client = client;
+        }
+
+        private synchronized void track(DockerExecInstance exec) {
+            getLoad();
+            running.add(exec);
+        }
+
+        private synchronized int getLoad() {
+            Iterator<DockerExecInstance> iterator = running.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().hasExited()) {
+                    iterator.remove();
+                }
+            }
+            return running.size();
+        }
+    }
+}
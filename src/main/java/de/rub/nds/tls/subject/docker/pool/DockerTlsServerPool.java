@@ -0,0 +1,406 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.pool;
+
+import de.rub.nds.tls.subject.TlsImplementationType;
+import de.rub.nds.tls.subject.constants.TransportType;
+import de.rub.nds.tls.subject.docker.DockerTlsManagerFactory.TlsServerInstanceBuilder;
+import de.rub.nds.tls.subject.docker.DockerTlsServerInstance;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Keeps started TLS server containers ready for each {@link PoolKey} and hands them out as {@link
+ * ServerLease}s. Containers only become leasable once their server is ready (see {@link
+ * PoolConfig#getReadinessTimeout()}), also after a restart. Idle containers are health checked
+ * before they are leased, replaced if they fail and recycled or destroyed according to the {@link
+ * ReleasePolicy} once the lease is closed. A background task keeps {@link PoolConfig#getMinIdle()}
+ * containers ready per key and evicts surplus containers that were idle longer than {@link
+ * PoolConfig#getMaxIdleTime()}.
+ */
+public class DockerTlsServerPool implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final PoolConfig config;
+    private final InstanceFactory instanceFactory;
+    private final Map<PoolKey, SubPool> subPools = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenanceExecutor;
+    private final ExecutorService workerExecutor;
+    private volatile boolean closed = false;
+
+    public DockerTlsServerPool(PoolConfig config) {
+        this(config, key -> buildInstance(config, key));
+    }
+
+    DockerTlsServerPool(PoolConfig config, InstanceFactory instanceFactory) {
+        this.config = config;
+        this.instanceFactory = instanceFactory;
+        this.maintenanceExecutor =
+                Executors.newSingleThreadScheduledExecutor(
+                        daemonThreadFactory("tls-server-pool-maintenance"));
+        this.workerExecutor = Executors.newCachedThreadPool(daemonThreadFactory("tls-server-pool"));
+        long interval = config.getMaintenanceInterval().toMillis();
+        maintenanceExecutor.scheduleWithFixedDelay(
+                this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public DockerTlsServerPool() {
+        this(new PoolConfig());
+    }
+
+    public ServerLease lease(TlsImplementationType type, String version)
+            throws InterruptedException, TimeoutException {
+        return lease(new PoolKey(type, version, TransportType.TCP));
+    }
+
+    /**
+     * Leases a started server container. An idle container is handed out if one passes the health
+     * check, otherwise a new container is started as long as {@link PoolConfig#getMaxTotal()} is
+     * not reached. If it is reached, the call waits for a lease of the same key to be released.
+     *
+     * @param key The kind of server to lease
+     * @return The lease; close it to return the container to the pool
+     * @throws InterruptedException If interrupted while waiting for a container
+     * @throws TimeoutException If no container became available within the lease timeout
+     */
+    public ServerLease lease(PoolKey key) throws InterruptedException, TimeoutException {
+        SubPool subPool = getSubPool(key);
+        long deadline = System.nanoTime() + config.getLeaseTimeout().toNanos();
+        while (true) {
+            PooledServer candidate;
+            synchronized (subPool) {
+                ensureOpen();
+                candidate = subPool.idle.pollFirst();
+                if (candidate != null) {
+                    subPool.leased++;
+                } else if (subPool.total() < config.getMaxTotal()) {
+                    subPool.creating++;
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new TimeoutException("No pooled server available for " + key);
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(subPool, remaining);
+                    continue;
+                }
+            }
+            if (candidate == null) {
+                DockerTlsServerInstance instance = null;
+                try {
+                    instance = createInstance(key);
+                } finally {
+                    synchronized (subPool) {
+                        subPool.creating--;
+                        if (instance != null) {
+                            subPool.leased++;
+                        }
+                        subPool.notifyAll();
+                    }
+                }
+                scheduleRefill(key, subPool);
+                instance.holdAwake();
+                return new ServerLease(this, key, instance);
+            }
+            // hibernated containers are unpaused before the health check
+            candidate.instance.holdAwake();
+            if (!config.isTestOnLease() || isHealthy(candidate.instance)) {
+                scheduleRefill(key, subPool);
+                return new ServerLease(this, key, candidate.instance);
+            }
+            LOGGER.debug("Replacing unhealthy pooled container {}", candidate.instance.getId());
+            destroy(candidate.instance);
+            synchronized (subPool) {
+                subPool.leased--;
+                subPool.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Starts containers for the given key until {@link PoolConfig#getMinIdle()} containers are
+     * ready. Blocks until all containers are started.
+     *
+     * @param key The kind of server to prepare
+     */
+    public void prewarm(PoolKey key) {
+        ensureOpen();
+        refill(key, getSubPool(key));
+    }
+
+    void release(ServerLease lease) {
+        PoolKey key = lease.getKey();
+        SubPool subPool = getSubPool(key);
+        DockerTlsServerInstance instance = lease.getPooledInstance();
+        instance.releaseAwake();
+        ReleasePolicy policy =
+                lease.isBroken() || closed ? ReleasePolicy.DESTROY : config.getReleasePolicy();
+        try {
+            workerExecutor.execute(() -> recycle(key, subPool, instance, policy));
+        } catch (RejectedExecutionException e) {
+            recycle(key, subPool, instance, ReleasePolicy.DESTROY);
+        }
+    }
+
+    private void recycle(
+            PoolKey key, SubPool subPool, DockerTlsServerInstance instance, ReleasePolicy policy) {
+        boolean reusable = false;
+        try {
+            if (policy == ReleasePolicy.RESTART) {
+                instance.restart();
+                awaitReady(instance);
+                reusable = true;
+            } else if (policy == ReleasePolicy.REUSE) {
+                reusable = true;
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not recycle pooled container {}", instance.getId(), e);
+        }
+        synchronized (subPool) {
+            subPool.leased--;
+            if (reusable && !closed) {
+                subPool.idle.addFirst(new PooledServer(instance));
+            } else {
+                reusable = false;
+            }
+            subPool.notifyAll();
+        }
+        if (!reusable) {
+            destroy(instance);
+            if (!closed) {
+                refill(key, subPool);
+            }
+        }
+    }
+
+    private void scheduleRefill(PoolKey key, SubPool subPool) {
+        try {
+            workerExecutor.execute(() -> refill(key, subPool));
+        } catch (RejectedExecutionException e) {
+            LOGGER.debug("Pool is shutting down, not refilling {}", key);
+        }
+    }
+
+    private void refill(PoolKey key, SubPool subPool) {
+        while (true) {
+            synchronized (subPool) {
+                if (closed
+                        || subPool.idle.size() + subPool.creating >= config.getMinIdle()
+                        || subPool.total() >= config.getMaxTotal()) {
+                    return;
+                }
+                subPool.creating++;
+            }
+            DockerTlsServerInstance instance = null;
+            try {
+                instance = createInstance(key);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                LOGGER.warn("Could not start pooled container for {}", key, e);
+            }
+            boolean keep = false;
+            synchronized (subPool) {
+                subPool.creating--;
+                if (instance != null && !closed) {
+                    subPool.idle.addFirst(new PooledServer(instance));
+                    keep = true;
+                }
+                subPool.notifyAll();
+            }
+            if (instance == null) {
+                return;
+            }
+            if (!keep) {
+                destroy(instance);
+            }
+        }
+    }
+
+    private void maintain() {
+        for (Map.Entry<PoolKey, SubPool> entry : subPools.entrySet()) {
+            SubPool subPool = entry.getValue();
+            List<PooledServer> evicted = new LinkedList<>();
+            long now = System.nanoTime();
+            synchronized (subPool) {
+                while (subPool.idle.size() > config.getMinIdle()) {
+                    PooledServer oldest = subPool.idle.peekLast();
+                    if (now - oldest.idleSince < config.getMaxIdleTime().toNanos()) {
+                        break;
+                    }
+                    evicted.add(subPool.idle.pollLast());
+                }
+            }
+            for (PooledServer pooledServer : evicted) {
+                LOGGER.debug("Evicting idle pooled container {}", pooledServer.instance.getId());
+                destroy(pooledServer.instance);
+            }
+            try {
+                refill(entry.getKey(), subPool);
+            } catch (RuntimeException e) {
+                LOGGER.warn("Pool maintenance failed for {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    private DockerTlsServerInstance createInstance(PoolKey key) throws InterruptedException {
+        DockerTlsServerInstance instance = instanceFactory.create(key);
+        try {
+            instance.start();
+            awaitReady(instance);
+        } catch (RuntimeException e) {
+            destroy(instance);
+            throw e;
+        }
+        return instance;
+    }
+
+    private static DockerTlsServerInstance buildInstance(PoolConfig config, PoolKey key)
+            throws InterruptedException {
+        TlsServerInstanceBuilder builder =
+                new TlsServerInstanceBuilder(
+                                key.getType(), key.getVersion(), key.getTransportType())
+                        .additionalBuildFlags(key.getAdditionalBuildFlags())
+                        .endpoints(config.getEndpoints());
+        if (config.getBuilderHook() != null) {
+            builder = config.getBuilderHook().apply(builder);
+        }
+        // the pool owns the container lifecycle, so it must be removed once destroyed
+        return builder.autoRemove(true).build();
+    }
+
+    private void awaitReady(DockerTlsServerInstance instance) {
+        if (config.getReadinessTimeout() != null) {
+            instance.waitUntilReady(config.getReadinessMode(), config.getReadinessTimeout());
+        }
+    }
+
+    private boolean isHealthy(DockerTlsServerInstance instance) {
+        try {
+            return config.getHealthCheck() == null || config.getHealthCheck().test(instance);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Health check of pooled container {} failed", instance.getId(), e);
+            return false;
+        }
+    }
+
+    private void destroy(DockerTlsServerInstance instance) {
+        try {
+            instance.close();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Could not destroy pooled container {}", instance.getId(), e);
+        }
+    }
+
+    private SubPool getSubPool(PoolKey key) {
+        return subPools.computeIfAbsent(key, k -> new SubPool());
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Pool is closed");
+        }
+    }
+
+    public int getIdleCount(PoolKey key) {
+        SubPool subPool = getSubPool(key);
+        synchronized (subPool) {
+            return subPool.idle.size();
+        }
+    }
+
+    public int getLeasedCount(PoolKey key) {
+        SubPool subPool = getSubPool(key);
+        synchronized (subPool) {
+            return subPool.leased;
+        }
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Destroys all idle containers. Containers that are still leased are destroyed once their lease
+     * is released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        maintenanceExecutor.shutdownNow();
+        List<PooledServer> idle = new LinkedList<>();
+        for (SubPool subPool : subPools.values()) {
+            synchronized (subPool) {
+                idle.addAll(subPool.idle);
+                subPool.idle.clear();
+                subPool.notifyAll();
+            }
+        }
+        for (PooledServer pooledServer : idle) {
+            workerExecutor.execute(() -> destroy(pooledServer.instance));
+        }
+        workerExecutor.shutdown();
+        try {
+            if (!workerExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.warn("Timed out while destroying pooled containers");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /** Creates the (not yet started) containers of the pool. */
+    interface InstanceFactory {
+        DockerTlsServerInstance create(PoolKey key) throws InterruptedException;
+    }
+
+    private static class SubPool {
+        // most recently used containers are kept at the head, eviction starts at the tail
+        private final Deque<PooledServer> idle = new ArrayDeque<>();
+        private int leased = 0;
+        private int creating = 0;
+
+        private int total() {
+            return idle.size() + leased + creating;
+        }
+    }
+
+    private static class PooledServer {
+        private final DockerTlsServerInstance instance;
+        private final long idleSince;
+
+        private PooledServer(DockerTlsServerInstance instance) {
+            this.instance = instance;
+            this.idleSince = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.pool;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/** Aggregated exit codes of the connects dispatched by a {@link DockerTlsClientFarm}. */
+public class FarmResult {
+
+    /** Recorded for connects whose exit code could not be determined; counts as a failure */
+    public static final long UNKNOWN_EXIT_CODE = -1;
+
+    private final List<Long> exitCodes;
+    private final List<Duration> durations;
+
+    public FarmResult(List<Long> exitCodes, List<Duration> durations) {
+        this.exitCodes = List.copyOf(exitCodes);
+        this.durations = List.copyOf(durations);
+    }
+
+    /**
+     * @return The exit code of each connect, in the order of the given execs, or {@link
+     *     #UNKNOWN_EXIT_CODE}
+     */
+    public List<Long> getExitCodes() {
+        return exitCodes;
+    }
+
+    /**
+     * @return The time from exec start to exit of each connect
+     */
+    public List<Duration> getDurations() {
+        return durations;
+    }
+
+    /**
+     * @return The mean time from exec start to exit, if any connect exited
+     */
+    public Optional<Duration> getMeanDuration() {
+        if (durations.isEmpty()) {
+            return Optional.empty();
+        }
+        Duration sum = Duration.ZERO;
+        for (Duration duration : durations) {
+            sum = sum.plus(duration);
+        }
+        return Optional.of(sum.dividedBy(durations.size()));
+    }
+
+    public int getCount() {
+        return exitCodes.size();
+    }
+
+    public long getSuccessCount() {
+        return exitCodes.stream().filter(code -> code == 0).count();
+    }
+
+    public long getFailureCount() {
+        return getCount() - getSuccessCount();
+    }
+
+    @Override
+    public String toString() {
+        return "FarmResult{" + "count=" + getCount() + ", successes=" + getSuccessCount() + '}';
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.pool;
+
+import de.rub.nds.tls.subject.docker.DockerEndpointSet;
+import de.rub.nds.tls.subject.docker.DockerTlsManagerFactory.TlsServerInstanceBuilder;
+import de.rub.nds.tls.subject.docker.DockerTlsServerInstance;
+import de.rub.nds.tls.subject.exceptions.ImplementationDidNotStartException;
+import de.rub.nds.tls.subject.probe.ProbeMode;
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/** Sizing, eviction and health check settings of a {@link DockerTlsServerPool}. */
+public class PoolConfig {
+
+    private static final Duration HEALTH_CHECK_TIMEOUT = Duration.ofSeconds(5);
+
+    private int minIdle = 1;
+    private int maxTotal = 4;
+    private Duration maxIdleTime = Duration.ofMinutes(5);
+    private Duration leaseTimeout = Duration.ofMinutes(2);
+    private Duration maintenanceInterval = Duration.ofSeconds(15);
+    private ReleasePolicy releasePolicy = ReleasePolicy.RESTART;
+    private boolean testOnLease = true;
+    private Duration readinessTimeout = Duration.ofMinutes(1);
+    private ProbeMode readinessMode = ProbeMode.HANDSHAKE;
+    private Predicate<DockerTlsServerInstance> healthCheck = PoolConfig::isRunningAndAccepting;
+    private UnaryOperator<TlsServerInstanceBuilder> builderHook;
+    private DockerEndpointSet endpoints;
+
+    /**
+     * @param value Number of started containers that are kept ready per {@link PoolKey}
+     * @return this config
+     */
+    public PoolConfig minIdle(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("minIdle may not be negative");
+        }
+        minIdle = value;
+        return this;
+    }
+
+    /**
+     * @param value Upper bound of idle plus leased containers per {@link PoolKey}
+     * @return this config
+     */
+    public PoolConfig maxTotal(int value) {
+        if (value < 1) {
+            throw new IllegalArgumentException("maxTotal must be at least 1");
+        }
+        maxTotal = value;
+        return this;
+    }
+
+    /**
+     * @param value Time after which idle containers exceeding minIdle are destroyed
+     * @return this config
+     */
+    public PoolConfig maxIdleTime(Duration value) {
+        maxIdleTime = value;
+        return this;
+    }
+
+    /**
+     * @param value Time a lease request waits for a container if maxTotal is reached
+     * @return this config
+     */
+    public PoolConfig leaseTimeout(Duration value) {
+        leaseTimeout = value;
+        return this;
+    }
+
+    /**
+     * @param value Interval of the background task that refills and evicts idle containers
+     * @return this config
+     */
+    public PoolConfig maintenanceInterval(Duration value) {
+        maintenanceInterval = value;
+        return this;
+    }
+
+    /**
+     * @param value Time a started or restarted container may take until its server is ready; it is
+     *     only leased once it is. Null to lease containers right after they were started.
+     * @return this config
+     */
+    public PoolConfig readinessTimeout(Duration value) {
+        readinessTimeout = value;
+        return this;
+    }
+
+    /**
+     * @param value What the readiness probe of a TCP server has to achieve
+     * @return this config
+     */
+    public PoolConfig readinessMode(ProbeMode value) {
+        readinessMode = value;
+        return this;
+    }
+
+    public PoolConfig releasePolicy(ReleasePolicy value) {
+        releasePolicy = value;
+        return this;
+    }
+
+    public PoolConfig testOnLease(boolean value) {
+        testOnLease = value;
+        return this;
+    }
+
+    /**
+     * @param value Check an idle container has to pass before it is leased, null to skip it. By
+     *     default the container has to be running and its server has to accept connections.
+     * @return this config
+     */
+    public PoolConfig healthCheck(Predicate<DockerTlsServerInstance> value) {
+        healthCheck = value;
+        return this;
+    }
+
+    /**
+     * The default health check.
+     *
+     * @param instance The pooled container
+     * @return Whether the container is running and its server accepts connections
+     */
+    public static boolean isRunningAndAccepting(DockerTlsServerInstance instance) {
+        if (!instance.isRunning()) {
+            return false;
+        }
+        try {
+            instance.waitUntilReady(ProbeMode.CONNECT, HEALTH_CHECK_TIMEOUT);
+            return true;
+        } catch (ImplementationDidNotStartException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param value Hook applied to every builder before the pool creates a new container, e.g. to
+     *     set a hostConfigHook or additional parameters
+     * @return this config
+     */
+    public PoolConfig builderHook(UnaryOperator<TlsServerInstanceBuilder> value) {
+        builderHook = value;
+        return this;
+    }
+
+    /**
+     * @param value Daemons the containers are distributed over, null to use the local daemon
+     * @return this config
+     */
+    public PoolConfig endpoints(DockerEndpointSet value) {
+        endpoints = value;
+        return this;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public Duration getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    public Duration getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+    public Duration getMaintenanceInterval() {
+        return maintenanceInterval;
+    }
+
+    public Duration getReadinessTimeout() {
+        return readinessTimeout;
+    }
+
+    public ProbeMode getReadinessMode() {
+        return readinessMode;
+    }
+
+    public ReleasePolicy getReleasePolicy() {
+        return releasePolicy;
+    }
+
+    public boolean isTestOnLease() {
+        return testOnLease;
+    }
+
+    public Predicate<DockerTlsServerInstance> getHealthCheck() {
+        return healthCheck;
+    }
+
+    public UnaryOperator<TlsServerInstanceBuilder> getBuilderHook() {
+        return builderHook;
+    }
+
+    public DockerEndpointSet getEndpoints() {
+        return endpoints;
+    }
+}
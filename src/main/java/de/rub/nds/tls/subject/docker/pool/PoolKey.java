@@ -0,0 +1,94 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.pool;
+
+import de.rub.nds.tls.subject.TlsImplementationType;
+import de.rub.nds.tls.subject.constants.TransportType;
+import de.rub.nds.tls.subject.docker.build.DockerBuilder;
+import java.util.Objects;
+
+/** Identifies a set of interchangeable server containers inside a {@link DockerTlsServerPool}. */
+public class PoolKey {
+
+    private final TlsImplementationType type;
+    private final String version;
+    private final String additionalBuildFlags;
+    private final TransportType transportType;
+
+    public PoolKey(TlsImplementationType type, String version, TransportType transportType) {
+        this(type, version, DockerBuilder.NO_ADDITIONAL_BUILDFLAGS, transportType);
+    }
+
+    public PoolKey(
+            TlsImplementationType type,
+            String version,
+            String additionalBuildFlags,
+            TransportType transportType) {
+        if (type == null || version == null || transportType == null) {
+            throw new NullPointerException("type, version and transportType may not be null");
+        }
+        this.type = type;
+        this.version = version;
+        this.additionalBuildFlags =
+                additionalBuildFlags == null
+                        ? DockerBuilder.NO_ADDITIONAL_BUILDFLAGS
+                        : additionalBuildFlags;
+        this.transportType = transportType;
+    }
+
+    public TlsImplementationType getType() {
+        return type;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getAdditionalBuildFlags() {
+        return additionalBuildFlags;
+    }
+
+    public TransportType getTransportType() {
+        return transportType;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof PoolKey)) {
+            return false;
+        }
+        PoolKey other = (PoolKey) obj;
+        return type == other.type
+                && version.equals(other.version)
+                && additionalBuildFlags.equals(other.additionalBuildFlags)
+                && transportType == other.transportType;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, version, additionalBuildFlags, transportType);
+    }
+
+    @Override
+    public String toString() {
+        return "PoolKey{"
+                + "type="
+                + type
+                + ", version="
+                + version
+                + ", additionalBuildFlags="
+                + additionalBuildFlags
+                + ", transportType="
+                + transportType
+                + '}';
+    }
+}
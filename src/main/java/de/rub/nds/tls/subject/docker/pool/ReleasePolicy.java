@@ -0,0 +1,19 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.pool;
+
+/** Describes what happens to a server container once its lease is released. */
+public enum ReleasePolicy {
+    /** Return the container to the pool as is. */
+    REUSE,
+    /** Restart the container to reset the state of the TLS server before reusing it. */
+    RESTART,
+    /** Destroy the container and let the pool start a fresh replacement. */
+    DESTROY
+}
@@ -0,0 +1,65 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.pool;
+
+import de.rub.nds.tls.subject.docker.DockerTlsServerInstance;
+
+/**
+ * Exclusive handle on a started server container of a {@link DockerTlsServerPool}. Closing the
+ * lease hands the container back to the pool.
+ */
+public class ServerLease implements AutoCloseable {
+
+    private final DockerTlsServerPool pool;
+    private final PoolKey key;
+    private final DockerTlsServerInstance instance;
+    private boolean broken = false;
+    private boolean released = false;
+
+    ServerLease(DockerTlsServerPool pool, PoolKey key, DockerTlsServerInstance instance) {
+        this.pool = pool;
+        this.key = key;
+        this.instance = instance;
+    }
+
+    public DockerTlsServerInstance getInstance() {
+        if (released) {
+            throw new IllegalStateException("Lease was already released");
+        }
+        return instance;
+    }
+
+    public PoolKey getKey() {
+        return key;
+    }
+
+    /**
+     * Marks the leased container as unusable. It is destroyed instead of being recycled once the
+     * lease is released.
+     */
+    public void invalidate() {
+        broken = true;
+    }
+
+    public boolean isBroken() {
+        return broken;
+    }
+
+    DockerTlsServerInstance getPooledInstance() {
+        return instance;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!released) {
+            released = true;
+            pool.release(this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.exceptions;
+
+/**
+ * Thrown instead of calling the docker daemon if it is considered overloaded, i.e. the circuit
+ * breaker of its call limiter is open or no call permit became available in time.
+ */
+public class DockerUnavailableException extends RuntimeException {
+
+    public DockerUnavailableException() {}
+
+    public DockerUnavailableException(String message) {
+        super(message);
+    }
+
+    public DockerUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public DockerUnavailableException(Throwable cause) {
+        super(cause);
+    }
+
+    public DockerUnavailableException(
+            String message,
+            Throwable cause,
+            boolean enableSuppression,
+            boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
@@ -15,7 +15,6 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -30,17 +29,17 @@ public class ParameterProfileManager {
 
     static final Logger LOGGER = LogManager.getLogger(ParameterProfileSerializer.class.getName());
 
-    private static ParameterProfileManager instance;
+    private static class InstanceHolder {
+        private static final ParameterProfileManager INSTANCE = new ParameterProfileManager();
+    }
 
     public static ParameterProfileManager instance() {
-        if (instance == null) {
-            instance = new ParameterProfileManager();
-        }
-        return instance;
+        return InstanceHolder.INSTANCE;
     }
 
     private static final String RESOURCE_PATH = "/profiles/";
 
+    // all lists are immutable after construction, so lookups need no locking
     private final List<ParameterProfile> defaultClientProfileList;
 
     private final List<ParameterProfile> allProfileList;
@@ -48,9 +47,9 @@ public class ParameterProfileManager {
     private final List<ParameterProfile> defaultServerProfileList;
 
     protected ParameterProfileManager() {
-        defaultServerProfileList = new LinkedList<>();
-        defaultClientProfileList = new LinkedList<>();
-        allProfileList = new LinkedList<>();
+        List<ParameterProfile> defaultServerProfiles = new ArrayList<>();
+        List<ParameterProfile> defaultClientProfiles = new ArrayList<>();
+        List<ParameterProfile> allProfiles = new ArrayList<>();
 
         for (ConnectionRole role : ConnectionRole.values()) {
             try {
@@ -64,7 +63,7 @@ public class ParameterProfileManager {
                                         + profile.getRole().name()
                                         + " - "
                                         + profile.getDescription());
-                        allProfileList.add(profile);
+                        allProfiles.add(profile);
                     }
                 }
             } catch (IOException ex) {
@@ -79,16 +78,19 @@ public class ParameterProfileManager {
                             ConnectionRole.SERVER, "" + type.name().toLowerCase() + ".profile");
             if (profile != null) {
                 LOGGER.debug("Loaded:" + profile.getName() + " : " + profile.getRole().name());
-                defaultServerProfileList.add(profile);
+                defaultServerProfiles.add(profile);
             }
             profile =
                     tryLoadProfile(
                             ConnectionRole.CLIENT, "" + type.name().toLowerCase() + ".profile");
             if (profile != null) {
                 LOGGER.debug("Loaded:" + profile.getName() + " : " + profile.getRole().name());
-                defaultClientProfileList.add(profile);
+                defaultClientProfiles.add(profile);
             }
         }
+        defaultServerProfileList = List.copyOf(defaultServerProfiles);
+        defaultClientProfileList = List.copyOf(defaultClientProfiles);
+        allProfileList = List.copyOf(allProfiles);
     }
 
     private List<String> getResourceFiles(ConnectionRole role) throws IOException {
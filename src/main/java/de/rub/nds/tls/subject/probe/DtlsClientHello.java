@@ -0,0 +1,142 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.probe;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds the DTLS ClientHello sent by UDP readiness probes and recognizes the records a DTLS server
+ * answers with. The ClientHello is only meant to provoke a HelloVerifyRequest, ServerHello or
+ * alert; the handshake is never continued.
+ */
+final class DtlsClientHello {
+
+    static final byte CONTENT_TYPE_ALERT = 21;
+    static final byte CONTENT_TYPE_HANDSHAKE = 22;
+
+    private static final byte HANDSHAKE_TYPE_CLIENT_HELLO = 1;
+    private static final byte DTLS_MAJOR_VERSION = (byte) 0xfe;
+    // DTLS 1.0 in the record layer for compatibility, DTLS 1.2 in the ClientHello
+    private static final byte[] RECORD_VERSION = {(byte) 0xfe, (byte) 0xff};
+    private static final byte[] CLIENT_VERSION = {(byte) 0xfe, (byte) 0xfd};
+    private static final int RECORD_HEADER_LENGTH = 13;
+
+    private static final int[] CIPHER_SUITES = {
+        0xc02b, // TLS_ECDHE_ECDSA_WITH_AES_128_GCM_SHA256
+        0xc02f, // TLS_ECDHE_RSA_WITH_AES_128_GCM_SHA256
+        0xc02c, // TLS_ECDHE_ECDSA_WITH_AES_256_GCM_SHA384
+        0xc030, // TLS_ECDHE_RSA_WITH_AES_256_GCM_SHA384
+        0xc009, // TLS_ECDHE_ECDSA_WITH_AES_128_CBC_SHA
+        0xc013, // TLS_ECDHE_RSA_WITH_AES_128_CBC_SHA
+        0x009c, // TLS_RSA_WITH_AES_128_GCM_SHA256
+        0x002f, // TLS_RSA_WITH_AES_128_CBC_SHA
+        0x0035, // TLS_RSA_WITH_AES_256_CBC_SHA
+        0x00ff // TLS_EMPTY_RENEGOTIATION_INFO_SCSV
+    };
+
+    private static final int EXTENSION_SUPPORTED_GROUPS = 0x000a;
+    private static final int EXTENSION_EC_POINT_FORMATS = 0x000b;
+    private static final int EXTENSION_SIGNATURE_ALGORITHMS = 0x000d;
+
+    // secp256r1, secp384r1, x25519
+    private static final int[] SUPPORTED_GROUPS = {0x0017, 0x0018, 0x001d};
+
+    // ecdsa_secp256r1_sha256, rsa_pss_rsae_sha256, rsa_pkcs1_sha256, rsa_pkcs1_sha1
+    private static final int[] SIGNATURE_ALGORITHMS = {0x0403, 0x0804, 0x0401, 0x0201};
+
+    private DtlsClientHello() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * @return A complete DTLS record containing a ClientHello with a fresh random
+     */
+    static byte[] create() {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(CLIENT_VERSION);
+        byte[] random = new byte[32];
+        ThreadLocalRandom.current().nextBytes(random);
+        body.writeBytes(random);
+        // empty session id and cookie
+        body.write(0);
+        body.write(0);
+        writeUint16List(body, CIPHER_SUITES);
+        // null compression only
+        body.write(1);
+        body.write(0);
+        byte[] extensions = createExtensions();
+        writeUint16(body, extensions.length);
+        body.writeBytes(extensions);
+
+        int bodyLength = body.size();
+        ByteArrayOutputStream record = new ByteArrayOutputStream();
+        record.write(CONTENT_TYPE_HANDSHAKE);
+        record.writeBytes(RECORD_VERSION);
+        // epoch 0, sequence number 0
+        record.writeBytes(new byte[8]);
+        writeUint16(record, bodyLength + 12);
+        record.write(HANDSHAKE_TYPE_CLIENT_HELLO);
+        writeUint24(record, bodyLength);
+        // message sequence 0, fragment offset 0, fragment length = length
+        writeUint16(record, 0);
+        writeUint24(record, 0);
+        writeUint24(record, bodyLength);
+        record.writeBytes(body.toByteArray());
+        return record.toByteArray();
+    }
+
+    private static byte[] createExtensions() {
+        ByteArrayOutputStream extensions = new ByteArrayOutputStream();
+        writeUint16(extensions, EXTENSION_SUPPORTED_GROUPS);
+        writeUint16(extensions, SUPPORTED_GROUPS.length * 2 + 2);
+        writeUint16List(extensions, SUPPORTED_GROUPS);
+        // uncompressed points only
+        writeUint16(extensions, EXTENSION_EC_POINT_FORMATS);
+        writeUint16(extensions, 2);
+        extensions.write(1);
+        extensions.write(0);
+        writeUint16(extensions, EXTENSION_SIGNATURE_ALGORITHMS);
+        writeUint16(extensions, SIGNATURE_ALGORITHMS.length * 2 + 2);
+        writeUint16List(extensions, SIGNATURE_ALGORITHMS);
+        return extensions.toByteArray();
+    }
+
+    /**
+     * @param datagram A received datagram (position at its start)
+     * @return Whether the datagram starts with a DTLS handshake or alert record
+     */
+    static boolean isHandshakeOrAlert(ByteBuffer datagram) {
+        if (datagram.remaining() < RECORD_HEADER_LENGTH) {
+            return false;
+        }
+        int start = datagram.position();
+        byte contentType = datagram.get(start);
+        return (contentType == CONTENT_TYPE_HANDSHAKE || contentType == CONTENT_TYPE_ALERT)
+                && datagram.get(start + 1) == DTLS_MAJOR_VERSION;
+    }
+
+    private static void writeUint16(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeUint16List(ByteArrayOutputStream out, int[] values) {
+        writeUint16(out, values.length * 2);
+        for (int value : values) {
+            writeUint16(out, value);
+        }
+    }
+
+    private static void writeUint24(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 16);
+        writeUint16(out, value);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.probe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * The trust anchors used by the handshake probes of the servers of one docker endpoint. As long as
+ * no CA is configured, any certificate is accepted: a server that presents a certificate has
+ * completed its side of the handshake, so its TLS stack is ready, and validating the certificate is
+ * left to the tests. This is the default since the images use different chains (e.g. the rustls
+ * test CA of LibreSSL servers) and the certificate volume of each daemon has its own CA. Once a CA
+ * is configured, a probe fails if a server presents a certificate of another CA.
+ */
+public final class HandshakeTrust {
+
+    private volatile SSLContext caContext;
+
+    private static class TrustAllHolder {
+        private static final SSLContext INSTANCE = createTrustAllContext();
+    }
+
+    /**
+     * @param caPem Path to a PEM file containing the CA certificate(s)
+     * @throws IOException If the file cannot be read
+     * @throws GeneralSecurityException If the file does not contain valid certificates
+     */
+    public void setCaCertificate(Path caPem) throws IOException, GeneralSecurityException {
+        try (InputStream in = Files.newInputStream(caPem)) {
+            setCaCertificate(in);
+        }
+    }
+
+    /**
+     * @param caPem PEM encoded CA certificate(s)
+     * @throws GeneralSecurityException If the stream does not contain valid certificates
+     */
+    public void setCaCertificate(InputStream caPem) throws GeneralSecurityException {
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        try {
+            trustStore.load(null, null);
+        } catch (IOException e) {
+            // cannot happen without an input stream
+            throw new IllegalStateException(e);
+        }
+        int index = 0;
+        for (Certificate certificate :
+                CertificateFactory.getInstance("X.509").generateCertificates(caPem)) {
+            trustStore.setCertificateEntry("ca-" + index++, certificate);
+        }
+        if (index == 0) {
+            throw new GeneralSecurityException("No certificate found");
+        }
+        TrustManagerFactory trustManagerFactory =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, trustManagerFactory.getTrustManagers(), null);
+        caContext = context;
+    }
+
+    /** Accepts any certificate again. */
+    public void clearCaCertificate() {
+        caContext = null;
+    }
+
+    public boolean isCaConfigured() {
+        return caContext != null;
+    }
+
+    /**
+     * @return The context trusting the configured CA, or a context trusting any certificate
+     */
+    public SSLContext getSslContext() {
+        SSLContext context = caContext;
+        return context != null ? context : trustAll();
+    }
+
+    /**
+     * @return A context trusting any certificate
+     */
+    public static SSLContext trustAll() {
+        return TrustAllHolder.INSTANCE;
+    }
+
+    private static SSLContext createTrustAllContext() {
+        TrustManager trustAll =
+                new X509TrustManager() {
+                    @Override
+                    public void checkClientTrusted(X509Certificate[] chain, String authType) {
+                        // not used by probes
+                    }
+
+                    @Override
+                    public void checkServerTrusted(X509Certificate[] chain, String authType) {
+                        // probes do not authenticate the server
+                    }
+
+                    @Override
+                    public X509Certificate[] getAcceptedIssuers() {
+                        return new X509Certificate[0];
+                    }
+                };
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[] {trustAll}, null);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not create TLS context", e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.probe;
+
+/** What a readiness probe of a TCP server has to achieve for the server to count as ready. */
+public enum ProbeMode {
+    /** The server accepts a TCP connection */
+    CONNECT,
+    /**
+     * The server answers a TLS handshake, i.e. the handshake completes or the server responds with
+     * an alert. A connection that is accepted but closed or reset without an answer does not count,
+     * and a certificate that is not trusted by a CA configured in the {@link HandshakeTrust} of the
+     * endpoint fails the probe. Without a CA, any certificate counts as an answer.
+     */
+    HANDSHAKE
+}
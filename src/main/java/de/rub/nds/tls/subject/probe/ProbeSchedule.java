@@ -0,0 +1,134 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.probe;
+
+import java.time.Duration;
+
+/**
+ * Timing of the attempts of a readiness probe. The first attempt is made after the start delay
+ * (immediately by default); after a failed attempt the delay starts at the initial delay and grows
+ * by the multiplier up to the maximum delay.
+ */
+public class ProbeSchedule {
+
+    public static final ProbeSchedule DEFAULT =
+            new ProbeSchedule(
+                    Duration.ofMillis(10), Duration.ofMillis(500), 1.5, Duration.ofSeconds(1));
+
+    /**
+     * Default for datagram probes. Lost datagrams are not reported, so unanswered attempts are
+     * given up sooner than connects.
+     */
+    public static final ProbeSchedule DATAGRAM_DEFAULT =
+            new ProbeSchedule(
+                    Duration.ofMillis(10), Duration.ofMillis(500), 1.5, Duration.ofMillis(250));
+
+    private final Duration startDelay;
+    private final Duration initialDelay;
+    private final Duration maxDelay;
+    private final double multiplier;
+    private final Duration attemptTimeout;
+
+    /**
+     * @param initialDelay Delay after the first failed attempt
+     * @param maxDelay Upper bound of the delay between two attempts
+     * @param multiplier Factor the delay grows by after each failed attempt
+     * @param attemptTimeout Time after which a single unanswered attempt counts as failed
+     */
+    public ProbeSchedule(
+            Duration initialDelay, Duration maxDelay, double multiplier, Duration attemptTimeout) {
+        this(Duration.ZERO, initialDelay, maxDelay, multiplier, attemptTimeout);
+    }
+
+    /**
+     * @param startDelay Delay before the first attempt, e.g. the time the server is known to need
+     *     at least
+     * @param initialDelay Delay after the first failed attempt
+     * @param maxDelay Upper bound of the delay between two attempts
+     * @param multiplier Factor the delay grows by after each failed attempt
+     * @param attemptTimeout Time after which a single unanswered attempt counts as failed
+     */
+    public ProbeSchedule(
+            Duration startDelay,
+            Duration initialDelay,
+            Duration maxDelay,
+            double multiplier,
+            Duration attemptTimeout) {
+        if (startDelay.isNegative()) {
+            throw new IllegalArgumentException("startDelay may not be negative");
+        }
+        if (initialDelay.isNegative() || maxDelay.compareTo(initialDelay) < 0) {
+            throw new IllegalArgumentException("Delays must satisfy 0 <= initialDelay <= maxDelay");
+        }
+        if (multiplier < 1) {
+            throw new IllegalArgumentException("multiplier must be at least 1");
+        }
+        if (attemptTimeout.isNegative() || attemptTimeout.isZero()) {
+            throw new IllegalArgumentException("attemptTimeout must be positive");
+        }
+        this.startDelay = startDelay;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.multiplier = multiplier;
+        this.attemptTimeout = attemptTimeout;
+    }
+
+    /**
+     * @param failedAttempts The number of attempts that failed so far (at least 1)
+     * @return The delay before the next attempt in nanoseconds
+     */
+    public long getDelayNanos(int failedAttempts) {
+        double delay = initialDelay.toNanos() * Math.pow(multiplier, failedAttempts - 1.0);
+        return (long) Math.min(delay, maxDelay.toNanos());
+    }
+
+    /**
+     * @param value The new start delay
+     * @return A copy of this schedule with a different start delay
+     */
+    public ProbeSchedule withStartDelay(Duration value) {
+        return new ProbeSchedule(value, initialDelay, maxDelay, multiplier, attemptTimeout);
+    }
+
+    public Duration getStartDelay() {
+        return startDelay;
+    }
+
+    public Duration getInitialDelay() {
+        return initialDelay;
+    }
+
+    public Duration getMaxDelay() {
+        return maxDelay;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public Duration getAttemptTimeout() {
+        return attemptTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return "ProbeSchedule{"
+                + "startDelay="
+                + startDelay
+                + ", initialDelay="
+                + initialDelay
+                + ", maxDelay="
+                + maxDelay
+                + ", multiplier="
+                + multiplier
+                + ", attemptTimeout="
+                + attemptTimeout
+                + '}';
+    }
+}
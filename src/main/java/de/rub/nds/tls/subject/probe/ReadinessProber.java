@@ -0,0 +1,671 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.probe;
+
+import de.rub.nds.tls.subject.HostInfo;
+import de.rub.nds.tls.subject.constants.TransportType;
+import de.rub.nds.tls.subject.exceptions.ImplementationDidNotStartException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.security.cert.CertificateException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLSocket;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Waits for many servers to accept connections using a single thread. Every target is probed with
+ * non-blocking connects (TCP) or ClientHello datagrams (DTLS) on a shared {@link Selector}; failed
+ * attempts are retried according to the {@link ProbeSchedule} of the target until its deadline
+ * passes. Only TLS handshakes, which block, are performed on additional threads.
+ */
+public class ReadinessProber implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static class InstanceHolder {
+        private static final ReadinessProber INSTANCE = new ReadinessProber();
+    }
+
+    /**
+     * @return The prober shared by the library, which is never closed
+     */
+    public static ReadinessProber instance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    private final Selector selector;
+    private final Thread thread;
+    // targets submitted by other threads, taken over by the probe thread
+    private final Queue<Target> submitted = new ConcurrentLinkedQueue<>();
+    // the following are only accessed by the probe thread
+    private final PriorityQueue<Target> scheduled =
+            new PriorityQueue<>(Comparator.comparingLong(target -> target.nextAttemptNanos));
+    private final Set<Target> inFlight = new HashSet<>();
+    private final ExecutorService handshakeExecutor;
+    private volatile boolean closed = false;
+
+    public ReadinessProber() {
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open selector", e);
+        }
+        AtomicInteger handshakeThreads = new AtomicInteger();
+        handshakeExecutor =
+                Executors.newCachedThreadPool(
+                        runnable -> {
+                            Thread handshakeThread =
+                                    new Thread(
+                                            runnable,
+                                            "readiness-handshake-"
+                                                    + handshakeThreads.incrementAndGet());
+                            handshakeThread.setDaemon(true);
+                            return handshakeThread;
+                        });
+        thread = new Thread(this::run, "readiness-prober");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @see #probe(InetSocketAddress, Duration, ProbeSchedule)
+     */
+    public CompletableFuture<InetSocketAddress> probe(String host, int port, Duration timeout) {
+        return probe(new InetSocketAddress(host, port), timeout, ProbeSchedule.DEFAULT);
+    }
+
+    /**
+     * Probes a server using the transport of the host info, i.e. a TCP connect or a DTLS
+     * ClientHello (see {@link #probeDtls(InetSocketAddress, Duration, ProbeSchedule)}).
+     *
+     * @param hostInfo The host info of the server
+     * @param timeout Time after which probing is given up
+     * @return A future completing with the address once the server is ready
+     */
+    public CompletableFuture<InetSocketAddress> probe(HostInfo hostInfo, Duration timeout) {
+        return probe(hostInfo.getIp(), hostInfo.getPort(), hostInfo.getType(), timeout);
+    }
+
+    /**
+     * @param host The host of the server
+     * @param port The port of the server
+     * @param transportType Selects between a TCP connect and a DTLS ClientHello
+     * @param timeout Time after which probing is given up
+     * @return A future completing with the address once the server is ready
+     */
+    public CompletableFuture<InetSocketAddress> probe(
+            String host, int port, TransportType transportType, Duration timeout) {
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        if (transportType == TransportType.UDP) {
+            return probeDtls(address, timeout, ProbeSchedule.DATAGRAM_DEFAULT);
+        }
+        return probe(address, timeout, ProbeSchedule.DEFAULT);
+    }
+
+    /**
+     * Waits until a TCP connection to the address can be established.
+     *
+     * @param address The address of the server
+     * @param timeout Time after which probing is given up
+     * @param schedule The timing of the connection attempts
+     * @return A future completing with the address once a connection was accepted. It fails with an
+     *     {@link ImplementationDidNotStartException} if the timeout passes first. Cancelling it
+     *     stops probing.
+     */
+    public CompletableFuture<InetSocketAddress> probe(
+            InetSocketAddress address, Duration timeout, ProbeSchedule schedule) {
+        CompletableFuture<InetSocketAddress> future = new CompletableFuture<>();
+        if (address.isUnresolved()) {
+            future.completeExceptionally(
+                    new ImplementationDidNotStartException("Could not resolve " + address));
+            return future;
+        }
+        submit(new TcpTarget(address, future, timeout, schedule));
+        return future;
+    }
+
+    /**
+     * Waits until a TLS server answers a handshake. Attempts first wait for a TCP connection on the
+     * probe thread and then perform the handshake on a separate thread. The handshake counts as
+     * answered if it completes, or if it fails because of an alert sent by the server (see {@link
+     * ProbeMode#HANDSHAKE}). If the server presents a certificate the context does not trust, the
+     * probe fails right away.
+     *
+     * @param address The address of the server
+     * @param sslContext The context used for the handshake, usually the one of the {@link
+     *     HandshakeTrust} of the endpoint running the server
+     * @param timeout Time after which probing is given up
+     * @param schedule The timing of the attempts
+     * @return A future completing with the address once the server answered a handshake. It fails
+     *     with an {@link ImplementationDidNotStartException} if the timeout passes first or the
+     *     certificate of the server is not trusted. Cancelling it stops probing.
+     */
+    public CompletableFuture<InetSocketAddress> probeHandshake(
+            InetSocketAddress address,
+            SSLContext sslContext,
+            Duration timeout,
+            ProbeSchedule schedule) {
+        CompletableFuture<InetSocketAddress> future = new CompletableFuture<>();
+        if (address.isUnresolved()) {
+            future.completeExceptionally(
+                    new ImplementationDidNotStartException("Could not resolve " + address));
+            return future;
+        }
+        submit(new HandshakeTarget(address, future, timeout, schedule, sslContext));
+        return future;
+    }
+
+    /**
+     * Probes a server using the given transport and mode, accepting any certificate in handshake
+     * probes.
+     *
+     * @see #probe(InetSocketAddress, TransportType, ProbeMode, SSLContext, Duration, ProbeSchedule)
+     */
+    public CompletableFuture<InetSocketAddress> probe(
+            InetSocketAddress address,
+            TransportType transportType,
+            ProbeMode mode,
+            Duration timeout,
+            ProbeSchedule schedule) {
+        return probe(address, transportType, mode, HandshakeTrust.trustAll(), timeout, schedule);
+    }
+
+    /**
+     * Probes a server using the given transport and mode. DTLS servers are always probed with a
+     * ClientHello, independent of the mode.
+     *
+     * @param address The address of the server
+     * @param transportType Selects between TCP and DTLS probes
+     * @param mode What a TCP probe has to achieve
+     * @param sslContext The context used for handshake probes
+     * @param timeout Time after which probing is given up
+     * @param schedule The timing of the attempts
+     * @return A future completing with the address once the server is ready
+     */
+    public CompletableFuture<InetSocketAddress> probe(
+            InetSocketAddress address,
+            TransportType transportType,
+            ProbeMode mode,
+            SSLContext sslContext,
+            Duration timeout,
+            ProbeSchedule schedule) {
+        if (transportType == TransportType.UDP) {
+            return probeDtls(address, timeout, schedule);
+        }
+        if (mode == ProbeMode.HANDSHAKE) {
+            return probeHandshake(address, sslContext, timeout, schedule);
+        }
+        return probe(address, timeout, schedule);
+    }
+
+    /**
+     * Waits until a DTLS server answers. Each attempt sends a ClientHello and counts any DTLS
+     * handshake or alert record in response (usually a HelloVerifyRequest) as ready. An ICMP port
+     * unreachable or no answer within the attempt timeout counts as a failed attempt.
+     *
+     * @param address The address of the server
+     * @param timeout Time after which probing is given up
+     * @param schedule The timing of the attempts
+     * @return A future completing with the address once the server answered. It fails with an
+     *     {@link ImplementationDidNotStartException} if the timeout passes first. Cancelling it
+     *     stops probing.
+     */
+    public CompletableFuture<InetSocketAddress> probeDtls(
+            InetSocketAddress address, Duration timeout, ProbeSchedule schedule) {
+        CompletableFuture<InetSocketAddress> future = new CompletableFuture<>();
+        if (address.isUnresolved()) {
+            future.completeExceptionally(
+                    new ImplementationDidNotStartException("Could not resolve " + address));
+            return future;
+        }
+        submit(new DtlsTarget(address, future, timeout, schedule));
+        return future;
+    }
+
+    void submit(Target target) {
+        // wake up the selector for cancellations, so the channel is closed right away
+        target.future.whenComplete((result, throwable) -> selector.wakeup());
+        submitted.add(target);
+        if (closed) {
+            failSubmitted();
+        } else {
+            selector.wakeup();
+        }
+    }
+
+    /** Stops probing. Futures that are not completed yet fail. */
+    @Override
+    public void close() {
+        closed = true;
+        handshakeExecutor.shutdownNow();
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                long now = System.nanoTime();
+                Target target;
+                while ((target = submitted.poll()) != null) {
+                    target.nextAttemptNanos =
+                            Math.min(now + target.requestedDelayNanos, target.deadlineNanos);
+                    scheduled.add(target);
+                }
+                startDueAttempts(now);
+                expireAttempts(now);
+                selector.select(getSelectTimeoutMillis(System.nanoTime()));
+                handleSelectedKeys();
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Readiness prober failed", e);
+        } finally {
+            closed = true;
+            shutdown();
+        }
+    }
+
+    private void startDueAttempts(long now) {
+        while (!scheduled.isEmpty() && scheduled.peek().nextAttemptNanos <= now) {
+            Target target = scheduled.poll();
+            if (target.future.isDone()) {
+                continue;
+            }
+            boolean firstAttempt = target.failedAttempts == 0;
+            // every probe makes at least one attempt, even if it starts at its deadline
+            if (now - target.deadlineNanos >= 0 && !firstAttempt) {
+                timeout(target);
+                continue;
+            }
+            long attemptTimeout = target.schedule.getAttemptTimeout().toNanos();
+            target.attemptDeadlineNanos = Math.min(now + attemptTimeout, target.deadlineNanos);
+            if (firstAttempt) {
+                // a first attempt starting at the deadline still gets its attempt timeout
+                target.attemptDeadlineNanos =
+                        Math.max(
+                                target.attemptDeadlineNanos,
+                                now + Math.min(attemptTimeout, target.timeoutNanos));
+            }
+            try {
+                if (target.startAttempt(selector)) {
+                    succeed(target);
+                } else {
+                    inFlight.add(target);
+                }
+            } catch (IOException e) {
+                retry(target, now, e);
+            } catch (RuntimeException e) {
+                // only this probe is broken, the others keep running
+                inFlight.remove(target);
+                fail(target, e);
+            }
+        }
+    }
+
+    private void expireAttempts(long now) {
+        Iterator<Target> iterator = inFlight.iterator();
+        while (iterator.hasNext()) {
+            Target target = iterator.next();
+            if (target.future.isDone()) {
+                iterator.remove();
+                target.closeAttempt();
+            } else if (now - target.attemptDeadlineNanos >= 0) {
+                iterator.remove();
+                retry(target, now, null);
+            }
+        }
+    }
+
+    private void handleSelectedKeys() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            Target target = (Target) key.attachment();
+            if (!key.isValid() || !inFlight.contains(target)) {
+                continue;
+            }
+            try {
+                if (target.onSelected(key)) {
+                    inFlight.remove(target);
+                    succeed(target);
+                }
+            } catch (IOException e) {
+                inFlight.remove(target);
+                retry(target, System.nanoTime(), e);
+            } catch (RuntimeException e) {
+                inFlight.remove(target);
+                fail(target, e);
+            }
+        }
+    }
+
+    private long getSelectTimeoutMillis(long now) {
+        long next = Long.MAX_VALUE;
+        if (!scheduled.isEmpty()) {
+            next = scheduled.peek().nextAttemptNanos;
+        }
+        for (Target target : inFlight) {
+            next = Math.min(next, target.attemptDeadlineNanos);
+        }
+        if (next == Long.MAX_VALUE) {
+            // 0 blocks until woken up
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(next - now));
+    }
+
+    private void succeed(Target target) {
+        target.closeAttempt();
+        if (target instanceof HandshakeTarget) {
+            // the handshake blocks, so it is performed outside of the probe thread
+            handshakeExecutor.execute(() -> handshake((HandshakeTarget) target));
+            return;
+        }
+        complete(target);
+    }
+
+    private void complete(Target target) {
+        LOGGER.debug("{} is ready after {} attempt(s)", target.address, target.failedAttempts + 1);
+        target.future.complete(target.address);
+    }
+
+    private void handshake(HandshakeTarget target) {
+        if (target.future.isDone()) {
+            return;
+        }
+        int timeoutMillis = (int) Math.max(1, target.schedule.getAttemptTimeout().toMillis());
+        try (SSLSocket socket = (SSLSocket) target.sslContext.getSocketFactory().createSocket()) {
+            socket.connect(target.address, timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            socket.startHandshake();
+            complete(target);
+        } catch (SSLHandshakeException e) {
+            if (isUntrustedCertificate(e)) {
+                // the server is up, but it is not the one we expected or uses other certificates
+                target.future.completeExceptionally(
+                        new ImplementationDidNotStartException(
+                                target.address + " presented an untrusted certificate", e));
+            } else if (isAlert(e)) {
+                LOGGER.debug("{} answered the handshake: {}", target.address, e.getMessage());
+                complete(target);
+            } else {
+                retryLater(target, e);
+            }
+        } catch (IOException e) {
+            retryLater(target, e);
+        } catch (RuntimeException e) {
+            target.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @return Whether the handshake failed because the certificate of the server is not trusted by
+     *     the context of the probe, e.g. not issued by the CA configured in a {@link
+     *     HandshakeTrust}
+     */
+    static boolean isUntrustedCertificate(SSLHandshakeException exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CertificateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether the failed handshake proves that the TLS stack of the server is running, i.e.
+     *     the server sent an alert
+     */
+    static boolean isAlert(SSLHandshakeException exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null
+                    && cause.getMessage().startsWith("Received fatal alert")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Hands a target back to the probe thread after a failed attempt of another thread. */
+    private void retryLater(Target target, IOException cause) {
+        target.failedAttempts++;
+        target.lastFailure = cause;
+        LOGGER.trace("{} is not ready yet: {}", target.address, cause.getMessage());
+        target.requestedDelayNanos = target.schedule.getDelayNanos(target.failedAttempts);
+        submitted.add(target);
+        if (closed) {
+            failSubmitted();
+        } else {
+            selector.wakeup();
+        }
+    }
+
+    private void retry(Target target, long now, IOException cause) {
+        target.closeAttempt();
+        target.failedAttempts++;
+        target.lastFailure = cause;
+        if (cause != null) {
+            LOGGER.trace("{} is not ready yet: {}", target.address, cause.getMessage());
+        }
+        // at least one nanosecond later, so a zero delay does not restart it in the same pass
+        target.nextAttemptNanos =
+                Math.max(
+                        now + 1,
+                        Math.min(
+                                now + target.schedule.getDelayNanos(target.failedAttempts),
+                                target.deadlineNanos));
+        scheduled.add(target);
+    }
+
+    private void fail(Target target, RuntimeException cause) {
+        LOGGER.warn("Could not probe {}", target.address, cause);
+        target.closeAttempt();
+        target.future.completeExceptionally(
+                new ImplementationDidNotStartException("Could not probe " + target.address, cause));
+    }
+
+    private void timeout(Target target) {
+        target.closeAttempt();
+        target.future.completeExceptionally(
+                new ImplementationDidNotStartException(
+                        target.address + " did not become ready in time", target.lastFailure));
+    }
+
+    private void shutdown() {
+        List<Target> remaining = new ArrayList<>(inFlight);
+        remaining.addAll(scheduled);
+        inFlight.clear();
+        scheduled.clear();
+        for (Target target : remaining) {
+            target.closeAttempt();
+            target.future.completeExceptionally(
+                    new ImplementationDidNotStartException("Readiness prober was closed"));
+        }
+        failSubmitted();
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOGGER.debug("Could not close selector", e);
+        }
+    }
+
+    private void failSubmitted() {
+        Target target;
+        while ((target = submitted.poll()) != null) {
+            target.future.completeExceptionally(
+                    new ImplementationDidNotStartException("Readiness prober was closed"));
+        }
+    }
+
+    /** A probed address together with its state. Only accessed by the probe thread. */
+    abstract static class Target {
+        final InetSocketAddress address;
+        final CompletableFuture<InetSocketAddress> future;
+        final ProbeSchedule schedule;
+        final long timeoutNanos;
+        final long deadlineNanos;
+        long nextAttemptNanos;
+        long attemptDeadlineNanos;
+        // delay of the next attempt when the target is (re)submitted to the probe thread
+        long requestedDelayNanos;
+        int failedAttempts = 0;
+        IOException lastFailure;
+        SelectableChannel channel;
+
+        Target(
+                InetSocketAddress address,
+                CompletableFuture<InetSocketAddress> future,
+                Duration timeout,
+                ProbeSchedule schedule) {
+            this.address = address;
+            this.future = future;
+            this.schedule = schedule;
+            this.timeoutNanos = timeout.toNanos();
+            this.deadlineNanos = System.nanoTime() + timeoutNanos;
+            this.requestedDelayNanos = schedule.getStartDelay().toNanos();
+        }
+
+        /**
+         * Starts a new attempt and registers its channel at the selector.
+         *
+         * @return Whether the target is ready already
+         * @throws IOException If the attempt failed
+         */
+        abstract boolean startAttempt(Selector selector) throws IOException;
+
+        /**
+         * Continues the attempt after its channel was selected.
+         *
+         * @return Whether the target is ready
+         * @throws IOException If the attempt failed
+         */
+        abstract boolean onSelected(SelectionKey key) throws IOException;
+
+        void closeAttempt() {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Could not close probe channel", e);
+                }
+                channel = null;
+            }
+        }
+    }
+
+    private static class TcpTarget extends Target {
+
+        TcpTarget(
+                InetSocketAddress address,
+                CompletableFuture<InetSocketAddress> future,
+                Duration timeout,
+                ProbeSchedule schedule) {
+            super(address, future, timeout, schedule);
+        }
+
+        @Override
+        boolean startAttempt(Selector selector) throws IOException {
+            SocketChannel socketChannel = SocketChannel.open();
+            channel = socketChannel;
+            socketChannel.configureBlocking(false);
+            if (socketChannel.connect(address)) {
+                return true;
+            }
+            socketChannel.register(selector, SelectionKey.OP_CONNECT, this);
+            return false;
+        }
+
+        @Override
+        boolean onSelected(SelectionKey key) throws IOException {
+            return ((SocketChannel) key.channel()).finishConnect();
+        }
+    }
+
+    private static class DtlsTarget extends Target {
+        private static final int MAX_DATAGRAM_SIZE = 2048;
+
+        DtlsTarget(
+                InetSocketAddress address,
+                CompletableFuture<InetSocketAddress> future,
+                Duration timeout,
+                ProbeSchedule schedule) {
+            super(address, future, timeout, schedule);
+        }
+
+        @Override
+        boolean startAttempt(Selector selector) throws IOException {
+            DatagramChannel datagramChannel = DatagramChannel.open();
+            channel = datagramChannel;
+            datagramChannel.configureBlocking(false);
+            // connecting makes ICMP port unreachable errors show up on read
+            datagramChannel.connect(address);
+            datagramChannel.write(ByteBuffer.wrap(DtlsClientHello.create()));
+            datagramChannel.register(selector, SelectionKey.OP_READ, this);
+            return false;
+        }
+
+        @Override
+        boolean onSelected(SelectionKey key) throws IOException {
+            DatagramChannel datagramChannel = (DatagramChannel) key.channel();
+            ByteBuffer datagram = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+            while (datagramChannel.read(datagram) > 0) {
+                datagram.flip();
+                if (DtlsClientHello.isHandshakeOrAlert(datagram)) {
+                    return true;
+                }
+                datagram.clear();
+            }
+            // not a DTLS answer, keep waiting until the attempt times out
+            return false;
+        }
+    }
+
+    private static class HandshakeTarget extends TcpTarget {
+        private final SSLContext sslContext;
+
+        HandshakeTarget(
+                InetSocketAddress address,
+                CompletableFuture<InetSocketAddress> future,
+                Duration timeout,
+                ProbeSchedule schedule,
+                SSLContext sslContext) {
+            super(address, future, timeout, schedule);
+            this.sslContext = sslContext;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.probe;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time-to-ready statistics of an image, i.e. how long its containers take from being started until
+ * a readiness probe succeeds. Once enough starts were observed, {@link #getSchedule(ProbeSchedule)}
+ * derives a schedule that waits for the fastest start seen and then probes densely around the usual
+ * start time.
+ */
+public class StartupProfile {
+
+    /** Number of starts needed before the schedule is tuned */
+    public static final int MIN_SAMPLES = 3;
+
+    private static final int MAX_SAMPLES = 32;
+
+    private static final Duration MIN_PROBE_DELAY = Duration.ofMillis(2);
+
+    // the start delay leaves at least half of the timeout of a probe for attempts
+    private static final int MAX_START_DELAY_TIMEOUT_DIVISOR = 2;
+
+    /** Probes submitted later than this after the start are recorded only before the start delay */
+    public static final Duration MAX_SUBMIT_DELAY = Duration.ofMillis(100);
+
+    private static final Map<String, StartupProfile> PROFILES = new ConcurrentHashMap<>();
+
+    /**
+     * @param imageId The id of the image
+     * @return The profile of the image, created on first access
+     */
+    public static StartupProfile forImage(String imageId) {
+        return PROFILES.computeIfAbsent(imageId, StartupProfile::new);
+    }
+
+    private final String imageId;
+    // the most recent samples in nanoseconds, used as a ring
+    private final long[] samples = new long[MAX_SAMPLES];
+    private int sampleCount = 0;
+    private long totalCount = 0;
+
+    StartupProfile(String imageId) {
+        this.imageId = imageId;
+    }
+
+    public String getImageId() {
+        return imageId;
+    }
+
+    /**
+     * Records the time to ready measured by a probe, unless the probe was submitted late after the
+     * start of the container. The first attempt of a probe submitted before the tuned start delay
+     * passed is not delayed by the caller, so only those probes (or those submitted within {@link
+     * #MAX_SUBMIT_DELAY}) measure when the container became ready rather than when it was asked.
+     *
+     * @param submittedAfter Time from starting the container until the probe was submitted
+     * @param timeToReady Time from starting the container until the probe succeeded
+     * @return Whether the sample was recorded
+     */
+    public synchronized boolean record(Duration submittedAfter, Duration timeToReady) {
+        Duration window = getStartDelay().orElse(Duration.ZERO);
+        if (window.compareTo(MAX_SUBMIT_DELAY) < 0) {
+            window = MAX_SUBMIT_DELAY;
+        }
+        if (submittedAfter.compareTo(window) > 0) {
+            return false;
+        }
+        record(timeToReady);
+        return true;
+    }
+
+    /**
+     * @param timeToReady Time from starting a container until it was ready
+     */
+    public synchronized void record(Duration timeToReady) {
+        samples[(int) (totalCount % MAX_SAMPLES)] = timeToReady.toNanos();
+        totalCount++;
+        sampleCount = (int) Math.min(totalCount, MAX_SAMPLES);
+    }
+
+    /**
+     * @return The number of starts recorded so far
+     */
+    public synchronized long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * @param quantile Value between 0 and 1
+     * @return The quantile of the recent times to ready, if any were recorded
+     */
+    public synchronized Optional<Duration> getQuantile(double quantile) {
+        if (sampleCount == 0) {
+            return Optional.empty();
+        }
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.round(quantile * (sampleCount - 1));
+        return Optional.of(Duration.ofNanos(sorted[Math.max(0, Math.min(index, sampleCount - 1))]));
+    }
+
+    /**
+     * @return The mean of the recent times to ready, if any were recorded
+     */
+    public synchronized Optional<Duration> getMean() {
+        if (sampleCount == 0) {
+            return Optional.empty();
+        }
+        long sum = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            sum += samples[i];
+        }
+        return Optional.of(Duration.ofNanos(sum / sampleCount));
+    }
+
+    /**
+     * @see #getSchedule(ProbeSchedule, Duration)
+     */
+    public ProbeSchedule getSchedule(ProbeSchedule fallback) {
+        return getSchedule(fallback, null);
+    }
+
+    /**
+     * Derives a schedule from the recorded starts: the first attempt is made shortly before the
+     * fastest recent start, the delays between attempts scale with the spread of the start times.
+     *
+     * @param fallback The schedule used as long as too few starts were recorded. Its multiplier and
+     *     attempt timeout are kept.
+     * @param timeout The timeout of the probe using the schedule; the start delay is at most half
+     *     of it. Null for no limit.
+     * @return The tuned schedule or the fallback
+     */
+    public synchronized ProbeSchedule getSchedule(ProbeSchedule fallback, Duration timeout) {
+        Optional<Duration> tunedStartDelay = getStartDelay();
+        if (!tunedStartDelay.isPresent()) {
+            return fallback;
+        }
+        Duration fastest = getQuantile(0).get();
+        Duration slow = getQuantile(0.9).get();
+        Duration spread = slow.minus(fastest);
+        Duration startDelay = tunedStartDelay.get();
+        if (timeout != null) {
+            Duration maxStartDelay = timeout.dividedBy(MAX_START_DELAY_TIMEOUT_DIVISOR);
+            if (startDelay.compareTo(maxStartDelay) > 0) {
+                startDelay = maxStartDelay;
+            }
+        }
+        Duration initialDelay = clamp(spread.dividedBy(20), MIN_PROBE_DELAY, Duration.ofMillis(50));
+        Duration maxDelay = clamp(spread.dividedBy(4), initialDelay, fallback.getMaxDelay());
+        return new ProbeSchedule(
+                startDelay,
+                initialDelay,
+                maxDelay,
+                fallback.getMultiplier(),
+                fallback.getAttemptTimeout());
+    }
+
+    /**
+     * @return The delay before the first attempt, i.e. shortly before the fastest recent start, if
+     *     enough starts were recorded
+     */
+    private Optional<Duration> getStartDelay() {
+        if (sampleCount < MIN_SAMPLES) {
+            return Optional.empty();
+        }
+        return Optional.of(getQuantile(0).get().multipliedBy(8).dividedBy(10));
+    }
+
+    private static Duration clamp(Duration value, Duration min, Duration max) {
+        if (value.compareTo(min) < 0) {
+            return min;
+        }
+        if (value.compareTo(max) > 0) {
+            return max.compareTo(min) < 0 ? min : max;
+        }
+        return value;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "StartupProfile{"
+                + "imageId="
+                + imageId
+                + ", count="
+                + totalCount
+                + ", mean="
+                + getMean().orElse(null)
+                + '}';
+    }
+}
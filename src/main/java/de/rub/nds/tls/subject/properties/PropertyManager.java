@@ -11,21 +11,25 @@ package de.rub.nds.tls.subject.properties;
 import de.rub.nds.tls.subject.ConnectionRole;
 import de.rub.nds.tls.subject.TlsImplementationType;
 import de.rub.nds.tls.subject.exceptions.PropertyNotFoundException;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 public class PropertyManager {
 
-    private static PropertyManager instance;
+    private static class InstanceHolder {
+        private static final PropertyManager INSTANCE = new PropertyManager();
+    }
 
     public static PropertyManager instance() {
-        if (instance == null) {
-            instance = new PropertyManager();
-        }
-        return instance;
+        return InstanceHolder.INSTANCE;
     }
 
+    // only filled in the constructor and published by the final fields, so lookups need no lock
     private final List<ImageProperties> imagePropertyList;
+    private final Map<ConnectionRole, Map<TlsImplementationType, ImageProperties>> propertiesByRole;
 
     private static class Const {
 
@@ -310,15 +314,23 @@ public class PropertyManager {
                         Const.CERT_KEY_PEM,
                         Const.CERT_CERT_PEM,
                         null));
+
+        Map<ConnectionRole, Map<TlsImplementationType, ImageProperties>> byRole =
+                new EnumMap<>(ConnectionRole.class);
+        for (ImageProperties properties : imagePropertyList) {
+            byRole.computeIfAbsent(
+                            properties.getRole(), r -> new EnumMap<>(TlsImplementationType.class))
+                    .putIfAbsent(properties.getType(), properties);
+        }
+        byRole.replaceAll((role, byType) -> Collections.unmodifiableMap(byType));
+        propertiesByRole = Collections.unmodifiableMap(byRole);
     }
 
     public ImageProperties getProperties(ConnectionRole role, TlsImplementationType type) {
-        for (ImageProperties properties : imagePropertyList) {
-            if (properties.getRole().equals(role)) {
-                if (properties.getType().equals(type)) {
-                    return properties;
-                }
-            }
+        ImageProperties properties =
+                propertiesByRole.getOrDefault(role, Collections.emptyMap()).get(type);
+        if (properties != null) {
+            return properties;
         }
         throw new PropertyNotFoundException(
                 "No " + role.name() + " properties found for: " + type.name());
@@ -0,0 +1,38 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class BurstResultTest {
+
+    @Test
+    public void testParse() {
+        List<String> lines =
+                List.of(
+                        "TOK 1 0 1000 4000",
+                        "some client output",
+                        "TOK 0 0 1000 2000",
+                        "TOK 2 1 2000 2500",
+                        "OTHER 3 0 0 1");
+        BurstResult result = BurstResult.parse(lines, "TOK", Duration.ofSeconds(1));
+        assertEquals(3, result.getAttempts().size());
+        assertEquals(0, result.getAttempts().get(0).getIndex());
+        assertEquals(2, result.getSuccessCount());
+        assertEquals(1, result.getFailureCount());
+        assertFalse(result.getAttempts().get(2).isSuccess());
+        assertEquals(Duration.ofNanos(1000), result.getQuantile(0).get());
+        assertEquals(Duration.ofNanos(3000), result.getQuantile(1).get());
+    }
+}
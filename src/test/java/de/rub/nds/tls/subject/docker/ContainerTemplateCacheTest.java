@@ -0,0 +1,136 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import de.rub.nds.tls.subject.ConnectionRole;
+import de.rub.nds.tls.subject.TlsImplementationType;
+import de.rub.nds.tls.subject.params.Parameter;
+import de.rub.nds.tls.subject.params.ParameterProfile;
+import de.rub.nds.tls.subject.params.ParameterType;
+import de.rub.nds.tls.subject.properties.ImageProperties;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ContainerTemplateCacheTest {
+
+    private DockerEventTracker tracker;
+    private ContainerTemplateCache.ImageTemplate template;
+    private final AtomicInteger renders = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        tracker = new DockerEventTracker(null);
+        ContainerTemplateCache cache =
+                new ContainerTemplateCache(
+                        null, tracker, new DockerCallLimiter(new DockerCallSettings()));
+        template = cache.getTemplate("image");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tracker.stop();
+    }
+
+    private ParameterProfile profile(String connectParameter) {
+        return new ParameterProfile(
+                "profile",
+                "test profile",
+                TlsImplementationType.OPENSSL,
+                ConnectionRole.CLIENT,
+                List.of("1.1.1"),
+                List.of(
+                        new Parameter(connectParameter, ParameterType.HOST_PORT),
+                        new Parameter("-CAfile [cert]", ParameterType.CA_CERTIFICATE))) {
+            @Override
+            public String[] toParameters(
+                    String host,
+                    Integer targetPort,
+                    ImageProperties imageProperties,
+                    String additionalParameters,
+                    boolean parallelize,
+                    boolean insecureConnection) {
+                renders.incrementAndGet();
+                return super.toParameters(
+                        host,
+                        targetPort,
+                        imageProperties,
+                        additionalParameters,
+                        parallelize,
+                        insecureConnection);
+            }
+        };
+    }
+
+    private static ImageProperties properties(String certPath) {
+        return new ImageProperties(
+                ConnectionRole.CLIENT, TlsImplementationType.OPENSSL, "1.1.1", certPath, false);
+    }
+
+    private String[] render(ParameterProfile profile, ImageProperties imageProperties) {
+        return template.getParameters(profile, imageProperties, "host", 443, null, false, false);
+    }
+
+    @Test
+    public void testEqualProfilesShareAnEntry() {
+        String[] first = render(profile("-connect [host]:[port]"), properties("/cert/ca.pem"));
+        String[] second = render(profile("-connect [host]:[port]"), properties("/cert/ca.pem"));
+
+        assertEquals(1, renders.get());
+        assertArrayEquals(new String[] {"-connect", "host:443", "-CAfile", "/cert/ca.pem"}, second);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void testDifferentProfileIsRendered() {
+        render(profile("-connect [host]:[port]"), properties("/cert/ca.pem"));
+        String[] rendered =
+                render(profile("-host [host] -port [port]"), properties("/cert/ca.pem"));
+
+        assertEquals(2, renders.get());
+        assertEquals("-host", rendered[0]);
+    }
+
+    @Test
+    public void testChangedImagePropertiesAreRendered() {
+        ParameterProfile profile = profile("-connect [host]:[port]");
+        ImageProperties imageProperties = properties("/cert/ca.pem");
+        render(profile, imageProperties);
+        imageProperties.setDefaultCertPath("/cert/other.pem");
+        String[] rendered = render(profile, imageProperties);
+
+        assertEquals(2, renders.get());
+        assertEquals("/cert/other.pem", rendered[3]);
+    }
+
+    @Test
+    public void testOtherArgumentsAreRendered() {
+        ParameterProfile profile = profile("-connect [host]:[port]");
+        ImageProperties imageProperties = properties("/cert/ca.pem");
+        render(profile, imageProperties);
+        template.getParameters(profile, imageProperties, "host", 4433, null, false, false);
+
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    public void testReturnedParametersAreCopies() {
+        ParameterProfile profile = profile("-connect [host]:[port]");
+        ImageProperties imageProperties = properties("/cert/ca.pem");
+        render(profile, imageProperties)[0] = "changed";
+
+        assertEquals("-connect", render(profile, imageProperties)[0]);
+        assertEquals(1, renders.get());
+    }
+}
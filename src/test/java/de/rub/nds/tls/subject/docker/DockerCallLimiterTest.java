@@ -0,0 +1,274 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.dockerjava.api.exception.DockerException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.exception.NotModifiedException;
+import de.rub.nds.tls.subject.exceptions.DockerUnavailableException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class DockerCallLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private DockerCallLimiter limiter(DockerCallSettings settings) {
+        return new DockerCallLimiter(settings.backoff(Duration.ZERO, Duration.ZERO), clock::get);
+    }
+
+    private static RuntimeException timeout() {
+        return new UncheckedIOException(new SocketTimeoutException("Read timed out"));
+    }
+
+    @Test
+    public void testAdditiveIncrease() {
+        DockerCallLimiter limiter =
+                limiter(new DockerCallSettings().initialLimit(2).limitBounds(1, 3));
+        for (int i = 0; i < 3; i++) {
+            limiter.call("inspect", true, () -> "ok");
+        }
+        assertEquals(3, limiter.getLimit());
+        for (int i = 0; i < 10; i++) {
+            limiter.call("inspect", true, () -> "ok");
+        }
+        assertEquals(3, limiter.getLimit(), "limited by the upper bound");
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void testMultiplicativeDecrease() {
+        DockerCallLimiter limiter =
+                limiter(
+                        new DockerCallSettings()
+                                .initialLimit(16)
+                                .backoffRatio(0.5)
+                                .latencyThreshold(Duration.ofSeconds(1)));
+        clock.addAndGet(1);
+        assertThrows(
+                UncheckedIOException.class,
+                () ->
+                        limiter.call(
+                                "create",
+                                false,
+                                () -> {
+                                    throw timeout();
+                                }));
+        assertEquals(8, limiter.getLimit());
+
+        clock.addAndGet(1);
+        limiter.call(
+                "inspect",
+                true,
+                () -> {
+                    clock.addAndGet(Duration.ofSeconds(2).toNanos());
+                    return "slow";
+                });
+        assertEquals(4, limiter.getLimit(), "slow calls count as overload");
+    }
+
+    @Test
+    public void testDesignedWaitIsNotLatency() {
+        DockerCallLimiter limiter =
+                limiter(
+                        new DockerCallSettings()
+                                .initialLimit(16)
+                                .backoffRatio(0.5)
+                                .latencyThreshold(Duration.ofSeconds(1)));
+        clock.addAndGet(1);
+        limiter.run(
+                "stop",
+                true,
+                Duration.ofSeconds(10),
+                () -> clock.addAndGet(Duration.ofSeconds(10).toNanos()));
+        assertEquals(16, limiter.getLimit(), "waiting out the grace period is no overload");
+
+        clock.addAndGet(1);
+        limiter.run(
+                "stop",
+                true,
+                Duration.ofSeconds(10),
+                () -> clock.addAndGet(Duration.ofSeconds(12).toNanos()));
+        assertEquals(8, limiter.getLimit(), "time beyond the designed wait still counts");
+    }
+
+    @Test
+    public void testDecreaseOncePerRound() {
+        DockerCallLimiter limiter =
+                limiter(new DockerCallSettings().initialLimit(16).backoffRatio(0.5));
+        clock.addAndGet(1);
+        // both calls started before the first one failed
+        assertThrows(
+                UncheckedIOException.class,
+                () ->
+                        limiter.call(
+                                "outer",
+                                false,
+                                () -> {
+                                    assertThrows(
+                                            UncheckedIOException.class,
+                                            () ->
+                                                    limiter.call(
+                                                            "inner",
+                                                            false,
+                                                            () -> {
+                                                                throw timeout();
+                                                            }));
+                                    clock.addAndGet(1);
+                                    throw timeout();
+                                }));
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    public void testRetriesIdempotentCalls() {
+        DockerCallLimiter limiter = limiter(new DockerCallSettings().maxAttempts(3));
+        AtomicInteger attempts = new AtomicInteger();
+        String result =
+                limiter.call(
+                        "inspect",
+                        true,
+                        () -> {
+                            if (attempts.incrementAndGet() < 3) {
+                                throw timeout();
+                            }
+                            return "ok";
+                        });
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, limiter.getRetryCount());
+
+        attempts.set(0);
+        assertThrows(
+                UncheckedIOException.class,
+                () ->
+                        limiter.call(
+                                "create",
+                                false,
+                                () -> {
+                                    attempts.incrementAndGet();
+                                    throw timeout();
+                                }));
+        assertEquals(1, attempts.get(), "calls that are not idempotent are not retried");
+
+        attempts.set(0);
+        assertThrows(
+                NotFoundException.class,
+                () ->
+                        limiter.call(
+                                "inspect",
+                                true,
+                                () -> {
+                                    attempts.incrementAndGet();
+                                    throw new NotFoundException("No such container");
+                                }));
+        assertEquals(1, attempts.get(), "definite answers are not retried");
+    }
+
+    @Test
+    public void testNotModifiedAfterRetryIsSuccess() {
+        DockerCallLimiter limiter = limiter(new DockerCallSettings());
+        AtomicInteger attempts = new AtomicInteger();
+        limiter.run(
+                "start",
+                true,
+                () -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        throw timeout();
+                    }
+                    throw new NotModifiedException("Container already started");
+                });
+        assertEquals(2, attempts.get());
+        assertThrows(
+                NotModifiedException.class,
+                () ->
+                        limiter.run(
+                                "start",
+                                true,
+                                () -> {
+                                    throw new NotModifiedException("Container already started");
+                                }));
+    }
+
+    @Test
+    public void testCircuitBreaker() {
+        DockerCallLimiter limiter =
+                limiter(
+                        new DockerCallSettings()
+                                .maxAttempts(1)
+                                .failureThreshold(2)
+                                .openDuration(Duration.ofSeconds(10)));
+        for (int i = 0; i < 2; i++) {
+            assertThrows(
+                    UncheckedIOException.class,
+                    () ->
+                            limiter.call(
+                                    "inspect",
+                                    true,
+                                    () -> {
+                                        throw timeout();
+                                    }));
+        }
+        assertEquals(DockerCallLimiter.CircuitState.OPEN, limiter.getState());
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(
+                DockerUnavailableException.class,
+                () -> limiter.call("inspect", true, calls::incrementAndGet));
+        assertEquals(0, calls.get());
+        assertEquals(1, limiter.getRejectCount());
+
+        // a failing trial opens the breaker again
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertThrows(
+                UncheckedIOException.class,
+                () ->
+                        limiter.call(
+                                "inspect",
+                                true,
+                                () -> {
+                                    throw timeout();
+                                }));
+        assertEquals(DockerCallLimiter.CircuitState.OPEN, limiter.getState());
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        limiter.call(
+                "inspect",
+                true,
+                () -> {
+                    assertEquals(DockerCallLimiter.CircuitState.HALF_OPEN, limiter.getState());
+                    assertThrows(
+                            DockerUnavailableException.class,
+                            () -> limiter.call("inspect", true, calls::incrementAndGet),
+                            "only one trial call");
+                    return "ok";
+                });
+        assertEquals(DockerCallLimiter.CircuitState.CLOSED, limiter.getState());
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    public void testIsOverload() {
+        assertTrue(DockerCallLimiter.isOverload(timeout()));
+        assertTrue(DockerCallLimiter.isOverload(new RuntimeException(new IOException("reset"))));
+        assertTrue(DockerCallLimiter.isOverload(new DockerException("unavailable", 503)));
+        assertFalse(DockerCallLimiter.isOverload(new NotFoundException("No such container")));
+        assertFalse(DockerCallLimiter.isOverload(new DockerException("conflict", 409)));
+        assertFalse(DockerCallLimiter.isOverload(new IllegalStateException()));
+    }
+}
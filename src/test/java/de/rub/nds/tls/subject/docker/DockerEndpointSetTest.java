@@ -0,0 +1,102 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class DockerEndpointSetTest {
+
+    private static List<DockerEndpoint> endpoints(int count) {
+        List<DockerEndpoint> endpoints = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            endpoints.add(DockerEndpoint.of("daemon-" + i, null, null, null));
+        }
+        return endpoints;
+    }
+
+    @Test
+    public void testLeastLoaded() {
+        List<DockerEndpoint> endpoints = endpoints(3);
+        DockerEndpointSet set = new DockerEndpointSet(endpoints, ShardingStrategy.LEAST_LOADED);
+        endpoints.get(0).acquire();
+        endpoints.get(1).acquire();
+        assertSame(endpoints.get(2), set.select("image", e -> false));
+        endpoints.get(2).acquire();
+        // ties go to the first endpoint
+        assertSame(endpoints.get(0), set.select("image", e -> false));
+        endpoints.get(0).release();
+        assertSame(endpoints.get(0), set.select("image", e -> false));
+        assertEquals(2, set.getLoad());
+    }
+
+    @Test
+    public void testHashByImageIsStable() {
+        List<DockerEndpoint> endpoints = endpoints(4);
+        DockerEndpointSet set = new DockerEndpointSet(endpoints, ShardingStrategy.HASH_BY_IMAGE);
+        DockerEndpoint first = set.select("openssl-server-3.0", e -> false);
+        endpoints.forEach(DockerEndpoint::acquire);
+        first.acquire();
+        // the load does not matter
+        assertSame(first, set.select("openssl-server-3.0", e -> false));
+
+        List<DockerEndpoint> used = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            DockerEndpoint selected = set.select("image-" + i, e -> false);
+            if (!used.contains(selected)) {
+                used.add(selected);
+            }
+        }
+        assertEquals(4, used.size());
+    }
+
+    @Test
+    public void testHashByImageOnlyMovesImagesOfRemovedEndpoint() {
+        List<DockerEndpoint> endpoints = endpoints(4);
+        DockerEndpointSet set = new DockerEndpointSet(endpoints, ShardingStrategy.HASH_BY_IMAGE);
+        DockerEndpoint removed = endpoints.get(1);
+        DockerEndpointSet reduced =
+                new DockerEndpointSet(
+                        List.of(endpoints.get(0), endpoints.get(2), endpoints.get(3)),
+                        ShardingStrategy.HASH_BY_IMAGE);
+        for (int i = 0; i < 100; i++) {
+            DockerEndpoint before = set.select("image-" + i, e -> false);
+            DockerEndpoint after = reduced.select("image-" + i, e -> false);
+            if (before != removed) {
+                assertSame(before, after);
+            }
+        }
+    }
+
+    @Test
+    public void testImageAffinity() {
+        List<DockerEndpoint> endpoints = endpoints(3);
+        DockerEndpointSet set = new DockerEndpointSet(endpoints, ShardingStrategy.IMAGE_AFFINITY);
+        endpoints.get(1).acquire();
+        endpoints.get(1).acquire();
+        endpoints.get(2).acquire();
+        assertSame(
+                endpoints.get(2),
+                set.select("image", e -> e != endpoints.get(0)),
+                "least loaded endpoint having the image");
+        assertSame(endpoints.get(0), set.select("image", e -> false), "fallback to least loaded");
+    }
+
+    @Test
+    public void testPublishedHost() {
+        assertEquals("10.0.0.2", DockerEndpoint.getPublishedHost("tcp://10.0.0.2:2376"));
+        assertNull(DockerEndpoint.getPublishedHost("unix:///run/docker-2.sock"));
+        assertNull(DockerEndpoint.getPublishedHost("npipe:////./pipe/docker_engine"));
+    }
+}
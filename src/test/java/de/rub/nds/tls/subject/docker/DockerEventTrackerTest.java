@@ -0,0 +1,184 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.EventsCmd;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventActor;
+import com.github.dockerjava.api.model.EventType;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DockerEventTrackerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final BlockingQueue<Subscription> subscriptions = new LinkedBlockingQueue<>();
+    private DockerEventTracker tracker;
+
+    /** An events request made by the tracker. */
+    private static class Subscription {
+        private String since;
+        private String until;
+        private ResultCallback<Event> callback;
+    }
+
+    @SuppressWarnings("unchecked")
+    private EventsCmd eventsCmd() {
+        Subscription subscription = new Subscription();
+        return (EventsCmd)
+                Proxy.newProxyInstance(
+                        EventsCmd.class.getClassLoader(),
+                        new Class<?>[] {EventsCmd.class},
+                        (proxy, method, args) -> {
+                            switch (method.getName()) {
+                                case "withSince":
+                                    subscription.since = (String) args[0];
+                                    return proxy;
+                                case "withUntil":
+                                    subscription.until = (String) args[0];
+                                    return proxy;
+                                case "exec":
+                                    subscription.callback = (ResultCallback<Event>) args[0];
+                                    subscriptions.add(subscription);
+                                    return args[0];
+                                default:
+                                    if (method.getReturnType() == EventsCmd.class) {
+                                        return proxy;
+                                    }
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        });
+    }
+
+    @BeforeEach
+    public void setUp() {
+        DockerClient docker =
+                (DockerClient)
+                        Proxy.newProxyInstance(
+                                DockerClient.class.getClassLoader(),
+                                new Class<?>[] {DockerClient.class},
+                                (proxy, method, args) -> {
+                                    if (method.getName().equals("eventsCmd")) {
+                                        return eventsCmd();
+                                    }
+                                    throw new UnsupportedOperationException(method.getName());
+                                });
+        tracker = new DockerEventTracker(docker);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        tracker.stop();
+    }
+
+    private Subscription nextSubscription() throws InterruptedException {
+        Subscription subscription = subscriptions.poll(5, TimeUnit.SECONDS);
+        assertNotNull(subscription, "tracker did not subscribe");
+        return subscription;
+    }
+
+    private static Event containerEvent(String id, String action, long timeNanos) {
+        return new Event()
+                .withType(EventType.CONTAINER)
+                .withAction(action)
+                .withTime(TimeUnit.NANOSECONDS.toSeconds(timeNanos))
+                .withTimenano(timeNanos)
+                .withEventActor(
+                        new EventActor().withId(id).withAttributes(Map.of("exitCode", "3")));
+    }
+
+    @Test
+    public void testSynchronizedOnlyAfterReplayCompleted() throws Exception {
+        Subscription live = nextSubscription();
+        Subscription replay = nextSubscription();
+        assertNull(live.until);
+        assertEquals(live.since, replay.until);
+
+        TrackedState state = tracker.trackContainer("c");
+        live.callback.onStart(() -> {});
+        assertFalse(tracker.isSynchronized());
+        assertEquals(0, tracker.getEpoch());
+
+        replay.callback.onNext(containerEvent("c", "start", SECOND));
+        assertFalse(tracker.isSynchronized());
+        replay.callback.onComplete();
+        assertTrue(tracker.isSynchronized());
+        assertEquals(1, tracker.getEpoch());
+        assertTrue(state.isRunning());
+    }
+
+    @Test
+    public void testReplayCompletingFirstWaitsForStream() throws Exception {
+        Subscription live = nextSubscription();
+        Subscription replay = nextSubscription();
+        replay.callback.onComplete();
+        assertFalse(tracker.isSynchronized());
+        live.callback.onStart(() -> {});
+        assertTrue(tracker.isSynchronized());
+    }
+
+    @Test
+    public void testFailedReplayReconnects() throws Exception {
+        Subscription live = nextSubscription();
+        Subscription replay = nextSubscription();
+        live.callback.onStart(() -> {});
+        replay.callback.onError(new RuntimeException("connection reset"));
+        assertFalse(tracker.isSynchronized());
+
+        Subscription newLive = nextSubscription();
+        Subscription newReplay = nextSubscription();
+        // the outdated replay does not mark the new subscription as synchronized
+        replay.callback.onComplete();
+        newLive.callback.onStart(() -> {});
+        assertFalse(tracker.isSynchronized());
+        newReplay.callback.onComplete();
+        assertTrue(tracker.isSynchronized());
+    }
+
+    @Test
+    public void testReplayedOlderEventsDoNotOverwriteNewerState() {
+        TrackedState state = tracker.trackContainer("c");
+        tracker.handleEvent(containerEvent("c", "start", 10 * SECOND));
+        tracker.handleEvent(containerEvent("c", "die", 10 * SECOND + 500));
+        // the same start within the same second is received again on the replay stream
+        tracker.handleEvent(containerEvent("c", "start", 10 * SECOND));
+        assertEquals(TrackedState.Status.EXITED, state.getStatus());
+        assertEquals(3L, state.getExitCode().get());
+
+        tracker.handleEvent(containerEvent("c", "start", 11 * SECOND));
+        assertEquals(TrackedState.Status.RUNNING, state.getStatus());
+    }
+
+    @Test
+    public void testEventsWithoutTimeAreApplied() {
+        TrackedState state = tracker.trackContainer("c");
+        tracker.handleEvent(containerEvent("c", "start", 10 * SECOND));
+        tracker.handleEvent(
+                new Event()
+                        .withType(EventType.CONTAINER)
+                        .withAction("die")
+                        .withEventActor(new EventActor().withId("c")));
+        assertEquals(TrackedState.Status.EXITED, state.getStatus());
+    }
+}
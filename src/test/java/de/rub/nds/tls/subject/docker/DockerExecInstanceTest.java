@@ -0,0 +1,86 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class DockerExecInstanceTest {
+
+    private static CompletableFuture<Long> fetchExitCode(
+            TrackedState state, AtomicInteger inspects, int runningInspects) {
+        return DockerExecInstance.fetchExitCode(
+                "exec",
+                state,
+                () ->
+                        inspects.incrementAndGet() <= runningInspects
+                                ? Optional.empty()
+                                : Optional.of(7L),
+                Runnable::run,
+                1);
+    }
+
+    @Test
+    public void testExitCodeOfEventIsUsedWithoutInspect() throws Exception {
+        TrackedState state = new TrackedState("exec");
+        state.onStarted();
+        state.onExited(3L);
+        AtomicInteger inspects = new AtomicInteger();
+        assertEquals(3L, fetchExitCode(state, inspects, 0).get(5, TimeUnit.SECONDS));
+        assertEquals(0, inspects.get());
+    }
+
+    @Test
+    public void testInspectIsRetriedWhileExecIsReportedRunning() throws Exception {
+        AtomicInteger inspects = new AtomicInteger();
+        CompletableFuture<Long> exitCode = fetchExitCode(new TrackedState("exec"), inspects, 2);
+        assertEquals(7L, exitCode.get(5, TimeUnit.SECONDS));
+        assertEquals(3, inspects.get());
+    }
+
+    @Test
+    public void testDieEventDuringRetriesIsUsed() throws Exception {
+        TrackedState state = new TrackedState("exec");
+        state.onStarted();
+        AtomicInteger inspects = new AtomicInteger();
+        CompletableFuture<Long> exitCode =
+                DockerExecInstance.fetchExitCode(
+                        "exec",
+                        state,
+                        () -> {
+                            inspects.incrementAndGet();
+                            // the exec_die event arrives while the daemon reports it as running
+                            state.onExited(5L);
+                            return Optional.empty();
+                        },
+                        Runnable::run,
+                        1);
+        assertEquals(5L, exitCode.get(5, TimeUnit.SECONDS));
+        assertEquals(1, inspects.get());
+    }
+
+    @Test
+    public void testFailsIfExecKeepsRunning() {
+        AtomicInteger inspects = new AtomicInteger();
+        CompletableFuture<Long> exitCode =
+                fetchExitCode(new TrackedState("exec"), inspects, Integer.MAX_VALUE);
+        ExecutionException exception =
+                assertThrows(ExecutionException.class, () -> exitCode.get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertEquals(DockerExecInstance.MAX_EXIT_CODE_ATTEMPTS, inspects.get());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DockerLifecycleExecutorTest {
+
+    private Executor previousExecutor;
+
+    @BeforeEach
+    public void rememberExecutor() {
+        previousExecutor = DockerLifecycleExecutor.getExecutor();
+    }
+
+    @AfterEach
+    public void restoreDefaults() {
+        DockerLifecycleExecutor.setExecutor(previousExecutor);
+        DockerLifecycleExecutor.setMaxConcurrentCalls(null);
+    }
+
+    @Test
+    public void testConcurrencyIsBounded() throws Exception {
+        DockerLifecycleExecutor.setMaxConcurrentCalls(2);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(
+                    DockerLifecycleExecutor.runAsync(
+                            () -> {
+                                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                                try {
+                                    release.await(5, TimeUnit.SECONDS);
+                                } catch (InterruptedException e) {
+                                    Thread.currentThread().interrupt();
+                                }
+                                running.decrementAndGet();
+                            }));
+        }
+        // give the queued tasks the chance to (wrongly) start
+        Thread.sleep(100);
+        assertEquals(2, maxRunning.get());
+        assertEquals(6, futures.stream().filter(future -> !future.isDone()).count());
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testResultIsPassedToFuture() throws Exception {
+        assertEquals(
+                "done", DockerLifecycleExecutor.supplyAsync(() -> "done").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testExceptionFailsFuture() {
+        CompletableFuture<Void> future =
+                DockerLifecycleExecutor.runAsync(
+                        () -> {
+                            throw new IllegalStateException("broken");
+                        });
+        ExecutionException exception =
+                assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testRejectedTaskFailsFutureInsteadOfRunningInCaller() {
+        DockerLifecycleExecutor.setExecutor(
+                command -> {
+                    throw new RejectedExecutionException("shut down");
+                });
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<Void> future = DockerLifecycleExecutor.runAsync(() -> ran.set(true));
+        ExecutionException exception =
+                assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof RejectedExecutionException);
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void testDefaultBoundFollowsCallLimiter() {
+        DockerLifecycleExecutor.setMaxConcurrentCalls(null);
+        assertEquals(
+                Math.max(1, DockerCallLimiter.instance().getLimit()),
+                DockerLifecycleExecutor.getMaxConcurrentCalls());
+        DockerLifecycleExecutor.setMaxConcurrentCalls(3);
+        assertEquals(3, DockerLifecycleExecutor.getMaxConcurrentCalls());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class DriverChannelTest {
+
+    @Test
+    public void testShellLineQuotesArguments() {
+        assertEquals(
+                "echo b; 'openssl' 's_client' 'it'\\''s' </dev/null 2>&1; echo \"e $?\"\n",
+                DriverChannel.toShellLine("b", "e", "openssl", "s_client", "it's"));
+    }
+
+    private static final String BEGIN = "token:0:begin";
+    private static final String END = "token:0:end";
+
+    @Test
+    public void testParseResult() {
+        List<String> lines = List.of("previous", BEGIN, "CONNECTED", "done", END + " 1");
+        DriverResult result = DriverChannel.parseResult(lines, BEGIN, END, Duration.ZERO);
+        assertEquals(1, result.getExitCode());
+        assertEquals(List.of("CONNECTED", "done"), result.getOutput());
+    }
+
+    @Test
+    public void testParseResultWithoutTrailingNewline() {
+        List<String> lines = List.of(BEGIN, "partial output" + END + " 0");
+        DriverResult result = DriverChannel.parseResult(lines, BEGIN, END, Duration.ZERO);
+        assertEquals(0, result.getExitCode());
+        assertEquals(List.of("partial output"), result.getOutput());
+    }
+
+    @Test
+    public void testParseResultWithoutEndMarker() {
+        assertThrows(
+                IllegalStateException.class,
+                () -> DriverChannel.parseResult(List.of(BEGIN, "x"), BEGIN, END, Duration.ZERO));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+public class FrameHandlerTest {
+
+    private static Frame frame(byte[] payload) {
+        return new Frame(StreamType.STDOUT, payload);
+    }
+
+    private static Frame frame(String payload) {
+        return frame(payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSplitsLinesAcrossFrames() {
+        FrameHandler handler = new FrameHandler();
+        handler.onNext(frame("first li"));
+        handler.onNext(frame("ne\r\nsecond line\nthi"));
+        handler.onNext(frame("rd\rfourth"));
+
+        assertEquals(3, handler.getLineCount());
+        assertArrayEquals(
+                new String[] {"first line", "second line", "third", "fourth"}, handler.getLines());
+
+        handler.onComplete();
+        assertEquals(4, handler.getLineCount());
+    }
+
+    @Test
+    public void testDecodesCharactersSplitBetweenFrames() {
+        byte[] bytes = "gr\u00f6\u00dfer\n".getBytes(StandardCharsets.UTF_8);
+        FrameHandler handler = new FrameHandler();
+        // split in the middle of the two byte encoding of the umlaut
+        handler.onNext(frame(Arrays.copyOfRange(bytes, 0, 3)));
+        handler.onNext(frame(Arrays.copyOfRange(bytes, 3, bytes.length)));
+
+        assertArrayEquals(new String[] {"gr\u00f6\u00dfer"}, handler.getLines());
+    }
+
+    @Test
+    public void testCursorOnlyReturnsNewLines() {
+        FrameHandler handler = new FrameHandler();
+        handler.onNext(frame("a\nb\n"));
+        FrameHandler.LineChunk chunk = handler.readLines(0);
+        assertEquals(Arrays.asList("a", "b"), chunk.getLines());
+        assertEquals(2, chunk.getNextCursor());
+
+        handler.onNext(frame("c\n"));
+        chunk = handler.readLines(chunk.getNextCursor());
+        assertEquals(Arrays.asList("c"), chunk.getLines());
+        assertEquals(0, chunk.getDroppedLines());
+
+        chunk = handler.readLines(chunk.getNextCursor());
+        assertEquals(0, chunk.getLines().size());
+    }
+
+    @Test
+    public void testDropsOldestLinesWhenFull() {
+        FrameHandler handler = new FrameHandler(2);
+        handler.onNext(frame("1\n2\n3\n4\n"));
+
+        assertArrayEquals(new String[] {"3", "4"}, handler.getLines());
+        FrameHandler.LineChunk chunk = handler.readLines(1);
+        assertEquals(Arrays.asList("3", "4"), chunk.getLines());
+        assertEquals(1, chunk.getDroppedLines());
+        assertEquals(4, chunk.getNextCursor());
+    }
+
+    @Test
+    public void testKeepsAllLinesWhileGrowingToCapacity() {
+        FrameHandler handler = new FrameHandler(100);
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < 150; i++) {
+            output.append(i).append('\n');
+            if (i == 40) {
+                handler.onNext(frame(output.toString()));
+                output.setLength(0);
+                FrameHandler.LineChunk chunk = handler.readLines(0);
+                assertEquals(41, chunk.getLines().size());
+                assertEquals("40", chunk.getLines().get(40));
+            }
+        }
+        handler.onNext(frame(output.toString()));
+
+        FrameHandler.LineChunk chunk = handler.readLines(0);
+        assertEquals(100, chunk.getLines().size());
+        assertEquals("50", chunk.getLines().get(0));
+        assertEquals("149", chunk.getLines().get(99));
+        assertEquals(50, chunk.getDroppedLines());
+    }
+
+    @Test
+    public void testTimestampOfContinuedLineIsDropped() {
+        FrameHandler handler = new FrameHandler(10, true);
+        handler.onNext(frame("2026-01-01T10:00:00.000000001Z first pa"));
+        handler.onNext(frame("2026-01-01T10:00:01.000000002Z rt\r"));
+        handler.onNext(frame("2026-01-01T10:00:01.000000003Z \n"));
+        handler.onNext(frame("2026-01-01T10:00:02.000000004Z second\n"));
+
+        assertArrayEquals(
+                new String[] {
+                    "2026-01-01T10:00:00.000000001Z first part",
+                    "2026-01-01T10:00:02.000000004Z second"
+                },
+                handler.getLines());
+        assertTrue(handler.isLastLineTerminated());
+    }
+
+    @Test
+    public void testUnterminatedLastLineIsReported() {
+        FrameHandler handler = new FrameHandler(10, true);
+        handler.onNext(frame("2026-01-01T10:00:00Z done\n2026-01-01T10:00:01Z tai"));
+        handler.onComplete();
+
+        assertEquals(2, handler.getLineCount());
+        assertFalse(handler.isLastLineTerminated());
+    }
+
+    @Test
+    public void testTimestampLength() {
+        assertEquals(
+                31,
+                FrameHandler.getTimestampLength(
+                        "2026-01-01T10:00:00.000000001Z x".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(
+                0,
+                FrameHandler.getTimestampLength(
+                        "no timestamp".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void testAwaitLineCompletesOnMatchingLine() throws Exception {
+        FrameHandler handler = new FrameHandler();
+        handler.onNext(frame("starting\n"));
+        CompletableFuture<String> future = handler.awaitLineAsync(line -> line.startsWith("ACC"));
+        assertFalse(future.isDone());
+
+        handler.onNext(frame("ACCEPT"));
+        assertFalse(future.isDone());
+        handler.onNext(frame("\n"));
+        assertEquals("ACCEPT", future.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAwaitOutputFindsEarlierLines() throws Exception {
+        FrameHandler handler = new FrameHandler();
+        handler.onNext(frame("Listening on port 4433\nother\n"));
+
+        assertEquals(
+                "Listening on port 4433",
+                handler.awaitOutput(Pattern.compile("port \\d+"), Duration.ofSeconds(1)));
+    }
+
+    @Test
+    public void testAwaitLineFailsWhenOutputEnds() {
+        FrameHandler handler = new FrameHandler();
+        CompletableFuture<String> future = handler.awaitLineAsync("never"::equals);
+        handler.onNext(frame("something else"));
+        handler.onComplete();
+
+        ExecutionException exception =
+                assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertTrue(handler.getCompletion().isDone());
+    }
+
+    @Test
+    public void testAwaitLineTimesOut() {
+        FrameHandler handler = new FrameHandler();
+        assertThrows(
+                TimeoutException.class,
+                () -> handler.awaitLine("never"::equals, Duration.ofMillis(10)));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.dockerjava.api.model.Image;
+import de.rub.nds.tls.subject.ConnectionRole;
+import de.rub.nds.tls.subject.HostInfo;
+import de.rub.nds.tls.subject.TlsImplementationType;
+import de.rub.nds.tls.subject.constants.TransportType;
+import de.rub.nds.tls.subject.params.ParameterProfile;
+import de.rub.nds.tls.subject.properties.ImageProperties;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+public class HibernatorTest {
+
+    private static final DockerEndpoint ENDPOINT = DockerEndpoint.of("test", null, null, null);
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testRescheduleCancelsPendingCheck() throws Exception {
+        Hibernator hibernator = new Hibernator();
+        FakeServer server = new FakeServer(null);
+        hibernator.schedule(server, 1, TimeUnit.MILLISECONDS.toNanos(100));
+        hibernator.schedule(server, 2, TimeUnit.MILLISECONDS.toNanos(100));
+
+        awaitCondition(() -> !server.checkedGenerations.isEmpty());
+        Thread.sleep(200);
+        assertEquals(List.of(2L), server.checkedGenerations);
+    }
+
+    @Test
+    public void testCancelDropsPendingCheck() throws Exception {
+        Hibernator hibernator = new Hibernator();
+        FakeServer server = new FakeServer(null);
+        hibernator.schedule(server, 1, TimeUnit.MILLISECONDS.toNanos(50));
+        hibernator.cancel(server);
+
+        Thread.sleep(200);
+        assertTrue(server.checkedGenerations.isEmpty());
+    }
+
+    @Test
+    public void testIdleInstanceIsPausedAndWokenUp() throws Exception {
+        FakeServer server = new FakeServer(Duration.ofMillis(50));
+        server.scheduleHibernation();
+        awaitCondition(server::isHibernating);
+        assertEquals(1, server.pauses.get());
+
+        server.wake();
+        assertFalse(server.isHibernating());
+        assertEquals(1, server.unpauses.get());
+        assertEquals(1, server.getResumeStats().getCount());
+
+        // the idle time starts again after the wake up
+        awaitCondition(server::isHibernating);
+        assertEquals(2, server.pauses.get());
+    }
+
+    @Test
+    public void testHeldInstanceIsNotPaused() throws Exception {
+        FakeServer server = new FakeServer(Duration.ofMillis(50));
+        server.holdAwake();
+        server.scheduleHibernation();
+        Thread.sleep(300);
+        assertFalse(server.isHibernating());
+        assertEquals(0, server.pauses.get());
+
+        server.releaseAwake();
+        awaitCondition(server::isHibernating);
+        assertEquals(1, server.pauses.get());
+    }
+
+    @Test
+    public void testWakeDuringPauseUnpauses() throws Exception {
+        FakeServer server = new FakeServer(Duration.ofMillis(50));
+        server.pauseStarted = new CountDownLatch(1);
+        server.pauseReleased = new CountDownLatch(1);
+        server.scheduleHibernation();
+        assertTrue(server.pauseStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> wake = CompletableFuture.runAsync(server::wake);
+        Thread.sleep(100);
+        // the wake up has to wait until the container is frozen, then it thaws it
+        assertFalse(wake.isDone());
+        server.pauseReleased.countDown();
+        wake.get(5, TimeUnit.SECONDS);
+
+        assertFalse(server.isHibernating());
+        assertEquals(1, server.pauses.get());
+        assertEquals(1, server.unpauses.get());
+    }
+
+    private static class FakeServer extends DockerTlsServerInstance {
+        private final List<Long> checkedGenerations = new CopyOnWriteArrayList<>();
+        private final AtomicInteger pauses = new AtomicInteger();
+        private final AtomicInteger unpauses = new AtomicInteger();
+        private volatile CountDownLatch pauseStarted;
+        private volatile CountDownLatch pauseReleased;
+
+        FakeServer(Duration hibernateAfter) {
+            super(
+                    new Image(),
+                    null,
+                    new ParameterProfile(
+                            "test",
+                            "test",
+                            TlsImplementationType.OPENSSL,
+                            ConnectionRole.SERVER,
+                            List.of(),
+                            List.of()),
+                    new ImageProperties(
+                            ConnectionRole.SERVER,
+                            TlsImplementationType.OPENSSL,
+                            "1.1.1",
+                            4433,
+                            null,
+                            null,
+                            null),
+                    "1.1.1",
+                    null,
+                    true,
+                    new HostInfo(null, null, 4433, TransportType.TCP),
+                    null,
+                    false,
+                    false,
+                    null,
+                    ENDPOINT,
+                    null,
+                    null,
+                    null,
+                    new RuntimeProfile().hibernateAfter(hibernateAfter),
+                    null,
+                    null,
+                    null);
+        }
+
+        @Override
+        public String getId() {
+            return "container";
+        }
+
+        @Override
+        void hibernateIfIdle(long generation) {
+            checkedGenerations.add(generation);
+            super.hibernateIfIdle(generation);
+        }
+
+        @Override
+        protected void pauseContainer(String id) {
+            pauses.incrementAndGet();
+            if (pauseStarted != null) {
+                // a slow pause call
+                pauseStarted.countDown();
+                try {
+                    pauseReleased.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        protected void unpauseContainer(String id) {
+            unpauses.incrementAndGet();
+        }
+    }
+}
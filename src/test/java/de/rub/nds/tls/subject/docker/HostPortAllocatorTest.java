@@ -0,0 +1,88 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.rub.nds.tls.subject.constants.TransportType;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class HostPortAllocatorTest {
+
+    @Test
+    public void testAddressesAreUsedInTurn() {
+        HostPortAllocator allocator =
+                new HostPortAllocator(
+                        40000,
+                        40009,
+                        List.of("127.0.0.1", "127.0.0.2"),
+                        Duration.ofMinutes(1),
+                        false);
+        HostPortAllocator.Allocation first = allocator.allocate(TransportType.TCP);
+        HostPortAllocator.Allocation second = allocator.allocate(TransportType.TCP);
+        HostPortAllocator.Allocation third = allocator.allocate(TransportType.TCP);
+        assertEquals("127.0.0.1", first.getAddress());
+        assertEquals("127.0.0.2", second.getAddress());
+        assertEquals("127.0.0.1", third.getAddress());
+        assertNotEquals(first.getPort(), third.getPort());
+        assertEquals(3, allocator.getAllocatedCount());
+    }
+
+    @Test
+    public void testReleasedPortsAreQuarantined() {
+        HostPortAllocator allocator =
+                new HostPortAllocator(
+                        40000, 40001, List.of("127.0.0.1"), Duration.ofMinutes(1), false);
+        HostPortAllocator.Allocation first = allocator.allocate(TransportType.TCP);
+        allocator.allocate(TransportType.TCP);
+        allocator.release(first);
+        assertEquals(1, allocator.getAllocatedCount());
+        assertThrows(IllegalStateException.class, () -> allocator.allocate(TransportType.TCP));
+    }
+
+    @Test
+    public void testReleasedPortsAreReusedAfterQuarantine() {
+        HostPortAllocator allocator =
+                new HostPortAllocator(40000, 40000, List.of("127.0.0.1"), Duration.ZERO, false);
+        HostPortAllocator.Allocation first = allocator.allocate(TransportType.TCP);
+        allocator.release(first);
+        assertEquals(first, allocator.allocate(TransportType.TCP));
+    }
+
+    @Test
+    public void testPortsInUseAreSkipped() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"))) {
+            int used = socket.getLocalPort();
+            HostPortAllocator allocator =
+                    new HostPortAllocator(
+                            used,
+                            Math.min(used + 5, 65535),
+                            List.of("127.0.0.1"),
+                            Duration.ZERO,
+                            true);
+            assertNotEquals(used, allocator.allocate(TransportType.TCP).getPort());
+        }
+    }
+
+    @Test
+    public void testLoopbackAliases() {
+        assertEquals(
+                List.of("127.0.0.254", "127.0.0.255", "127.0.1.0"),
+                HostPortAllocator.loopbackAliases("127.0.0.254", 3));
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> HostPortAllocator.loopbackAliases("10.0.0.1", 2));
+    }
+}
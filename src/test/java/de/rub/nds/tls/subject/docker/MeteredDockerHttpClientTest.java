@@ -0,0 +1,94 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.github.dockerjava.transport.DockerHttpClient;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class MeteredDockerHttpClientTest {
+
+    private static class EmptyResponse implements DockerHttpClient.Response {
+        @Override
+        public int getStatusCode() {
+            return 200;
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return Map.of();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    private static class FakeClient implements DockerHttpClient {
+        private final boolean fail;
+
+        private FakeClient(boolean fail) {
+            this.fail = fail;
+        }
+
+        @Override
+        public Response execute(Request request) {
+            if (fail) {
+                throw new IllegalStateException("daemon unavailable");
+            }
+            return new EmptyResponse();
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    private static DockerHttpClient.Request request() {
+        return DockerHttpClient.Request.builder()
+                .method(DockerHttpClient.Request.Method.GET)
+                .path("/_ping")
+                .build();
+    }
+
+    @Test
+    public void testCountsOpenResponses() throws Exception {
+        try (MeteredDockerHttpClient client =
+                new MeteredDockerHttpClient(new FakeClient(false), 4)) {
+            DockerHttpClient.Response first = client.execute(request());
+            DockerHttpClient.Response second = client.execute(request());
+            assertEquals(2, client.getInFlight());
+            assertEquals(0.5, client.getUtilization());
+            first.close();
+            first.close();
+            assertEquals(1, client.getInFlight());
+            second.close();
+            assertEquals(0, client.getInFlight());
+            assertEquals(2, client.getPeakInFlight());
+            assertEquals(2, client.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testCountsFailures() {
+        MeteredDockerHttpClient client = new MeteredDockerHttpClient(new FakeClient(true), 4);
+        assertThrows(IllegalStateException.class, () -> client.execute(request()));
+        assertEquals(0, client.getInFlight());
+        assertEquals(1, client.getFailureCount());
+    }
+}
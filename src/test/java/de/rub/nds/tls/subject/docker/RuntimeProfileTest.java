@@ -0,0 +1,57 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.dockerjava.api.model.HostConfig;
+import com.github.dockerjava.api.model.LogConfig.LoggingType;
+import org.junit.jupiter.api.Test;
+
+public class RuntimeProfileTest {
+
+    @Test
+    public void testStandardKeepsDefaults() {
+        HostConfig cfg =
+                RuntimeProfile.standard()
+                        .applyTo(HostConfig.newHostConfig(), InstanceNetwork.defaultBridge());
+        assertNull(cfg.getLogConfig().getType());
+        assertNull(cfg.getReadonlyRootfs());
+        assertNull(cfg.getUlimits());
+        assertNull(cfg.getSysctls());
+        assertTrue(RuntimeProfile.standard().isLogReadable());
+    }
+
+    @Test
+    public void testBenchmark() {
+        RuntimeProfile profile = RuntimeProfile.benchmark();
+        HostConfig cfg =
+                profile.applyTo(HostConfig.newHostConfig(), InstanceNetwork.defaultBridge());
+        assertEquals(LoggingType.NONE, cfg.getLogConfig().getType());
+        assertTrue(cfg.getReadonlyRootfs());
+        assertTrue(cfg.getTmpFs().containsKey("/tmp"));
+        assertEquals("nofile", cfg.getUlimits()[0].getName());
+        assertEquals("4096", cfg.getSysctls().get("net.core.somaxconn"));
+        assertFalse(profile.isLogReadable());
+        assertFalse(profile.isAttachCapture());
+        assertTrue(profile.captureOutput(true).isAttachCapture());
+    }
+
+    @Test
+    public void testSysctlsAreSkippedOnHostNetwork() {
+        HostConfig cfg =
+                RuntimeProfile.benchmark()
+                        .applyTo(HostConfig.newHostConfig(), InstanceNetwork.host());
+        assertNull(cfg.getSysctls());
+        assertEquals(1, cfg.getUlimits().length);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.rub.nds.tls.subject.constants.TlsSessionLabels;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class SessionReaperTest {
+
+    private static final Instant NOW = Instant.ofEpochSecond(1_000_000);
+    private static final String NAMESPACE = "pid:[4026531836]";
+
+    private static Map<String, String> labels(String session, String host, long pid, long started) {
+        Map<String, String> labels = new HashMap<>();
+        labels.put(TlsSessionLabels.SESSION.getLabelName(), session);
+        labels.put(TlsSessionLabels.HOST.getLabelName(), host);
+        labels.put(TlsSessionLabels.PID.getLabelName(), String.valueOf(pid));
+        labels.put(TlsSessionLabels.PID_NAMESPACE.getLabelName(), NAMESPACE);
+        labels.put(TlsSessionLabels.STARTED.getLabelName(), String.valueOf(started));
+        return labels;
+    }
+
+    @Test
+    public void testCurrentAndUnlabelledAreNeverStale() {
+        assertFalse(
+                SessionReaper.isStale(
+                        labels("current", "local", 1, 0),
+                        "current",
+                        "local",
+                        NAMESPACE,
+                        Duration.ZERO,
+                        NOW,
+                        (pid, start) -> false));
+        assertFalse(
+                SessionReaper.isStale(
+                        Map.of(),
+                        "current",
+                        "local",
+                        NAMESPACE,
+                        Duration.ZERO,
+                        NOW,
+                        (pid, start) -> false));
+    }
+
+    @Test
+    public void testLocalSessionIsStaleWhenOwnerIsGone() {
+        Map<String, String> labels = labels("old", "local", 42, NOW.getEpochSecond());
+        assertTrue(
+                SessionReaper.isStale(
+                        labels,
+                        "current",
+                        "local",
+                        NAMESPACE,
+                        null,
+                        NOW,
+                        (pid, start) -> pid != 42));
+        assertFalse(
+                SessionReaper.isStale(
+                        labels,
+                        "current",
+                        "local",
+                        NAMESPACE,
+                        null,
+                        NOW,
+                        (pid, start) -> pid == 42));
+    }
+
+    @Test
+    public void testForeignSessionIsStaleOnlyByAge() {
+        Map<String, String> labels = labels("old", "remote", 42, NOW.getEpochSecond() - 7200);
+        assertFalse(
+                SessionReaper.isStale(
+                        labels, "current", "local", NAMESPACE, null, NOW, (pid, start) -> false));
+        assertFalse(
+                SessionReaper.isStale(
+                        labels,
+                        "current",
+                        "local",
+                        NAMESPACE,
+                        Duration.ofHours(3),
+                        NOW,
+                        (pid, start) -> false));
+        assertTrue(
+                SessionReaper.isStale(
+                        labels,
+                        "current",
+                        "local",
+                        NAMESPACE,
+                        Duration.ofHours(1),
+                        NOW,
+                        (pid, start) -> true));
+    }
+
+    @Test
+    public void testSameHostInOtherPidNamespaceIsStaleOnlyByAge() {
+        Map<String, String> labels = labels("old", "local", 42, NOW.getEpochSecond() - 7200);
+        labels.put(TlsSessionLabels.PID_NAMESPACE.getLabelName(), "pid:[4026532000]");
+        // the pid belongs to another namespace, so a missing local process says nothing
+        assertFalse(
+                SessionReaper.isStale(
+                        labels, "current", "local", NAMESPACE, null, NOW, (pid, start) -> false));
+        assertTrue(
+                SessionReaper.isStale(
+                        labels,
+                        "current",
+                        "local",
+                        NAMESPACE,
+                        Duration.ofHours(1),
+                        NOW,
+                        (pid, start) -> true));
+
+        labels.remove(TlsSessionLabels.PID_NAMESPACE.getLabelName());
+        assertFalse(
+                SessionReaper.isStale(
+                        labels, "current", "local", NAMESPACE, null, NOW, (pid, start) -> false));
+    }
+}
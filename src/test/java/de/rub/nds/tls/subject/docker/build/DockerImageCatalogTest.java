@@ -0,0 +1,211 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.build;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.EventsCmd;
+import com.github.dockerjava.api.command.ListImagesCmd;
+import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
+import com.github.dockerjava.api.model.Image;
+import de.rub.nds.tls.subject.ConnectionRole;
+import de.rub.nds.tls.subject.TlsImplementationType;
+import de.rub.nds.tls.subject.constants.TlsImageLabels;
+import de.rub.nds.tls.subject.docker.DockerEndpoint;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DockerImageCatalogTest {
+
+    private final AtomicInteger listings = new AtomicInteger();
+    private volatile List<Image> images = List.of();
+    private volatile CountDownLatch listingReleased = new CountDownLatch(0);
+    private volatile CountDownLatch listingStarted = new CountDownLatch(1);
+    private volatile ResultCallback<Event> eventStream;
+    private DockerEndpoint endpoint;
+    private DockerImageCatalog catalog;
+
+    /** Connects the events stream and completes the replay right away. */
+    @SuppressWarnings("unchecked")
+    private EventsCmd eventsCmd() {
+        boolean[] replay = {false};
+        return (EventsCmd)
+                Proxy.newProxyInstance(
+                        EventsCmd.class.getClassLoader(),
+                        new Class<?>[] {EventsCmd.class},
+                        (proxy, method, args) -> {
+                            switch (method.getName()) {
+                                case "withUntil":
+                                    replay[0] = true;
+                                    return proxy;
+                                case "exec":
+                                    ResultCallback<Event> callback =
+                                            (ResultCallback<Event>) args[0];
+                                    if (replay[0]) {
+                                        callback.onComplete();
+                                    } else {
+                                        eventStream = callback;
+                                        callback.onStart(() -> {});
+                                    }
+                                    return callback;
+                                default:
+                                    if (method.getReturnType() == EventsCmd.class) {
+                                        return proxy;
+                                    }
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        });
+    }
+
+    private ListImagesCmd listImagesCmd() {
+        return (ListImagesCmd)
+                Proxy.newProxyInstance(
+                        ListImagesCmd.class.getClassLoader(),
+                        new Class<?>[] {ListImagesCmd.class},
+                        (proxy, method, args) -> {
+                            if (method.getName().equals("exec")) {
+                                listings.incrementAndGet();
+                                listingStarted.countDown();
+                                assertTrue(listingReleased.await(5, TimeUnit.SECONDS));
+                                return images;
+                            }
+                            if (method.getReturnType() == ListImagesCmd.class) {
+                                return proxy;
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                        });
+    }
+
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        DockerClient docker =
+                (DockerClient)
+                        Proxy.newProxyInstance(
+                                DockerClient.class.getClassLoader(),
+                                new Class<?>[] {DockerClient.class},
+                                (proxy, method, args) -> {
+                                    switch (method.getName()) {
+                                        case "eventsCmd":
+                                            return eventsCmd();
+                                        case "listImagesCmd":
+                                            return listImagesCmd();
+                                        default:
+                                            throw new UnsupportedOperationException(
+                                                    method.getName());
+                                    }
+                                });
+        endpoint = DockerEndpoint.of("test", null, docker, docker);
+        catalog = endpoint.getImageCatalog();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!endpoint.getEventTracker().isSynchronized()) {
+            assertTrue(System.nanoTime() < deadline, "tracker did not synchronize");
+            Thread.sleep(10);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        endpoint.getEventTracker().stop();
+    }
+
+    private static Image image(String id, String version, String buildFlags, String... repoTags) {
+        Map<String, String> labels = new HashMap<>();
+        labels.put(TlsImageLabels.IMPLEMENTATION.getLabelName(), "openssl");
+        labels.put(TlsImageLabels.VERSION.getLabelName(), version);
+        labels.put(TlsImageLabels.CONNECTION_ROLE.getLabelName(), "server");
+        if (buildFlags != null) {
+            labels.put(TlsImageLabels.ADDITIONAL_BUILD_FLAGS.getLabelName(), buildFlags);
+        }
+        return new ObjectMapper()
+                .convertValue(
+                        Map.of("Id", id, "RepoTags", repoTags, "Labels", labels), Image.class);
+    }
+
+    private Image getImage(String version, String buildFlags, boolean allowMissingEmptyFlags) {
+        return catalog.getImage(
+                TlsImplementationType.OPENSSL,
+                version,
+                ConnectionRole.SERVER,
+                buildFlags,
+                allowMissingEmptyFlags);
+    }
+
+    @Test
+    public void testIndexesImagesByLabels() {
+        images =
+                List.of(
+                        image("plain", "1.1.1", null, "openssl-server:1.1.1"),
+                        image("flagged", "1.1.1", "-x", "openssl-server:1.1.1-x"),
+                        image("dangling", "3.0.0", null, "<none>:<none>"));
+
+        assertEquals("plain", getImage("1.1.1", null, false).getId());
+        assertEquals(
+                "plain", getImage("1.1.1", DockerBuilder.NO_ADDITIONAL_BUILDFLAGS, true).getId());
+        assertNull(getImage("1.1.1", DockerBuilder.NO_ADDITIONAL_BUILDFLAGS, false));
+        assertEquals("flagged", getImage("1.1.1", "-x", false).getId());
+        assertEquals("dangling", getImage("3.0.0", null, false).getId());
+        assertEquals(2, catalog.getImages().size());
+        assertEquals(
+                List.of("1.1.1", "1.1.1"),
+                catalog.getVersions(ConnectionRole.SERVER, TlsImplementationType.OPENSSL));
+        assertEquals(1, listings.get());
+    }
+
+    @Test
+    public void testImageEventInvalidatesIndex() {
+        assertNull(getImage("1.1.1", null, false));
+        images = List.of(image("pulled", "1.1.1", null, "openssl-server:1.1.1"));
+        assertNull(getImage("1.1.1", null, false));
+        assertEquals(1, listings.get());
+
+        eventStream.onNext(new Event().withType(EventType.IMAGE).withAction("pull"));
+        assertEquals("pulled", getImage("1.1.1", null, false).getId());
+        assertEquals(2, listings.get());
+
+        catalog.invalidate();
+        catalog.getImages();
+        assertEquals(3, listings.get());
+    }
+
+    @Test
+    public void testConcurrentLookupsShareRefresh() throws Exception {
+        listingReleased = new CountDownLatch(1);
+        Thread first = new Thread(catalog::getImages);
+        first.start();
+        assertTrue(listingStarted.await(5, TimeUnit.SECONDS));
+        List<List<Image>> result = new ArrayList<>();
+        Thread second = new Thread(() -> result.add(catalog.getImages()));
+        second.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (second.getState() != Thread.State.BLOCKED) {
+            assertTrue(System.nanoTime() < deadline, "lookup did not wait for the refresh");
+            Thread.sleep(10);
+        }
+        listingReleased.countDown();
+        first.join();
+        second.join();
+        assertEquals(1, listings.get());
+        assertEquals(List.of(List.of()), result);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.placement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.dockerjava.api.model.HostConfig;
+import de.rub.nds.tls.subject.docker.placement.CpuTopology.LogicalCpu;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PlacementSchedulerTest {
+
+    /** Two nodes with two cores each, the second thread of a core has the id + 4 */
+    private static CpuTopology twoNodes() {
+        List<LogicalCpu> cpus = new ArrayList<>();
+        for (int core = 0; core < 4; core++) {
+            cpus.add(new LogicalCpu(core, core, core / 2));
+            cpus.add(new LogicalCpu(core + 4, core, core / 2));
+        }
+        return new CpuTopology(cpus, true);
+    }
+
+    @Test
+    public void testPackFillsCoresOfANode() {
+        PlacementScheduler scheduler = new PlacementScheduler(twoNodes(), PlacementPolicy.PACK);
+        Placement first = scheduler.place(new ResourceRequest().cpus(2));
+        Placement second = scheduler.place(new ResourceRequest().cpus(2));
+        Placement third = scheduler.place(new ResourceRequest().cpus(2));
+        assertEquals(List.of(0, 4), first.getCpus());
+        assertEquals(List.of(0), first.getNodes());
+        assertEquals(List.of(1, 5), second.getCpus());
+        assertEquals(List.of(2, 6), third.getCpus());
+        assertEquals(List.of(1), third.getNodes());
+    }
+
+    @Test
+    public void testSpreadUsesFreeCoresOnAllNodes() {
+        PlacementScheduler scheduler = new PlacementScheduler(twoNodes(), PlacementPolicy.SPREAD);
+        List<Integer> picked = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            picked.addAll(scheduler.place(new ResourceRequest()).getCpus());
+        }
+        // one thread per core, alternating nodes, before second threads are used
+        assertEquals(List.of(0, 2, 1, 3, 4), picked);
+    }
+
+    @Test
+    public void testSpreadKeepsCpusOfAContainerOnOneNode() {
+        PlacementScheduler scheduler = new PlacementScheduler(twoNodes(), PlacementPolicy.SPREAD);
+        Placement first = scheduler.place(new ResourceRequest().cpus(2));
+        Placement second = scheduler.place(new ResourceRequest().cpus(2));
+        assertEquals(List.of(0, 1), first.getCpus());
+        assertEquals(List.of(0), first.getNodes());
+        assertEquals(List.of(2, 3), second.getCpus());
+        assertEquals(List.of(1), second.getNodes());
+        // too large for one node
+        Placement third = scheduler.place(new ResourceRequest().cpus(6));
+        assertEquals(List.of(0, 1), third.getNodes());
+    }
+
+    @Test
+    public void testReleasedCpusAreReused() {
+        PlacementScheduler scheduler = new PlacementScheduler(twoNodes(), PlacementPolicy.PACK);
+        Placement first = scheduler.place(new ResourceRequest().cpus(8));
+        assertTrue(scheduler.getLoads().values().stream().allMatch(load -> load == 1));
+        scheduler.release(first);
+        assertTrue(scheduler.getLoads().values().stream().allMatch(load -> load == 0));
+        assertEquals(List.of(0, 4), scheduler.place(new ResourceRequest().cpus(2)).getCpus());
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> scheduler.place(new ResourceRequest().cpus(9)));
+    }
+
+    @Test
+    public void testApplyTo() {
+        PlacementScheduler scheduler = new PlacementScheduler(twoNodes(), PlacementPolicy.PACK);
+        Placement placement =
+                scheduler.place(new ResourceRequest().cpus(2).cpuLimit(0.5).memoryBytes(1L << 30));
+        HostConfig cfg = placement.applyTo(HostConfig.newHostConfig());
+        assertEquals("0,4", cfg.getCpusetCpus());
+        assertEquals("0", cfg.getCpusetMems());
+        assertEquals(100_000L, cfg.getCpuPeriod());
+        assertEquals(50_000L, cfg.getCpuQuota());
+        assertEquals(1L << 30, cfg.getMemory());
+    }
+
+    @Test
+    public void testFlatTopologyDoesNotBindMemory() {
+        PlacementScheduler scheduler =
+                new PlacementScheduler(CpuTopology.flat(2), PlacementPolicy.SPREAD);
+        Placement placement = scheduler.place(new ResourceRequest());
+        assertTrue(placement.getNodes().isEmpty());
+        assertNull(placement.applyTo(HostConfig.newHostConfig()).getCpusetMems());
+    }
+
+    @Test
+    public void testParseCpuList() {
+        assertEquals(List.of(0, 1, 2, 5, 7, 8), CpuTopology.parseCpuList("0-2,5,7-8\n"));
+        assertTrue(CpuTopology.parseCpuList("").isEmpty());
+    }
+
+    @Test
+    public void testFromSysfs(@TempDir Path root) throws IOException {
+        writeCpu(root, 0, 0, 0);
+        writeCpu(root, 1, 0, 1);
+        writeCpu(root, 2, 0, 0);
+        writeCpu(root, 3, 0, 1);
+        Files.writeString(root.resolve("cpu/online"), "0-2\n");
+        Files.createDirectories(root.resolve("node/node0"));
+        Files.writeString(root.resolve("node/node0/cpulist"), "0-3\n");
+        CpuTopology topology = CpuTopology.fromSysfs(root);
+        assertEquals(3, topology.getCpus().size());
+        assertEquals(2, topology.getCoreCount());
+        assertEquals(1, topology.getNodeCount());
+        assertTrue(topology.isNumaKnown());
+        assertEquals(topology.getCpus().get(0).getCore(), topology.getCpus().get(2).getCore());
+        assertNotEquals(topology.getCpus().get(0).getCore(), topology.getCpus().get(1).getCore());
+    }
+
+    private static void writeCpu(Path root, int id, int packageId, int coreId) throws IOException {
+        Path topology = root.resolve("cpu/cpu" + id + "/topology");
+        Files.createDirectories(topology);
+        Files.writeString(topology.resolve("physical_package_id"), packageId + "\n");
+        Files.writeString(topology.resolve("core_id"), coreId + "\n");
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class DockerTlsClientFarmTest {
+
+    @Test
+    public void testRoundRobinCyclesThroughMembers() {
+        List<Integer> picked = new ArrayList<>();
+        for (int counter = 0; counter < 6; counter++) {
+            picked.add(
+                    DockerTlsClientFarm.pickIndex(
+                            DispatchStrategy.ROUND_ROBIN, counter, 3, index -> 100));
+        }
+        assertEquals(List.of(0, 1, 2, 0, 1, 2), picked);
+    }
+
+    @Test
+    public void testRoundRobinHandlesCounterOverflow() {
+        assertEquals(
+                Math.floorMod(Integer.MIN_VALUE, 3),
+                DockerTlsClientFarm.pickIndex(
+                        DispatchStrategy.ROUND_ROBIN, Integer.MIN_VALUE, 3, index -> 0));
+    }
+
+    @Test
+    public void testLeastLoadedPicksIdlestMember() {
+        int[] loads = {3, 1, 2};
+        for (int counter = 0; counter < 3; counter++) {
+            assertEquals(
+                    1,
+                    DockerTlsClientFarm.pickIndex(
+                            DispatchStrategy.LEAST_LOADED, counter, 3, index -> loads[index]));
+        }
+    }
+
+    @Test
+    public void testLeastLoadedSpreadsConnectsEvenly() {
+        int[] loads = new int[4];
+        for (int counter = 0; counter < 12; counter++) {
+            loads[
+                    DockerTlsClientFarm.pickIndex(
+                            DispatchStrategy.LEAST_LOADED, counter, 4, index -> loads[index])]++;
+        }
+        for (int load : loads) {
+            assertEquals(3, load);
+        }
+    }
+
+    @Test
+    public void testLeastLoadedBreaksTiesInRoundRobinOrder() {
+        int[] loads = {0, 5, 0, 0};
+        assertEquals(
+                2,
+                DockerTlsClientFarm.pickIndex(
+                        DispatchStrategy.LEAST_LOADED, 2, 4, index -> loads[index]));
+        assertEquals(
+                2,
+                DockerTlsClientFarm.pickIndex(
+                        DispatchStrategy.LEAST_LOADED, 1, 4, index -> loads[index]));
+        assertEquals(
+                3,
+                DockerTlsClientFarm.pickIndex(
+                        DispatchStrategy.LEAST_LOADED, 3, 4, index -> loads[index]));
+    }
+}
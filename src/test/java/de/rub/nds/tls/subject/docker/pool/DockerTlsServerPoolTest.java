@@ -0,0 +1,252 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.docker.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.dockerjava.api.model.Image;
+import de.rub.nds.tls.subject.ConnectionRole;
+import de.rub.nds.tls.subject.HostInfo;
+import de.rub.nds.tls.subject.TlsImplementationType;
+import de.rub.nds.tls.subject.constants.TransportType;
+import de.rub.nds.tls.subject.docker.DockerEndpoint;
+import de.rub.nds.tls.subject.docker.DockerTlsServerInstance;
+import de.rub.nds.tls.subject.exceptions.ImplementationDidNotStartException;
+import de.rub.nds.tls.subject.params.ParameterProfile;
+import de.rub.nds.tls.subject.probe.ProbeMode;
+import de.rub.nds.tls.subject.properties.ImageProperties;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class DockerTlsServerPoolTest {
+
+    private static final PoolKey KEY =
+            new PoolKey(TlsImplementationType.OPENSSL, "1.1.1", TransportType.TCP);
+    private static final DockerEndpoint ENDPOINT = DockerEndpoint.of("test", null, null, null);
+
+    private final List<FakeServer> created = new CopyOnWriteArrayList<>();
+    private DockerTlsServerPool pool;
+
+    @AfterEach
+    public void tearDown() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private static PoolConfig config() {
+        // no background refill, so only the tested calls create containers
+        return new PoolConfig().minIdle(0).maintenanceInterval(Duration.ofHours(1));
+    }
+
+    private DockerTlsServerPool createPool(PoolConfig config, boolean becomesReady) {
+        pool =
+                new DockerTlsServerPool(
+                        config,
+                        key -> {
+                            FakeServer server = new FakeServer(becomesReady);
+                            created.add(server);
+                            return server;
+                        });
+        return pool;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testLeasedContainerIsStartedAndReady() throws Exception {
+        createPool(config(), true);
+        try (ServerLease lease = pool.lease(KEY)) {
+            FakeServer server = (FakeServer) lease.getInstance();
+            assertEquals(1, server.starts);
+            assertEquals(1, server.readinessChecks);
+            assertTrue(server.ready);
+            assertEquals(1, pool.getLeasedCount(KEY));
+        }
+    }
+
+    @Test
+    public void testContainerThatDoesNotBecomeReadyIsNotLeased() {
+        createPool(config(), false);
+        assertThrows(ImplementationDidNotStartException.class, () -> pool.lease(KEY));
+        assertEquals(1, created.size());
+        assertTrue(created.get(0).closed);
+        assertEquals(0, pool.getLeasedCount(KEY));
+    }
+
+    @Test
+    public void testReleasedContainerIsReused() throws Exception {
+        createPool(config().releasePolicy(ReleasePolicy.REUSE), true);
+        DockerTlsServerInstance first;
+        try (ServerLease lease = pool.lease(KEY)) {
+            first = lease.getInstance();
+        }
+        await(() -> pool.getIdleCount(KEY) == 1);
+        assertEquals(0, pool.getLeasedCount(KEY));
+        try (ServerLease lease = pool.lease(KEY)) {
+            assertSame(first, lease.getInstance());
+        }
+        assertEquals(1, created.size());
+    }
+
+    @Test
+    public void testRestartedContainerIsReadyBeforeItIsLeasedAgain() throws Exception {
+        createPool(config().releasePolicy(ReleasePolicy.RESTART), true);
+        FakeServer server;
+        try (ServerLease lease = pool.lease(KEY)) {
+            server = (FakeServer) lease.getInstance();
+        }
+        await(() -> pool.getIdleCount(KEY) == 1);
+        assertEquals(1, server.restarts);
+        assertEquals(2, server.readinessChecks);
+        assertTrue(server.ready);
+        try (ServerLease lease = pool.lease(KEY)) {
+            assertSame(server, lease.getInstance());
+        }
+    }
+
+    @Test
+    public void testInvalidatedContainerIsDestroyed() throws Exception {
+        createPool(config().releasePolicy(ReleasePolicy.REUSE), true);
+        try (ServerLease lease = pool.lease(KEY)) {
+            lease.invalidate();
+        }
+        await(() -> created.get(0).closed);
+        assertEquals(0, pool.getIdleCount(KEY));
+    }
+
+    @Test
+    public void testUnhealthyContainerIsEvictedOnLease() throws Exception {
+        createPool(config().releasePolicy(ReleasePolicy.REUSE), true);
+        FakeServer first;
+        try (ServerLease lease = pool.lease(KEY)) {
+            first = (FakeServer) lease.getInstance();
+        }
+        await(() -> pool.getIdleCount(KEY) == 1);
+        first.running = false;
+        try (ServerLease lease = pool.lease(KEY)) {
+            assertNotSame(first, lease.getInstance());
+            assertTrue(first.closed);
+        }
+        assertEquals(2, created.size());
+    }
+
+    @Test
+    public void testCustomHealthCheckIsUsed() throws Exception {
+        createPool(
+                config().releasePolicy(ReleasePolicy.REUSE)
+                        .healthCheck(instance -> ((FakeServer) instance).restarts > 0),
+                true);
+        try (ServerLease lease = pool.lease(KEY)) {
+            assertFalse(((FakeServer) lease.getInstance()).closed);
+        }
+        await(() -> pool.getIdleCount(KEY) == 1);
+        try (ServerLease lease = pool.lease(KEY)) {
+            assertNotSame(created.get(0), lease.getInstance());
+        }
+    }
+
+    /** A server without a container, which becomes ready once it is checked after a start. */
+    private static class FakeServer extends DockerTlsServerInstance {
+        private final boolean becomesReady;
+        private volatile int starts = 0;
+        private volatile int restarts = 0;
+        private volatile int readinessChecks = 0;
+        private volatile boolean running = false;
+        private volatile boolean ready = false;
+        private volatile boolean closed = false;
+
+        FakeServer(boolean becomesReady) {
+            super(
+                    new Image(),
+                    null,
+                    new ParameterProfile(
+                            "test",
+                            "test",
+                            TlsImplementationType.OPENSSL,
+                            ConnectionRole.SERVER,
+                            List.of(),
+                            List.of()),
+                    new ImageProperties(
+                            ConnectionRole.SERVER,
+                            TlsImplementationType.OPENSSL,
+                            "1.1.1",
+                            4433,
+                            null,
+                            null,
+                            null),
+                    "1.1.1",
+                    null,
+                    true,
+                    new HostInfo(null, null, 4433, TransportType.TCP),
+                    null,
+                    false,
+                    false,
+                    null,
+                    ENDPOINT,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null);
+            this.becomesReady = becomesReady;
+        }
+
+        @Override
+        public void start() {
+            starts++;
+            running = true;
+            ready = false;
+        }
+
+        @Override
+        public void restart() {
+            restarts++;
+            running = true;
+            ready = false;
+        }
+
+        @Override
+        public void waitUntilReady(ProbeMode mode, Duration timeout) {
+            readinessChecks++;
+            if (!becomesReady || !running) {
+                throw new ImplementationDidNotStartException("not ready");
+            }
+            ready = true;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.probe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.rub.nds.tls.subject.constants.TransportType;
+import de.rub.nds.tls.subject.exceptions.ImplementationDidNotStartException;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.security.cert.CertificateException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLHandshakeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ReadinessProberTest {
+
+    private static final String LOOPBACK = InetAddress.getLoopbackAddress().getHostAddress();
+
+    private ReadinessProber prober;
+
+    @BeforeEach
+    public void setUp() {
+        prober = new ReadinessProber();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        prober.close();
+    }
+
+    private static int getUnusedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Test
+    public void testListeningServersAreReady() throws Exception {
+        List<ServerSocket> servers = new ArrayList<>();
+        List<CompletableFuture<InetSocketAddress>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 20; i++) {
+                ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+                servers.add(server);
+                futures.add(prober.probe(LOOPBACK, server.getLocalPort(), Duration.ofSeconds(5)));
+            }
+            for (int i = 0; i < servers.size(); i++) {
+                InetSocketAddress address = futures.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals(servers.get(i).getLocalPort(), address.getPort());
+            }
+        } finally {
+            for (ServerSocket server : servers) {
+                server.close();
+            }
+        }
+    }
+
+    @Test
+    public void testServerStartingLaterIsReady() throws Exception {
+        int port = getUnusedPort();
+        CompletableFuture<InetSocketAddress> future =
+                prober.probe(LOOPBACK, port, Duration.ofSeconds(5));
+        Thread.sleep(200);
+        assertFalse(future.isDone());
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            assertEquals(server.getLocalPort(), future.get(5, TimeUnit.SECONDS).getPort());
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        int port = getUnusedPort();
+        CompletableFuture<InetSocketAddress> future =
+                prober.probe(LOOPBACK, port, Duration.ofMillis(200));
+        ExecutionException exception =
+                assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof ImplementationDidNotStartException);
+    }
+
+    @Test
+    public void testStartDelayBeyondTimeoutStillAttemptsOnce() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            ProbeSchedule schedule = ProbeSchedule.DEFAULT.withStartDelay(Duration.ofSeconds(1));
+            CompletableFuture<InetSocketAddress> future =
+                    prober.probe(
+                            new InetSocketAddress(LOOPBACK, server.getLocalPort()),
+                            Duration.ofMillis(200),
+                            schedule);
+            assertEquals(server.getLocalPort(), future.get(5, TimeUnit.SECONDS).getPort());
+        }
+    }
+
+    @Test
+    public void testCloseFailsPendingProbes() throws Exception {
+        CompletableFuture<InetSocketAddress> future =
+                prober.probe(LOOPBACK, getUnusedPort(), Duration.ofSeconds(30));
+        prober.close();
+        ExecutionException exception =
+                assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof ImplementationDidNotStartException);
+    }
+
+    @Test
+    public void testBrokenProbeDoesNotStopOthers() throws Exception {
+        CompletableFuture<InetSocketAddress> broken = new CompletableFuture<>();
+        prober.submit(
+                new ReadinessProber.Target(
+                        new InetSocketAddress(LOOPBACK, 1),
+                        broken,
+                        Duration.ofSeconds(5),
+                        ProbeSchedule.DEFAULT) {
+                    @Override
+                    boolean startAttempt(Selector selector) {
+                        throw new IllegalStateException("broken probe");
+                    }
+
+                    @Override
+                    boolean onSelected(SelectionKey key) {
+                        return false;
+                    }
+                });
+        ExecutionException exception =
+                assertThrows(ExecutionException.class, () -> broken.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof ImplementationDidNotStartException);
+        assertTrue(exception.getCause().getCause() instanceof IllegalStateException);
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<InetSocketAddress> future =
+                    prober.probe(LOOPBACK, server.getLocalPort(), Duration.ofSeconds(5));
+            assertEquals(server.getLocalPort(), future.get(5, TimeUnit.SECONDS).getPort());
+        }
+    }
+
+    @Test
+    public void testClientHelloLengthsAreConsistent() {
+        ByteBuffer record = ByteBuffer.wrap(DtlsClientHello.create());
+        assertTrue(DtlsClientHello.isHandshakeOrAlert(record));
+        int recordLength = record.getShort(11) & 0xffff;
+        assertEquals(record.remaining() - 13, recordLength);
+        int messageLength = ((record.get(14) & 0xff) << 16) | (record.getShort(15) & 0xffff);
+        assertEquals(recordLength - 12, messageLength);
+    }
+
+    private static void answerWithAlert(DatagramSocket server) {
+        try {
+            DatagramPacket request = new DatagramPacket(new byte[2048], 2048);
+            server.receive(request);
+            // DTLS 1.2 record with a fatal handshake_failure alert
+            ByteBuffer alert =
+                    ByteBuffer.allocate(15)
+                            .put(DtlsClientHello.CONTENT_TYPE_ALERT)
+                            .put((byte) 0xfe)
+                            .put((byte) 0xfd)
+                            .put(new byte[8])
+                            .putShort((short) 2)
+                            .put((byte) 2)
+                            .put((byte) 40);
+            server.send(new DatagramPacket(alert.array(), 15, request.getSocketAddress()));
+        } catch (IOException e) {
+            // the test fails with a timeout
+        }
+    }
+
+    @Test
+    public void testDtlsServerAnsweringIsReady() throws Exception {
+        try (DatagramSocket server = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            Thread responder = new Thread(() -> answerWithAlert(server));
+            responder.start();
+            CompletableFuture<InetSocketAddress> future =
+                    prober.probe(
+                            LOOPBACK,
+                            server.getLocalPort(),
+                            TransportType.UDP,
+                            Duration.ofSeconds(5));
+            assertEquals(server.getLocalPort(), future.get(5, TimeUnit.SECONDS).getPort());
+            responder.join();
+        }
+    }
+
+    @Test
+    public void testSilentDtlsServerTimesOut() throws Exception {
+        try (DatagramSocket server = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<InetSocketAddress> future =
+                    prober.probe(
+                            LOOPBACK,
+                            server.getLocalPort(),
+                            TransportType.UDP,
+                            Duration.ofMillis(500));
+            ExecutionException exception =
+                    assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(exception.getCause() instanceof ImplementationDidNotStartException);
+        }
+    }
+
+    private static void acceptAndRespond(ServerSocket server, byte[] response) {
+        try {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    socket.getInputStream().read(new byte[2048]);
+                    socket.getOutputStream().write(response);
+                }
+            }
+        } catch (IOException e) {
+            // server closed
+        }
+    }
+
+    private CompletableFuture<InetSocketAddress> probeHandshake(int port, Duration timeout) {
+        return prober.probe(
+                new InetSocketAddress(LOOPBACK, port),
+                TransportType.TCP,
+                ProbeMode.HANDSHAKE,
+                timeout,
+                ProbeSchedule.DEFAULT);
+    }
+
+    @Test
+    public void testTlsServerAnsweringWithAlertIsReady() throws Exception {
+        // TLS 1.2 record with a fatal handshake_failure alert
+        byte[] alert = {21, 3, 3, 0, 2, 2, 40};
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            new Thread(() -> acceptAndRespond(server, alert)).start();
+            CompletableFuture<InetSocketAddress> future =
+                    probeHandshake(server.getLocalPort(), Duration.ofSeconds(5));
+            assertEquals(server.getLocalPort(), future.get(5, TimeUnit.SECONDS).getPort());
+        }
+    }
+
+    @Test
+    public void testAcceptingServerWithoutTlsIsNotReady() throws Exception {
+        try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            new Thread(() -> acceptAndRespond(server, new byte[0])).start();
+            CompletableFuture<InetSocketAddress> future =
+                    probeHandshake(server.getLocalPort(), Duration.ofMillis(500));
+            ExecutionException exception =
+                    assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertTrue(exception.getCause() instanceof ImplementationDidNotStartException);
+        }
+    }
+
+    @Test
+    public void testUntrustedCertificateIsNotAnAnswer() {
+        SSLHandshakeException untrusted = new SSLHandshakeException("PKIX path building failed");
+        untrusted.initCause(new CertificateException("unable to find valid certification path"));
+        assertTrue(ReadinessProber.isUntrustedCertificate(untrusted));
+        assertFalse(ReadinessProber.isAlert(untrusted));
+
+        SSLHandshakeException alert =
+                new SSLHandshakeException("Received fatal alert: handshake_failure");
+        assertFalse(ReadinessProber.isUntrustedCertificate(alert));
+        assertTrue(ReadinessProber.isAlert(alert));
+    }
+}
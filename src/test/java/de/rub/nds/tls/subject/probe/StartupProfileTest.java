@@ -0,0 +1,85 @@
+/*
+ * TLS-Docker-Library - A collection of open source TLS clients and servers
+ *
+ * Copyright 2017-2026 Ruhr University Bochum, Paderborn University, and Hackmanit GmbH
+ *
+ * Licensed under Apache License, Version 2.0
+ * http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package de.rub.nds.tls.subject.probe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+public class StartupProfileTest {
+
+    @Test
+    public void testFallbackUntilEnoughSamples() {
+        StartupProfile profile = new StartupProfile("image");
+        for (int i = 1; i < StartupProfile.MIN_SAMPLES; i++) {
+            profile.record(Duration.ofMillis(1000));
+            assertSame(ProbeSchedule.DEFAULT, profile.getSchedule(ProbeSchedule.DEFAULT));
+        }
+    }
+
+    @Test
+    public void testScheduleIsTuned() {
+        StartupProfile profile = new StartupProfile("image");
+        profile.record(Duration.ofMillis(1000));
+        profile.record(Duration.ofMillis(1200));
+        profile.record(Duration.ofMillis(1400));
+        ProbeSchedule schedule = profile.getSchedule(ProbeSchedule.DEFAULT);
+        assertEquals(Duration.ofMillis(800), schedule.getStartDelay());
+        assertTrue(schedule.getInitialDelay().compareTo(Duration.ofMillis(50)) <= 0);
+        assertTrue(schedule.getMaxDelay().compareTo(schedule.getInitialDelay()) >= 0);
+        assertTrue(schedule.getMaxDelay().compareTo(ProbeSchedule.DEFAULT.getMaxDelay()) <= 0);
+        assertEquals(ProbeSchedule.DEFAULT.getAttemptTimeout(), schedule.getAttemptTimeout());
+        assertEquals(Duration.ofMillis(1200), profile.getMean().get());
+    }
+
+    @Test
+    public void testOnlyRecentSamplesAreKept() {
+        StartupProfile profile = new StartupProfile("image");
+        for (int i = 0; i < 100; i++) {
+            profile.record(Duration.ofSeconds(10));
+        }
+        for (int i = 0; i < 32; i++) {
+            profile.record(Duration.ofMillis(100));
+        }
+        assertEquals(132, profile.getCount());
+        assertEquals(Duration.ofMillis(100), profile.getQuantile(1).get());
+    }
+
+    @Test
+    public void testStartDelayIsCappedByTimeout() {
+        StartupProfile profile = new StartupProfile("image");
+        for (int i = 0; i < StartupProfile.MIN_SAMPLES; i++) {
+            profile.record(Duration.ofSeconds(10));
+        }
+        assertEquals(
+                Duration.ofSeconds(8), profile.getSchedule(ProbeSchedule.DEFAULT).getStartDelay());
+        assertEquals(
+                Duration.ofSeconds(2),
+                profile.getSchedule(ProbeSchedule.DEFAULT, Duration.ofSeconds(4)).getStartDelay());
+    }
+
+    @Test
+    public void testLateProbesAreNotRecorded() {
+        StartupProfile profile = new StartupProfile("image");
+        assertTrue(profile.record(Duration.ZERO, Duration.ofMillis(1000)));
+        assertFalse(profile.record(Duration.ofSeconds(30), Duration.ofSeconds(31)));
+        assertEquals(1, profile.getCount());
+
+        profile.record(Duration.ZERO, Duration.ofMillis(1000));
+        profile.record(Duration.ZERO, Duration.ofMillis(1000));
+        // probes submitted before the tuned start delay passed are not delayed by the caller
+        assertTrue(profile.record(Duration.ofMillis(500), Duration.ofMillis(1100)));
+        assertFalse(profile.record(Duration.ofMillis(900), Duration.ofMillis(1100)));
+        assertEquals(4, profile.getCount());
+    }
+}